@@ -33,6 +33,9 @@ android {
 }
 
 dependencies {
+    // Ledger engines (plain Java)
+    implementation(project(":core"))
+
     // Default AndroidX Libraries
     implementation(libs.appcompat)
     implementation(libs.material)
@@ -53,6 +56,18 @@ dependencies {
     // Image Loading
     implementation(libs.glide)
 
+    // Paging (transaction history)
+    implementation(libs.paging.runtime)
+    implementation(libs.paging.guava)
+    implementation(libs.concurrent.futures)
+
+    // Lifecycle (shared ViewModels)
+    implementation(libs.lifecycle.viewmodel)
+    implementation(libs.lifecycle.livedata)
+
+    // Background work (budget reconciliation)
+    implementation(libs.work.runtime)
+
     // Testing
     testImplementation(libs.junit)
     androidTestImplementation(libs.ext.junit)
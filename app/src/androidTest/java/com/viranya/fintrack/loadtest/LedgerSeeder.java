@@ -0,0 +1,146 @@
+package com.viranya.fintrack.loadtest;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.WriteBatch;
+import com.viranya.fintrack.data.BalanceCheckpoints;
+import com.viranya.fintrack.data.FirestoreGateway;
+import com.viranya.fintrack.data.Rollups;
+import com.viranya.fintrack.ledger.TransactionColumns;
+import com.viranya.fintrack.model.Account;
+import com.viranya.fintrack.model.Budget;
+import com.viranya.fintrack.model.Transaction;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a reproducible user to the emulator: accounts with opening balances, transactions
+ * spread over the configured years, budgets for the current month, and the rollups and
+ * balance checkpoints the app derives from them.
+ *
+ * Document ids are deterministic, so seeding the same user again overwrites instead of duplicating.
+ */
+final class LedgerSeeder {
+
+    private static final String[] EXPENSE_CATEGORIES = {"Food", "Transport", "Housing", "Utilities", "Entertainment",
+            "Shopping", "Health", "Savings"};
+    private static final String[] INCOME_CATEGORIES = {"Salary", "Freelance", "Gift", "Other"};
+    private static final String[] WORDS = {"coffee", "lunch", "bus", "taxi", "groceries", "electricity", "water",
+            "phone", "movie", "book", "pharmacy", "fuel", "dinner", "rent", "gift", "salary", "bonus", "internet"};
+    private static final int MAX_BATCH_WRITES = 450; // Firestore allows 500 operations per batch
+    private static final int MAX_IN_FLIGHT_BATCHES = 4;
+
+    private final FirestoreGateway gateway;
+    private final LoadTestConfig config;
+
+    LedgerSeeder(FirestoreGateway gateway, LoadTestConfig config) {
+        this.gateway = gateway;
+        this.config = config;
+    }
+
+    /**
+     * Seeds one user. Blocks until every write is acknowledged; must run off the main thread.
+     */
+    void seed(int userIndex) throws Exception {
+        String userId = LoadTestConfig.userId(userIndex);
+        DocumentReference user = gateway.user(userId);
+        Random random = new Random(userIndex); // Same data for the same user on every run
+        long now = System.currentTimeMillis();
+        long span = TimeUnit.DAYS.toMillis(365L * config.years);
+        long monthStart = startOfMonth(now);
+
+        TransactionColumns ledger = new TransactionColumns();
+        Writer writer = new Writer();
+        String[] accounts = new String[config.accounts];
+        for (int i = 0; i < accounts.length; i++) {
+            accounts[i] = "Account " + (i + 1);
+            long opening = 10_000_00L + random.nextInt(500_000_00);
+            Transaction initial = new Transaction("Initial Balance for " + accounts[i], "Initial Balance", opening,
+                    "Income", accounts[i], new Date(now - span));
+            writer.set(user.collection("transactions").document(String.format(Locale.US, "init-%03d", i)), initial, ledger);
+        }
+
+        for (int i = 0; i < config.transactions; i++) {
+            boolean income = random.nextInt(10) == 0;
+            String category = income
+                    ? INCOME_CATEGORIES[random.nextInt(INCOME_CATEGORIES.length)]
+                    : EXPENSE_CATEGORIES[random.nextInt(EXPENSE_CATEGORIES.length)];
+            String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+            long amountMinor = income ? 5_000_00L + random.nextInt(200_000_00) : 50_00L + random.nextInt(20_000_00);
+            Transaction transaction = new Transaction(title, category, amountMinor, income ? "Income" : "Expense",
+                    accounts[random.nextInt(accounts.length)], new Date(now - (long) (random.nextDouble() * span)));
+            writer.set(user.collection("transactions").document(String.format(Locale.US, "tx-%08d", i)), transaction, ledger);
+        }
+
+        long[] balances = ledger.netByAccount(Long.MIN_VALUE, Long.MAX_VALUE);
+        for (String account : accounts) {
+            int id = ledger.accountId(account);
+            writer.set(user.collection("accounts").document(account), new Account(account, balances[id]), null);
+        }
+
+        long[] spent = ledger.sumByCategory(ledger.typeId("Expense"), monthStart, Long.MAX_VALUE);
+        for (int i = 0; i < Math.min(config.budgets, EXPENSE_CATEGORIES.length); i++) {
+            String category = EXPENSE_CATEGORIES[i];
+            int id = ledger.categoryId(category);
+            long spentMinor = id < 0 || id >= spent.length ? 0 : spent[id];
+            writer.set(user.collection("budgets").document(category),
+                    new Budget(category, spentMinor + 50_000_00L, spentMinor), null);
+        }
+        writer.flush();
+
+        Tasks.await(Rollups.rebuild(gateway, userId, ledger));
+        Tasks.await(BalanceCheckpoints.advance(gateway, userId));
+    }
+
+    private static long startOfMonth(long millis) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(millis);
+        calendar.set(Calendar.DAY_OF_MONTH, 1);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     * Groups writes into batches and keeps a few commits in flight at once.
+     */
+    private final class Writer {
+        private final List<Task<Void>> inFlight = new ArrayList<>();
+        private WriteBatch batch = gateway.db().batch();
+        private int writes = 0;
+
+        void set(DocumentReference ref, Object data, TransactionColumns ledger) throws Exception {
+            batch.set(ref, data);
+            if (ledger != null) {
+                Transaction transaction = (Transaction) data;
+                ledger.upsert(ref.getId(), transaction.getTitle(), transaction.getType(), transaction.getCategory(),
+                        transaction.getAccountName(), transaction.getDate().getTime(), transaction.getAmountMinor());
+            }
+            if (++writes == MAX_BATCH_WRITES) commit();
+        }
+
+        void flush() throws Exception {
+            if (writes > 0) commit();
+            Tasks.await(Tasks.whenAll(inFlight));
+            inFlight.clear();
+        }
+
+        private void commit() throws Exception {
+            if (inFlight.size() == MAX_IN_FLIGHT_BATCHES) {
+                Tasks.await(inFlight.remove(0));
+            }
+            inFlight.add(batch.commit());
+            batch = gateway.db().batch();
+            writes = 0;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.viranya.fintrack.loadtest;
+
+import android.os.Bundle;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+/**
+ * Harness settings, read from instrumentation arguments, e.g.
+ * -Pandroid.testInstrumentationRunnerArguments.transactions=100000
+ */
+final class LoadTestConfig {
+
+    final String host;          // The Firestore emulator; 10.0.2.2 is the host machine from an Android emulator
+    final int port;
+    final int users;
+    final int transactions;     // Per user
+    final int accounts;         // Per user
+    final int budgets;          // Per user
+    final int years;            // Transactions are spread over this many years, ending today
+    final boolean seed;         // False to measure data left by an earlier run with keepData=true
+    final boolean keepData;     // True to skip the account deletion scenario, which removes the seeded data
+
+    private LoadTestConfig(Bundle arguments) {
+        host = arguments.getString("host", "10.0.2.2");
+        port = intArgument(arguments, "port", 8080);
+        users = intArgument(arguments, "users", 1);
+        transactions = intArgument(arguments, "transactions", 1000);
+        accounts = intArgument(arguments, "accounts", 3);
+        budgets = intArgument(arguments, "budgets", 5);
+        years = intArgument(arguments, "years", 3);
+        seed = Boolean.parseBoolean(arguments.getString("seed", "true"));
+        keepData = Boolean.parseBoolean(arguments.getString("keepData", "false"));
+    }
+
+    static LoadTestConfig fromInstrumentation() {
+        return new LoadTestConfig(InstrumentationRegistry.getArguments());
+    }
+
+    static String userId(int index) {
+        return "loadtest-user-" + index;
+    }
+
+    private static int intArgument(Bundle arguments, String key, int defaultValue) {
+        String value = arguments.getString(key);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    @Override
+    public String toString() {
+        return users + " user(s) x " + transactions + " transactions over " + years + " year(s), "
+                + accounts + " accounts, " + budgets + " budgets";
+    }
+}
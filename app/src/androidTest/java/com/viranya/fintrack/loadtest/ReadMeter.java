@@ -0,0 +1,52 @@
+package com.viranya.fintrack.loadtest;
+
+import android.net.TrafficStats;
+import android.os.Process;
+
+import com.viranya.fintrack.data.QueryMetrics;
+
+/**
+ * Measures one scenario from what the app records itself: the documents and calls that
+ * {@link QueryMetrics} counted at every call site while the scenario ran, and the bytes the app's
+ * process received over the network, which is the Firestore channel to the emulator.
+ *
+ * Reads are the documents returned, the way Firestore bills them, except that a query matching
+ * nothing is not counted; Firestore bills one read for it.
+ */
+final class ReadMeter {
+
+    private final QueryMetrics metrics;
+    private long startRxBytes;
+    private long reads;
+    private long queries;
+    private long bytes;
+
+    ReadMeter(QueryMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    void start() {
+        metrics.reset();
+        startRxBytes = TrafficStats.getUidRxBytes(Process.myUid());
+    }
+
+    void stop() {
+        long rxBytes = TrafficStats.getUidRxBytes(Process.myUid());
+        bytes = rxBytes == TrafficStats.UNSUPPORTED || startRxBytes == TrafficStats.UNSUPPORTED
+                ? -1 : rxBytes - startRxBytes;
+        for (QueryMetrics.SiteStats site : metrics.snapshot()) {
+            if (site.getKind() == QueryMetrics.Kind.WRITE) continue;
+            reads += site.getDocuments();
+            queries += site.getCalls();
+        }
+    }
+
+    long getReads() { return reads; }
+
+    long getQueries() { return queries; }
+
+    /**
+     * @return The bytes received, or -1 if the device does not report per-app traffic.
+     */
+    long getBytes() { return bytes; }
+}
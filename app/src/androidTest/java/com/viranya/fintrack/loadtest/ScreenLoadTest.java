@@ -0,0 +1,115 @@
+package com.viranya.fintrack.loadtest;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreSettings;
+import com.google.firebase.firestore.MemoryCacheSettings;
+import com.viranya.fintrack.data.FirestoreGateway;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Seeds the local Firestore emulator and measures the reads, bytes and wall time of each
+ * screen's query path, per user. Start the emulator first (firebase emulators:start --only firestore),
+ * then run, for example:
+ *
+ * ./gradlew :app:connectedDebugAndroidTest
+ *     -Pandroid.testInstrumentationRunnerArguments.class=com.viranya.fintrack.loadtest.ScreenLoadTest
+ *     -Pandroid.testInstrumentationRunnerArguments.users=3
+ *     -Pandroid.testInstrumentationRunnerArguments.transactions=100000
+ *
+ * See {@link LoadTestConfig} for every argument. The report is written to logcat (tag LoadTest)
+ * and to loadtest/report.csv in the app's external files directory.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class ScreenLoadTest {
+
+    private static final String TAG = "LoadTest";
+
+    private static LoadTestConfig config;
+    private static FirebaseFirestore db;
+
+    @BeforeClass
+    public static void connectToEmulator() {
+        config = LoadTestConfig.fromInstrumentation();
+        db = FirebaseFirestore.getInstance();
+        // Must happen before the first read or write. No disk cache: every read is a server read.
+        db.useEmulator(config.host, config.port);
+        db.setFirestoreSettings(new FirebaseFirestoreSettings.Builder()
+                .setLocalCacheSettings(MemoryCacheSettings.newBuilder().build())
+                .build());
+    }
+
+    @Test
+    public void measureScreens() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        File outputDir = new File(context.getExternalFilesDir(null), "loadtest");
+        assertTrue("Cannot create " + outputDir, outputDir.isDirectory() || outputDir.mkdirs());
+        FirestoreGateway gateway = FirestoreGateway.getInstance();
+        ScreenScenarios scenarios = new ScreenScenarios(gateway, context.getContentResolver(), outputDir);
+        List<String> rows = new ArrayList<>();
+        Log.i(TAG, "Load test: " + config);
+
+        for (int user = 0; user < config.users; user++) {
+            String userId = LoadTestConfig.userId(user);
+            if (config.seed) {
+                long start = System.nanoTime();
+                new LedgerSeeder(gateway, config).seed(user);
+                Log.i(TAG, String.format(Locale.US, "Seeded %s in %d ms", userId, (System.nanoTime() - start) / 1_000_000));
+            }
+            for (Map.Entry<String, ScreenScenarios.Scenario> scenario : scenarios.readScenarios(userId).entrySet()) {
+                rows.add(measure(gateway, userId, scenario.getKey(), scenario.getValue()));
+            }
+            if (!config.keepData) {
+                rows.add(measure(gateway, userId, "account deletion", scenarios.accountDeletion(userId)));
+            }
+        }
+        writeReport(new File(outputDir, "report.csv"), rows);
+    }
+
+    private String measure(FirestoreGateway gateway, String userId, String screen, ScreenScenarios.Scenario scenario)
+            throws Exception {
+        ReadMeter meter = new ReadMeter(gateway.getMetrics());
+        meter.start();
+        long start = System.nanoTime();
+        scenario.run();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        meter.stop();
+        Log.i(TAG, String.format(Locale.US, "%-16s %-26s %8d reads %6d queries %10.1f KiB %8d ms",
+                userId, screen, meter.getReads(), meter.getQueries(), meter.getBytes() / 1024.0, millis));
+        return String.format(Locale.US, "%s,%s,%d,%d,%d,%d,%d,%d,%d,%d",
+                userId, screen, config.transactions, config.accounts, config.budgets, config.years,
+                meter.getReads(), meter.getQueries(), meter.getBytes(), millis);
+    }
+
+    private static void writeReport(File file, List<String> rows) throws IOException {
+        try (Writer writer = new FileWriter(file)) {
+            writer.write("user,screen,transactions,accounts,budgets,years,reads,queries,bytes,millis\n");
+            for (String row : rows) {
+                writer.write(row);
+                writer.write('\n');
+            }
+        }
+        Log.i(TAG, "Report written to " + file);
+    }
+}
@@ -0,0 +1,165 @@
+package com.viranya.fintrack.loadtest;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+
+import androidx.lifecycle.Observer;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.lifecycle.ViewModelStore;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.viranya.fintrack.data.BalanceReplay;
+import com.viranya.fintrack.data.BulkDeleter;
+import com.viranya.fintrack.data.CsvExporter;
+import com.viranya.fintrack.data.FirestoreGateway;
+import com.viranya.fintrack.data.ReportEngine;
+import com.viranya.fintrack.data.Rollups;
+import com.viranya.fintrack.data.SnapshotListenerRegistry;
+import com.viranya.fintrack.data.TransactionRepository;
+import com.viranya.fintrack.ledger.ReportPeriod;
+import com.viranya.fintrack.util.AppExecutors;
+import com.viranya.fintrack.viewmodel.LedgerViewModel;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the code each screen runs to load its data: the same repositories, engines and exporters,
+ * so the measured reads follow the app's query paths as they change. A scenario only stands in
+ * for the screen's own few lines of wiring (e.g. which date the user picked).
+ *
+ * Screens that only read the shared ledger, such as the paged transactions list and the budgets
+ * tab, cost nothing beyond the "shared listeners" scenario and have none of their own.
+ */
+final class ScreenScenarios {
+
+    interface Scenario {
+        void run() throws Exception;
+    }
+
+    private static final long LISTENER_TIMEOUT_SECONDS = 300;
+
+    private final FirestoreGateway gateway;
+    private final ContentResolver contentResolver;
+    private final File outputDir;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    ScreenScenarios(FirestoreGateway gateway, ContentResolver contentResolver, File outputDir) {
+        this.gateway = gateway;
+        this.contentResolver = contentResolver;
+        this.outputDir = outputDir;
+    }
+
+    /**
+     * @return The read-only scenarios for one user. The first ones run before the ledger is in
+     * memory, as on a cold start, so the engines fall back to Firestore.
+     */
+    Map<String, Scenario> readScenarios(String userId) {
+        Map<String, Scenario> scenarios = new LinkedHashMap<>();
+
+        // HomeFragment.showBalanceOn, for the end of a day six months ago
+        scenarios.put("home balance on date", () -> {
+            LocalDate day = LocalDate.now(zone).minusMonths(6).withDayOfMonth(15);
+            Tasks.await(BalanceReplay.balancesAt(gateway, userId, Date.from(day.atTime(LocalTime.MAX).atZone(zone).toInstant())));
+        });
+
+        // YearlyReportActivity.fetchReportData for the current year, by month and by day
+        scenarios.put("yearly report by month", () -> report(userId, ReportPeriod.MONTH));
+        scenarios.put("yearly report by day", () -> report(userId, ReportPeriod.DAY));
+
+        // ProfileFragment.exportTransactionsToCSV, written to a local file
+        scenarios.put("csv export", () -> Tasks.await(new CsvExporter(contentResolver, gateway)
+                .export(gateway.userCollection(userId, "transactions"), Uri.fromFile(new File(outputDir, userId + ".csv")))));
+
+        // HomeActivity: the ledger, budgets and accounts listeners every tab shares
+        scenarios.put("shared listeners", () -> sharedListeners(userId));
+
+        // HomeFragment: this month's rollup
+        scenarios.put("home dashboard rollup", () -> {
+            CountDownLatch delivered = new CountDownLatch(1);
+            ListenerRegistration[] registration = new ListenerRegistration[1];
+            onMainThread(() -> registration[0] = SnapshotListenerRegistry.getInstance().subscribe("HomeFragment.monthlyRollup",
+                    Rollups.collection(gateway, userId).document(Rollups.monthKey(new Date())), AppExecutors.background(),
+                    (doc, error) -> delivered.countDown()));
+            await(delivered, "the monthly rollup");
+            onMainThread(() -> registration[0].remove());
+        });
+        return scenarios;
+    }
+
+    /**
+     * ProfileFragment.deleteUserAccount: every collection through BulkDeleter, then the user
+     * document. Removes the user's data.
+     */
+    Scenario accountDeletion(String userId) {
+        return () -> {
+            Tasks.await(new BulkDeleter(gateway).deleteAll(BulkDeleter.userCollections(gateway, userId), deleted -> {}));
+            Tasks.await(gateway.delete("ProfileFragment.deleteUser", gateway.user(userId)));
+        };
+    }
+
+    private void report(String userId, ReportPeriod period) throws Exception {
+        int year = LocalDate.now(zone).getYear();
+        Tasks.await(ReportEngine.build(gateway, userId, period, LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31)));
+    }
+
+    /**
+     * Starts LedgerViewModel as HomeActivity does and waits until the ledger is confirmed by the
+     * server and the budgets and accounts have arrived. Stops everything again afterwards, so the
+     * next user starts cold.
+     */
+    private void sharedListeners(String userId) throws Exception {
+        ViewModelStore store = new ViewModelStore();
+        TransactionRepository repository = TransactionRepository.getInstance();
+        CountDownLatch ledgerSynced = new CountDownLatch(1);
+        CountDownLatch budgetsLoaded = new CountDownLatch(1);
+        CountDownLatch accountsLoaded = new CountDownLatch(1);
+        TransactionRepository.Observer ledgerObserver = ledger -> {
+            if (repository.isSynced()) ledgerSynced.countDown();
+        };
+        Observer<Object> budgetsObserver = budgets -> budgetsLoaded.countDown();
+        Observer<Object> accountsObserver = accounts -> accountsLoaded.countDown();
+        LedgerViewModel[] viewModel = new LedgerViewModel[1];
+
+        onMainThread(() -> {
+            viewModel[0] = new ViewModelProvider(store, new ViewModelProvider.NewInstanceFactory()).get(LedgerViewModel.class);
+            viewModel[0].start(userId);
+            repository.addObserver(ledgerObserver);
+            viewModel[0].getBudgets().observeForever(budgetsObserver);
+            viewModel[0].getAccounts().observeForever(accountsObserver);
+        });
+        try {
+            await(ledgerSynced, "the ledger");
+            await(budgetsLoaded, "the budgets");
+            await(accountsLoaded, "the accounts");
+        } finally {
+            onMainThread(() -> {
+                viewModel[0].getBudgets().removeObserver(budgetsObserver);
+                viewModel[0].getAccounts().removeObserver(accountsObserver);
+                repository.removeObserver(ledgerObserver);
+                store.clear();
+                repository.stop();
+            });
+        }
+    }
+
+    private static void onMainThread(Runnable runnable) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(runnable);
+    }
+
+    private static void await(CountDownLatch latch, String what) throws Exception {
+        if (!latch.await(LISTENER_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            throw new TimeoutException("Timed out waiting for " + what);
+        }
+    }
+}
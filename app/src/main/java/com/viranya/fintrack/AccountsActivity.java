@@ -16,12 +16,18 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
 import com.google.firebase.firestore.WriteBatch;
 import com.viranya.fintrack.adapter.AccountAdapter;
+import com.viranya.fintrack.data.BalanceReplay;
+import com.viranya.fintrack.data.FirestoreGateway;
+import com.viranya.fintrack.data.Rollups;
+import com.viranya.fintrack.data.SnapshotListenerRegistry;
 import com.viranya.fintrack.fragment.AddAccountBottomSheetFragment;
+import com.viranya.fintrack.ledger.Money;
 import com.viranya.fintrack.model.Account;
+import com.viranya.fintrack.util.Formatters;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -35,7 +41,7 @@ public class AccountsActivity extends AppCompatActivity implements AccountAdapte
 
     private AccountAdapter adapter;
     private List<Account> accountList;
-    private FirebaseFirestore db;
+    private FirestoreGateway gateway;
     private FirebaseAuth mAuth;
 
     @Override
@@ -43,7 +49,7 @@ public class AccountsActivity extends AppCompatActivity implements AccountAdapte
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_accounts);
 
-        db = FirebaseFirestore.getInstance();
+        gateway = FirestoreGateway.getInstance();
         mAuth = FirebaseAuth.getInstance();
 
         recyclerView = findViewById(R.id.rv_accounts);
@@ -69,8 +75,8 @@ public class AccountsActivity extends AppCompatActivity implements AccountAdapte
         if (currentUser == null) return;
         String userId = currentUser.getUid();
 
-        db.collection("users").document(userId).collection("accounts")
-                .addSnapshotListener((value, error) -> {
+        SnapshotListenerRegistry.getInstance().observe(this, "AccountsActivity.accounts",
+                gateway.userCollection(userId, "accounts"), (value, error) -> {
                     if (error != null) {
                         Toast.makeText(this, "Error fetching accounts.", Toast.LENGTH_SHORT).show();
                         return;
@@ -103,12 +109,14 @@ public class AccountsActivity extends AppCompatActivity implements AccountAdapte
     @Override
     public void onAccountLongClick(Account account) {
         // Show a dialog with "Edit" and "Delete" options
-        final CharSequence[] options = {"Edit", "Delete", "Cancel"};
+        final CharSequence[] options = {"Edit", "Recalculate Balance", "Delete", "Cancel"};
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
         builder.setTitle("Manage Account: " + account.getName());
         builder.setItems(options, (dialog, item) -> {
             if (options[item].equals("Edit")) {
                 showEditAccountDialog(account);
+            } else if (options[item].equals("Recalculate Balance")) {
+                recalculateBalance(account);
             } else if (options[item].equals("Delete")) {
                 showDeleteAccountDialog(account);
             } else if (options[item].equals("Cancel")) {
@@ -131,7 +139,7 @@ public class AccountsActivity extends AppCompatActivity implements AccountAdapte
         final EditText etAccountBalance = dialogView.findViewById(R.id.et_edit_account_balance);
 
         etAccountName.setText(account.getName());
-        etAccountBalance.setText(String.valueOf(account.getBalance()));
+        etAccountBalance.setText(Money.toPlainString(account.getBalanceMinor()));
 
         builder.setTitle("Edit Account")
                 .setPositiveButton("Save", (dialog, id) -> {
@@ -143,7 +151,7 @@ public class AccountsActivity extends AppCompatActivity implements AccountAdapte
                     }
                     // For simplicity, this example doesn't handle re-assigning transactions.
                     // We will just update the name and balance.
-                    updateAccount(account, newName, Double.parseDouble(newBalanceStr));
+                    updateAccount(account, newName, Money.parse(newBalanceStr));
                 })
                 .setNegativeButton("Cancel", (dialog, id) -> dialog.cancel());
         builder.create().show();
@@ -161,10 +169,50 @@ public class AccountsActivity extends AppCompatActivity implements AccountAdapte
                 .show();
     }
 
+    /**
+     * Replays the account's transactions from the latest balance checkpoint and offers to replace
+     * the stored balance if it differs, e.g. after an interrupted update or a manual edit.
+     */
+    private void recalculateBalance(Account account) {
+        FirebaseUser currentUser = mAuth.getCurrentUser();
+        if (currentUser == null) return;
+        String userId = currentUser.getUid();
+        if (!Rollups.isBackfilled(this, userId)) {
+            Toast.makeText(this, "Balance history is still being prepared. Try again later.", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        BalanceReplay.currentBalances(gateway, userId).addOnSuccessListener(this, balances -> {
+            Long replayed = balances.get(account.getName());
+            long expected = replayed == null ? 0 : replayed;
+            if (expected == account.getBalanceMinor()) {
+                Toast.makeText(this, "The balance matches your transactions.", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            new AlertDialog.Builder(this)
+                    .setTitle("Balance Mismatch")
+                    .setMessage("The stored balance is " + Formatters.currency(account.getBalanceMinor())
+                            + ", but the transactions of '" + account.getName() + "' add up to "
+                            + Formatters.currency(expected) + ". Replace the stored balance?")
+                    .setPositiveButton("Replace", (dialog, which) -> replaceBalance(userId, account, expected))
+                    .setNegativeButton("Cancel", null)
+                    .show();
+        }).addOnFailureListener(this, e -> Toast.makeText(this, "Failed to recalculate the balance.", Toast.LENGTH_SHORT).show());
+    }
+
+    private void replaceBalance(String userId, Account account, long balanceMinor) {
+        DocumentReference ref = gateway.userCollection(userId, "accounts").document(account.getDocumentId());
+        gateway.update("AccountsActivity.replaceBalance", ref,
+                        "balance", Money.toMajor(balanceMinor), Money.minorField("balance"), balanceMinor,
+                        Money.MIGRATED_FIELD, true)
+                .addOnSuccessListener(aVoid -> Toast.makeText(this, "Balance updated.", Toast.LENGTH_SHORT).show())
+                .addOnFailureListener(e -> Toast.makeText(this, "Failed to update the balance.", Toast.LENGTH_SHORT).show());
+    }
+
     /**
      * Updates an account's details in Firestore.
      */
-    private void updateAccount(Account oldAccount, String newName, double newBalance) {
+    private void updateAccount(Account oldAccount, String newName, long newBalance) {
         FirebaseUser currentUser = mAuth.getCurrentUser();
         if (currentUser == null) return;
 
@@ -173,11 +221,12 @@ public class AccountsActivity extends AppCompatActivity implements AccountAdapte
 
         // Firestore does not allow renaming documents easily. The simplest way is to delete the old
         // document and create a new one. This flow assumes transactions do not need to be migrated.
-        WriteBatch batch = db.batch();
-        batch.delete(db.collection("users").document(currentUser.getUid()).collection("accounts").document(oldAccount.getName()));
-        batch.set(db.collection("users").document(currentUser.getUid()).collection("accounts").document(newName), updatedAccount);
+        WriteBatch batch = gateway.db().batch();
+        batch.delete(gateway.userCollection(currentUser.getUid(), "accounts").document(oldAccount.getName()));
+        batch.set(gateway.userCollection(currentUser.getUid(), "accounts").document(newName), updatedAccount);
 
-        batch.commit().addOnSuccessListener(aVoid -> Toast.makeText(this, "Account updated.", Toast.LENGTH_SHORT).show());
+        gateway.commit("AccountsActivity.updateAccount", batch)
+                .addOnSuccessListener(aVoid -> Toast.makeText(this, "Account updated.", Toast.LENGTH_SHORT).show());
     }
 
     /**
@@ -187,8 +236,8 @@ public class AccountsActivity extends AppCompatActivity implements AccountAdapte
         FirebaseUser currentUser = mAuth.getCurrentUser();
         if (currentUser == null) return;
 
-        db.collection("users").document(currentUser.getUid()).collection("accounts").document(account.getDocumentId())
-                .delete()
+        gateway.delete("AccountsActivity.deleteAccount",
+                        gateway.userCollection(currentUser.getUid(), "accounts").document(account.getDocumentId()))
                 .addOnSuccessListener(aVoid -> Toast.makeText(this, "Account '" + account.getName() + "' deleted.", Toast.LENGTH_SHORT).show())
                 .addOnFailureListener(e -> Toast.makeText(this, "Failed to delete account.", Toast.LENGTH_SHORT).show());
     }
@@ -14,28 +14,32 @@ import android.widget.Toast;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.android.material.button.MaterialButtonToggleGroup;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FieldValue;
-import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
 import com.google.firebase.firestore.WriteBatch;
+import com.viranya.fintrack.data.EntryChoicesRepository;
+import com.viranya.fintrack.data.FirestoreGateway;
+import com.viranya.fintrack.data.Rollups;
+import com.viranya.fintrack.ledger.Money;
 import com.viranya.fintrack.model.Account;
 import com.viranya.fintrack.model.Budget;
 import com.viranya.fintrack.model.Transaction;
+import com.viranya.fintrack.util.Formatters;
 
-import java.text.NumberFormat;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Calendar;
-import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Locale;
+import java.util.Set;
 
 /**
  * This Activity is the core of data entry for the app. It handles a wide range of responsibilities:
@@ -55,25 +59,24 @@ public class AddTransactionActivity extends AppCompatActivity {
     private TextView tvTitle;
 
     // --- Firebase & Data ---
-    private FirebaseFirestore db;
+    private FirestoreGateway gateway;
     private FirebaseAuth mAuth;
     private String transactionType = "Expense"; // Default transaction type
     private final Calendar selectedDate = Calendar.getInstance();
 
     // --- Dynamic Data for Dropdowns ---
-    private final List<String> accountNames = new ArrayList<>();
+    private EntryChoicesRepository entryChoices;
+    private final EntryChoicesRepository.Observer choicesObserver = this::bindChoices;
+    private final Set<String> budgetCategories = new HashSet<>();
+    private Task<QuerySnapshot> budgetsLoaded = Tasks.forResult(null);
     private ArrayAdapter<String> accountAdapter;
     private ArrayAdapter<String> categoryAdapter;
-    private final String[] defaultExpenseCategories = new String[]{"Food", "Transport", "Housing", "Utilities", "Entertainment", "Shopping", "Health", "Savings", "Internal Transfer"};
-    private final String[] defaultIncomeCategories = new String[]{"Salary", "Freelance", "Gift", "Initial Balance", "Other"};
-    private List<String> customIncomeCategories = new ArrayList<>();
-    private List<String> customExpenseCategories = new ArrayList<>();
 
     // --- Edit Mode Variables ---
     private boolean isEditMode = false;
     private Transaction existingTransaction;
     // Store original values to correctly reverse calculations on edit
-    private double originalAmount = 0;
+    private long originalAmountMinor = 0;
     private String originalCategory = "";
     private String originalAccount = "";
     private String originalType = "";
@@ -86,14 +89,17 @@ public class AddTransactionActivity extends AppCompatActivity {
         initializeServices();
         bindViews();
 
-        // 1. Setup adapters with empty lists first. This prevents race conditions where the UI tries to display before data is ready.
-        accountAdapter = new ArrayAdapter<>(this, android.R.layout.simple_dropdown_item_1line, accountNames);
+        // 1. Setup the adapters once. They are refilled, never replaced, whenever the choices change.
+        accountAdapter = new ArrayAdapter<>(this, android.R.layout.simple_dropdown_item_1line, new ArrayList<>());
         actAccount.setAdapter(accountAdapter);
-        updateCategoryAdapter(); // This sets up the category adapter with default values.
+        categoryAdapter = new ArrayAdapter<>(this, android.R.layout.simple_dropdown_item_1line, new ArrayList<>());
+        actCategory.setAdapter(categoryAdapter);
 
-        // 2. Asynchronously fetch data. The adapters will be notified and update the UI when data arrives.
-        fetchAccounts();
-        fetchCustomCategories();
+        // 2. Bind the accounts and categories already held in memory, and fetch the budgets.
+        FirebaseUser currentUser = mAuth.getCurrentUser();
+        if (currentUser != null) entryChoices.start(currentUser.getUid()); // No-op when already started at sign-in
+        entryChoices.addObserver(choicesObserver);
+        fetchBudgetCategories();
 
         // 3. Check if we are in "Edit Mode"
         if (getIntent().hasExtra("EDIT_TRANSACTION")) {
@@ -108,14 +114,21 @@ public class AddTransactionActivity extends AppCompatActivity {
         setupListeners();
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        entryChoices.removeObserver(choicesObserver);
+    }
+
     // --- Initialization & Setup Methods ---
 
     /**
      * Initializes all necessary services like Firebase.
      */
     private void initializeServices() {
-        db = FirebaseFirestore.getInstance();
+        gateway = FirestoreGateway.getInstance();
         mAuth = FirebaseAuth.getInstance();
+        entryChoices = EntryChoicesRepository.getInstance(this);
     }
 
     /**
@@ -134,56 +147,44 @@ public class AddTransactionActivity extends AppCompatActivity {
     }
 
     /**
-     * Fetches the user-created account names from Firestore and updates the dropdown.
+     * Fetches which categories have a budget. The save batch only updates budgets that exist,
+     * because a single update on a missing document would fail the whole batch.
      */
-    private void fetchAccounts() {
+    private void fetchBudgetCategories() {
         FirebaseUser currentUser = mAuth.getCurrentUser();
         if (currentUser == null) return;
-        db.collection("users").document(currentUser.getUid()).collection("accounts").get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    accountNames.clear();
-                    for (QueryDocumentSnapshot doc : queryDocumentSnapshots) {
-                        accountNames.add(doc.getId()); // The document ID is the account name
-                    }
-                    accountAdapter.notifyDataSetChanged(); // Refresh the dropdown with the new data
-                });
+        budgetsLoaded = gateway.getCacheFirst("AddTransactionActivity.budgets",
+                        gateway.userCollection(currentUser.getUid(), "budgets"), this::setBudgetCategories)
+                .addOnSuccessListener(this::setBudgetCategories);
+    }
+
+    private void setBudgetCategories(QuerySnapshot queryDocumentSnapshots) {
+        budgetCategories.clear();
+        for (QueryDocumentSnapshot doc : queryDocumentSnapshots) {
+            budgetCategories.add(doc.getId()); // The document ID is the category
+        }
     }
 
     /**
-     * Fetches the user's custom income and expense categories from Firestore.
+     * Refills both dropdowns from the in-memory choices, most recently used first.
      */
-    private void fetchCustomCategories() {
-        FirebaseUser currentUser = mAuth.getCurrentUser();
-        if (currentUser == null) return;
-        db.collection("users").document(currentUser.getUid()).collection("categories").document("user_defined")
-                .addSnapshotListener((doc, error) -> {
-                    if (error != null) return;
-                    customIncomeCategories.clear();
-                    customExpenseCategories.clear();
-                    if (doc != null && doc.exists()) {
-                        if (doc.contains("income")) customIncomeCategories = (List<String>) doc.get("income");
-                        if (doc.contains("expense")) customExpenseCategories = (List<String>) doc.get("expense");
-                    }
-                    updateCategoryAdapter(); // Refresh the category dropdown
-                });
+    private void bindChoices() {
+        replaceItems(accountAdapter, entryChoices.getAccountNames());
+        bindCategories();
     }
 
     /**
-     * Rebuilds the category dropdown list by combining default and custom categories
-     * based on the currently selected transaction type (Income/Expense).
+     * Shows the default and custom categories of the selected transaction type (Income/Expense).
      */
-    private void updateCategoryAdapter() {
-        List<String> combinedList = new ArrayList<>();
-        if ("Income".equals(transactionType)) {
-            combinedList.addAll(Arrays.asList(defaultIncomeCategories));
-            combinedList.addAll(customIncomeCategories);
-        } else {
-            combinedList.addAll(Arrays.asList(defaultExpenseCategories));
-            combinedList.addAll(customExpenseCategories);
-        }
-        Collections.sort(combinedList); // Sort the final list alphabetically
-        categoryAdapter = new ArrayAdapter<>(this, android.R.layout.simple_dropdown_item_1line, combinedList);
-        actCategory.setAdapter(categoryAdapter);
+    private void bindCategories() {
+        replaceItems(categoryAdapter, entryChoices.getCategories(transactionType));
+    }
+
+    private static void replaceItems(ArrayAdapter<String> adapter, List<String> items) {
+        adapter.setNotifyOnChange(false);
+        adapter.clear();
+        adapter.addAll(items);
+        adapter.notifyDataSetChanged(); // Also re-enables notifyOnChange
     }
 
     /**
@@ -192,11 +193,11 @@ public class AddTransactionActivity extends AppCompatActivity {
     private void populateFieldsForEdit() {
         tvTitle.setText("Edit Transaction");
         etDescription.setText(existingTransaction.getTitle());
-        etAmount.setText(String.valueOf(existingTransaction.getAmount()));
+        etAmount.setText(Money.toPlainString(existingTransaction.getAmountMinor()));
         actAccount.setText(existingTransaction.getAccountName(), false);
 
         transactionType = existingTransaction.getType();
-        updateCategoryAdapter();
+        bindCategories();
         actCategory.setText(existingTransaction.getCategory(), false);
 
         if ("Income".equals(transactionType)) {
@@ -208,7 +209,7 @@ public class AddTransactionActivity extends AppCompatActivity {
         selectedDate.setTime(existingTransaction.getDate());
         updateDateInView();
 
-        originalAmount = existingTransaction.getAmount();
+        originalAmountMinor = existingTransaction.getAmountMinor();
         originalCategory = existingTransaction.getCategory();
         originalAccount = existingTransaction.getAccountName();
         originalType = existingTransaction.getType();
@@ -222,7 +223,7 @@ public class AddTransactionActivity extends AppCompatActivity {
             if (isChecked) {
                 transactionType = (checkedId == R.id.btn_income) ? "Income" : "Expense";
                 actCategory.setText("", false);
-                updateCategoryAdapter();
+                bindCategories();
             }
         });
 
@@ -245,14 +246,14 @@ public class AddTransactionActivity extends AppCompatActivity {
         Date date = selectedDate.getTime();
         FirebaseUser currentUser = mAuth.getCurrentUser();
 
-        if (currentUser == null || TextUtils.isEmpty(title) || TextUtils.isEmpty(amountStr) ||
-                Double.parseDouble(amountStr) <= 0 || TextUtils.isEmpty(accountName) || TextUtils.isEmpty(category)) {
+        long amountMinor = parseAmount(amountStr);
+        if (currentUser == null || TextUtils.isEmpty(title) || amountMinor <= 0
+                || TextUtils.isEmpty(accountName) || TextUtils.isEmpty(category)) {
             Toast.makeText(this, "Please fill all required fields correctly.", Toast.LENGTH_SHORT).show();
             return;
         }
 
-        double amount = Double.parseDouble(amountStr);
-        Transaction transaction = new Transaction(title, category, amount, transactionType, accountName, date);
+        Transaction transaction = new Transaction(title, category, amountMinor, transactionType, accountName, date);
 
         if ("Expense".equals(transactionType)) {
             // For expenses, we must first check if the user has enough money in the selected account.
@@ -272,12 +273,13 @@ public class AddTransactionActivity extends AppCompatActivity {
         FirebaseUser currentUser = mAuth.getCurrentUser();
         if (currentUser == null) return;
 
-        db.collection("users").document(currentUser.getUid()).collection("accounts").document(transaction.getAccountName())
-                .get()
+        // The cached balance already includes this device's writes that are still queued
+        DocumentReference accountRef = gateway.userCollection(currentUser.getUid(), "accounts").document(transaction.getAccountName());
+        gateway.getCacheFirst("AddTransactionActivity.checkFunds", accountRef, null)
                 .addOnSuccessListener(documentSnapshot -> {
                     if (documentSnapshot.exists()) {
                         Account account = documentSnapshot.toObject(Account.class);
-                        if (account.getBalance() >= transaction.getAmount()) {
+                        if (account.getBalanceMinor() >= transaction.getAmountMinor()) {
                             // Sufficient funds: Now check for budget overages (for new transactions only).
                             if (!isEditMode) {
                                 checkBudgetOverage(transaction);
@@ -300,30 +302,59 @@ public class AddTransactionActivity extends AppCompatActivity {
 
     /**
      * This method contains the final save/update logic, called only after all checks have passed.
+     * It waits for the account and budget lists so the batch only touches documents that exist.
+     * If either list failed to load, a balance or spent amount would silently go unchanged,
+     * so the transaction is not saved.
      * @param transaction The final transaction object to be saved or updated.
      */
     private void proceedWithSave(Transaction transaction) {
+        Task<Void> accountsLoaded = entryChoices.whenAccountsLoaded();
+        Task<QuerySnapshot> budgets = budgetsLoaded;
+        Tasks.whenAllComplete(accountsLoaded, budgets)
+                .addOnCompleteListener(this, task -> {
+                    if (accountsLoaded.isSuccessful() && budgets.isSuccessful()) {
+                        commitSave(transaction);
+                    } else {
+                        Toast.makeText(this, "Could not load your accounts and budgets. Please try again.", Toast.LENGTH_SHORT).show();
+                    }
+                });
+    }
+
+    /**
+     * Writes the transaction, its rollup, the account balance and the budget's spent amount
+     * in one WriteBatch: a single round trip that either fully succeeds or fully fails.
+     */
+    private void commitSave(Transaction transaction) {
         String userId = mAuth.getCurrentUser().getUid();
+        WriteBatch batch = gateway.db().batch();
 
         if (isEditMode) {
-            db.collection("users").document(userId).collection("transactions").document(existingTransaction.getDocumentId())
-                    .set(transaction)
+            DocumentReference transactionRef = gateway.userCollection(userId, "transactions").document(existingTransaction.getDocumentId());
+            batch.set(transactionRef, transaction);
+            // Move the amount out of the original month's rollup and into the new one
+            Rollups.apply(batch, gateway, userId, existingTransaction, -1);
+            Rollups.apply(batch, gateway, userId, transaction, 1);
+            applyAccountBalanceOnEdit(batch, userId, transaction);
+            applyBudgetOnEdit(batch, userId, transaction.getCategory(), transaction.getAmountMinor());
+            gateway.commit("AddTransactionActivity.update", batch)
                     .addOnSuccessListener(aVoid -> {
+                        entryChoices.recordUse(transaction.getType(), transaction.getAccountName(), transaction.getCategory());
                         Toast.makeText(this, "Transaction updated successfully!", Toast.LENGTH_SHORT).show();
-                        updateAccountBalanceOnEdit(userId, transaction.getAmount());
-                        updateBudgetOnEdit(userId, transaction.getCategory(), transaction.getAmount());
                         finish();
                     })
                     .addOnFailureListener(e -> Toast.makeText(this, "Failed to update transaction.", Toast.LENGTH_SHORT).show());
         } else {
-            db.collection("users").document(userId).collection("transactions")
-                    .add(transaction)
-                    .addOnSuccessListener(documentReference -> {
+            DocumentReference transactionRef = gateway.userCollection(userId, "transactions").document();
+            batch.set(transactionRef, transaction);
+            Rollups.apply(batch, gateway, userId, transaction, 1);
+            applyAccountBalance(batch, userId, transaction.getAccountName(), transaction.getAmountMinor(), transaction.getType());
+            if ("Expense".equals(transaction.getType())) {
+                applyBudgetSpent(batch, userId, transaction.getCategory(), transaction.getAmountMinor());
+            }
+            gateway.commit("AddTransactionActivity.save", batch)
+                    .addOnSuccessListener(aVoid -> {
+                        entryChoices.recordUse(transaction.getType(), transaction.getAccountName(), transaction.getCategory());
                         Toast.makeText(this, "Transaction saved successfully!", Toast.LENGTH_SHORT).show();
-                        updateAccountBalance(userId, transaction.getAccountName(), transaction.getAmount(), transaction.getType());
-                        if ("Expense".equals(transaction.getType())) {
-                            updateBudgetOnAdd(userId, transaction.getCategory(), transaction.getAmount());
-                        }
                         finish();
                     })
                     .addOnFailureListener(e -> Toast.makeText(this, "Failed to save transaction.", Toast.LENGTH_SHORT).show());
@@ -339,12 +370,12 @@ public class AddTransactionActivity extends AppCompatActivity {
     private void checkBudgetOverage(Transaction transaction) {
         String userId = mAuth.getCurrentUser().getUid();
 
-        db.collection("users").document(userId).collection("budgets").document(transaction.getCategory())
-                .get()
+        DocumentReference budgetRef = gateway.userCollection(userId, "budgets").document(transaction.getCategory());
+        gateway.getCacheFirst("AddTransactionActivity.checkBudget", budgetRef, null)
                 .addOnSuccessListener(documentSnapshot -> {
                     if (documentSnapshot.exists()) {
                         Budget budget = documentSnapshot.toObject(Budget.class);
-                        double overageAmount = (budget.getSpentAmount() + transaction.getAmount()) - budget.getLimitAmount();
+                        long overageAmount = (budget.getSpentAmountMinor() + transaction.getAmountMinor()) - budget.getLimitAmountMinor();
 
                         if (overageAmount > 0) {
                             showBorrowDialog(transaction, overageAmount);
@@ -360,16 +391,15 @@ public class AddTransactionActivity extends AppCompatActivity {
     /**
      * Shows a dialog asking the user to borrow funds from another budget.
      */
-    private void showBorrowDialog(Transaction transaction, double overageAmount) {
+    private void showBorrowDialog(Transaction transaction, long overageAmount) {
         String userId = mAuth.getCurrentUser().getUid();
 
-        db.collection("users").document(userId).collection("budgets")
-                .get()
+        gateway.get("AddTransactionActivity.borrowCandidates", gateway.userCollection(userId, "budgets"))
                 .addOnSuccessListener(queryDocumentSnapshots -> {
                     List<String> availableBudgets = new ArrayList<>();
                     for (QueryDocumentSnapshot doc : queryDocumentSnapshots) {
                         Budget budget = doc.toObject(Budget.class);
-                        if (!doc.getId().equals(transaction.getCategory()) && (budget.getLimitAmount() - budget.getSpentAmount()) >= overageAmount) {
+                        if (!doc.getId().equals(transaction.getCategory()) && (budget.getLimitAmountMinor() - budget.getSpentAmountMinor()) >= overageAmount) {
                             availableBudgets.add(doc.getId());
                         }
                     }
@@ -390,8 +420,7 @@ public class AddTransactionActivity extends AppCompatActivity {
                     TextView message = dialogView.findViewById(R.id.tv_borrow_message);
                     Spinner spinner = dialogView.findViewById(R.id.spinner_borrow_from);
 
-                    NumberFormat format = NumberFormat.getCurrencyInstance(new Locale("si", "LK"));
-                    message.setText(String.format("Your '%s' budget will be exceeded by %s. Borrow from another budget?", transaction.getCategory(), format.format(overageAmount)));
+                    message.setText(String.format("Your '%s' budget will be exceeded by %s. Borrow from another budget?", transaction.getCategory(), Formatters.currency(overageAmount)));
 
                     ArrayAdapter<String> spinnerAdapter = new ArrayAdapter<>(this, android.R.layout.simple_spinner_dropdown_item, availableBudgets);
                     spinner.setAdapter(spinnerAdapter);
@@ -410,30 +439,36 @@ public class AddTransactionActivity extends AppCompatActivity {
     /**
      * Performs all database operations for the budget transfer using a secure WriteBatch.
      */
-    private void performBudgetBorrow(Transaction originalTransaction, String sourceBudget, double borrowAmount) {
+    private void performBudgetBorrow(Transaction originalTransaction, String sourceBudget, long borrowAmount) {
         String userId = mAuth.getCurrentUser().getUid();
 
-        WriteBatch batch = db.batch();
+        WriteBatch batch = gateway.db().batch();
 
-        DocumentReference sourceRef = db.collection("users").document(userId).collection("budgets").document(sourceBudget);
-        batch.update(sourceRef, "limitAmount", FieldValue.increment(-borrowAmount));
+        DocumentReference sourceRef = gateway.userCollection(userId, "budgets").document(sourceBudget);
+        batch.update(sourceRef, "limitAmount", FieldValue.increment(Money.toMajor(-borrowAmount)),
+                Money.minorField("limitAmount"), FieldValue.increment(-borrowAmount));
 
-        DocumentReference destRef = db.collection("users").document(userId).collection("budgets").document(originalTransaction.getCategory());
-        batch.update(destRef, "limitAmount", FieldValue.increment(borrowAmount));
+        DocumentReference destRef = gateway.userCollection(userId, "budgets").document(originalTransaction.getCategory());
+        batch.update(destRef, "limitAmount", FieldValue.increment(Money.toMajor(borrowAmount)),
+                Money.minorField("limitAmount"), FieldValue.increment(borrowAmount));
 
-        DocumentReference newTransactionRef = db.collection("users").document(userId).collection("transactions").document();
+        DocumentReference newTransactionRef = gateway.userCollection(userId, "transactions").document();
         batch.set(newTransactionRef, originalTransaction);
+        Rollups.apply(batch, gateway, userId, originalTransaction, 1);
 
         String transferTitle = String.format("Budget transfer from '%s'", sourceBudget);
         Transaction transferTransaction = new Transaction(transferTitle, "Internal Transfer", borrowAmount, "Expense", originalTransaction.getAccountName(), new Date());
-        DocumentReference transferTransactionRef = db.collection("users").document(userId).collection("transactions").document();
+        DocumentReference transferTransactionRef = gateway.userCollection(userId, "transactions").document();
         batch.set(transferTransactionRef, transferTransaction);
+        Rollups.apply(batch, gateway, userId, transferTransaction, 1);
 
-        batch.commit().addOnSuccessListener(aVoid -> {
+        // Budget and balance changes are part of the same batch
+        applyBudgetSpent(batch, userId, originalTransaction.getCategory(), originalTransaction.getAmountMinor());
+        applyBudgetSpent(batch, userId, "Internal Transfer", borrowAmount);
+        applyAccountBalance(batch, userId, originalTransaction.getAccountName(), originalTransaction.getAmountMinor() + borrowAmount, "Expense");
+
+        gateway.commit("AddTransactionActivity.borrow", batch).addOnSuccessListener(aVoid -> {
             Toast.makeText(this, "Transaction saved and budget adjusted.", Toast.LENGTH_LONG).show();
-            updateBudgetOnAdd(userId, originalTransaction.getCategory(), originalTransaction.getAmount());
-            updateBudgetOnAdd(userId, "Internal Transfer", borrowAmount);
-            updateAccountBalance(userId, originalTransaction.getAccountName(), originalTransaction.getAmount() + borrowAmount, "Expense");
             finish();
         }).addOnFailureListener(e -> Toast.makeText(this, "An error occurred during the transfer.", Toast.LENGTH_SHORT).show());
     }
@@ -441,68 +476,89 @@ public class AddTransactionActivity extends AppCompatActivity {
     // --- Helper Methods ---
 
     /**
-     * Updates an account's balance when a NEW transaction is added.
+     * Adds an account's balance change for a NEW transaction to the batch.
      */
-    private void updateAccountBalance(String userId, String accountName, double amount, String type) {
-        double amountToUpdate = "Income".equals(type) ? amount : -amount;
-        db.collection("users").document(userId).collection("accounts").document(accountName)
-                .update("balance", FieldValue.increment(amountToUpdate));
+    private void applyAccountBalance(WriteBatch batch, String userId, String accountName, long amount, String type) {
+        long amountToUpdate = "Income".equals(type) ? amount : -amount;
+        incrementIfExists(batch, entryChoices.hasAccount(accountName),
+                gateway.userCollection(userId, "accounts").document(accountName), "balance", amountToUpdate);
     }
 
     /**
      * Handles the complex logic of updating account balances when a transaction is EDITED.
      */
-    private void updateAccountBalanceOnEdit(String userId, double newAmount) {
-        double newAmountToUpdate = "Income".equals(transactionType) ? newAmount : -newAmount;
-        double oldAmountToRevert = "Income".equals(originalType) ? -originalAmount : originalAmount;
-        String newAccount = actAccount.getText().toString();
+    private void applyAccountBalanceOnEdit(WriteBatch batch, String userId, Transaction transaction) {
+        long newAmountToUpdate = "Income".equals(transactionType) ? transaction.getAmountMinor() : -transaction.getAmountMinor();
+        long oldAmountToRevert = "Income".equals(originalType) ? -originalAmountMinor : originalAmountMinor;
+        String newAccount = transaction.getAccountName();
 
         if (originalAccount.equals(newAccount)) {
-            double totalChange = oldAmountToRevert + newAmountToUpdate;
-            db.collection("users").document(userId).collection("accounts").document(originalAccount)
-                    .update("balance", FieldValue.increment(totalChange));
+            long totalChange = oldAmountToRevert + newAmountToUpdate;
+            incrementIfExists(batch, entryChoices.hasAccount(originalAccount),
+                    gateway.userCollection(userId, "accounts").document(originalAccount), "balance", totalChange);
         } else {
-            db.collection("users").document(userId).collection("accounts").document(originalAccount)
-                    .update("balance", FieldValue.increment(oldAmountToRevert));
-            db.collection("users").document(userId).collection("accounts").document(newAccount)
-                    .update("balance", FieldValue.increment(newAmountToUpdate));
+            incrementIfExists(batch, entryChoices.hasAccount(originalAccount),
+                    gateway.userCollection(userId, "accounts").document(originalAccount), "balance", oldAmountToRevert);
+            incrementIfExists(batch, entryChoices.hasAccount(newAccount),
+                    gateway.userCollection(userId, "accounts").document(newAccount), "balance", newAmountToUpdate);
         }
     }
 
     /**
-     * Updates a budget's spent amount when a NEW expense is added.
+     * Adds a change to a budget's spent amount to the batch.
      */
-    private void updateBudgetOnAdd(String userId, String category, double amount) {
-        if ("Expense".equals(transactionType)) {
-            db.collection("users").document(userId).collection("budgets").document(category)
-                    .update("spentAmount", FieldValue.increment(amount));
-        }
+    private void applyBudgetSpent(WriteBatch batch, String userId, String category, long amount) {
+        incrementIfExists(batch, budgetCategories.contains(category),
+                gateway.userCollection(userId, "budgets").document(category), "spentAmount", amount);
     }
 
     /**
      * Handles the complex logic of updating budgets when an expense is EDITED.
      */
-    private void updateBudgetOnEdit(String userId, String newCategory, double newAmount) {
+    private void applyBudgetOnEdit(WriteBatch batch, String userId, String newCategory, long newAmount) {
         if (!"Expense".equals(transactionType) && !"Expense".equals(originalType)) return;
 
         if (originalCategory.equals(newCategory)) {
-            if ("Expense".equals(originalType)) {
-                double difference = newAmount - originalAmount;
-                db.collection("users").document(userId).collection("budgets").document(newCategory)
-                        .update("spentAmount", FieldValue.increment(difference));
+            if ("Expense".equals(originalType) && "Expense".equals(transactionType)) {
+                applyBudgetSpent(batch, userId, newCategory, newAmount - originalAmountMinor);
+            } else if ("Expense".equals(originalType)) {
+                applyBudgetSpent(batch, userId, newCategory, -originalAmountMinor);
+            } else {
+                applyBudgetSpent(batch, userId, newCategory, newAmount);
             }
         } else {
             if (!originalCategory.isEmpty() && "Expense".equals(originalType)) {
-                db.collection("users").document(userId).collection("budgets").document(originalCategory)
-                        .update("spentAmount", FieldValue.increment(-originalAmount));
+                applyBudgetSpent(batch, userId, originalCategory, -originalAmountMinor);
             }
             if ("Expense".equals(transactionType)) {
-                db.collection("users").document(userId).collection("budgets").document(newCategory)
-                        .update("spentAmount", FieldValue.increment(newAmount));
+                applyBudgetSpent(batch, userId, newCategory, newAmount);
             }
         }
     }
 
+    /**
+     * Adds an increment to the batch only if the target document is known to exist;
+     * an update on a missing document would make the whole batch fail. The major-unit field
+     * is incremented too, for older app versions.
+     */
+    private void incrementIfExists(WriteBatch batch, boolean exists, DocumentReference ref, String field, long amount) {
+        if (exists && amount != 0) {
+            batch.update(ref, field, FieldValue.increment(Money.toMajor(amount)),
+                    Money.minorField(field), FieldValue.increment(amount));
+        }
+    }
+
+    /**
+     * @return The amount in minor units, or 0 if the text is not a valid amount.
+     */
+    private static long parseAmount(String text) {
+        try {
+            return TextUtils.isEmpty(text) ? 0 : Money.parse(text);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
     /**
      * Shows the DatePickerDialog to allow the user to select a date.
      */
@@ -524,7 +580,6 @@ public class AddTransactionActivity extends AppCompatActivity {
      * Updates the date EditText with the currently selected date in DD/MM/YYYY format.
      */
     private void updateDateInView() {
-        SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy", Locale.getDefault());
-        etDate.setText(sdf.format(selectedDate.getTime()));
+        etDate.setText(Formatters.displayDate(selectedDate.getTime()));
     }
 }
\ No newline at end of file
@@ -16,10 +16,12 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FieldValue;
-import com.google.firebase.firestore.FirebaseFirestore;
 import com.viranya.fintrack.adapter.CategoryAdapter;
+import com.viranya.fintrack.data.FirestoreGateway;
+import com.viranya.fintrack.data.SnapshotListenerRegistry;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -30,7 +32,7 @@ public class CategoriesActivity extends AppCompatActivity implements CategoryAda
     private TextView emptyTextView;
     private CategoryAdapter adapter;
     private List<String> customCategoryList;
-    private FirebaseFirestore db;
+    private FirestoreGateway gateway;
     private FirebaseAuth mAuth;
 
     // Store both types of categories
@@ -42,7 +44,7 @@ public class CategoriesActivity extends AppCompatActivity implements CategoryAda
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_categories);
 
-        db = FirebaseFirestore.getInstance();
+        gateway = FirestoreGateway.getInstance();
         mAuth = FirebaseAuth.getInstance();
 
         recyclerView = findViewById(R.id.rv_categories);
@@ -64,8 +66,8 @@ public class CategoriesActivity extends AppCompatActivity implements CategoryAda
         FirebaseUser currentUser = mAuth.getCurrentUser();
         if (currentUser == null) return;
 
-        db.collection("users").document(currentUser.getUid()).collection("categories").document("user_defined")
-                .addSnapshotListener((doc, error) -> {
+        SnapshotListenerRegistry.getInstance().observe(this, "CategoriesActivity.categories",
+                userCategories(currentUser.getUid()), (doc, error) -> {
                     if (error != null) {
                         Toast.makeText(this, "Error fetching categories.", Toast.LENGTH_SHORT).show();
                         return;
@@ -163,19 +165,19 @@ public class CategoriesActivity extends AppCompatActivity implements CategoryAda
         // If renaming, we must first remove the old category name from its array
         if (oldCategory != null && !oldCategory.equals(newCategory)) {
             String oldType = expenseCategories.contains(oldCategory) ? "expense" : "income";
-            db.collection("users").document(currentUser.getUid()).collection("categories").document("user_defined")
-                    .update(oldType, FieldValue.arrayRemove(oldCategory));
+            gateway.update("CategoriesActivity.renameCategory", userCategories(currentUser.getUid()),
+                    oldType, FieldValue.arrayRemove(oldCategory));
         }
 
         // Add the new/updated category to the correct array in Firestore
-        db.collection("users").document(currentUser.getUid()).collection("categories").document("user_defined")
-                .update(type, FieldValue.arrayUnion(newCategory))
+        gateway.update("CategoriesActivity.saveCategory", userCategories(currentUser.getUid()),
+                        type, FieldValue.arrayUnion(newCategory))
                 .addOnSuccessListener(aVoid -> Toast.makeText(this, "Category saved!", Toast.LENGTH_SHORT).show())
                 .addOnFailureListener(e -> {
                     // This might fail if the document doesn't exist, so we create it
                     java.util.Map<String, Object> docData = new java.util.HashMap<>();
                     docData.put(type, java.util.Collections.singletonList(newCategory));
-                    db.collection("users").document(currentUser.getUid()).collection("categories").document("user_defined").set(docData);
+                    gateway.set("CategoriesActivity.createCategories", userCategories(currentUser.getUid()), docData);
                 });
     }
 
@@ -187,11 +189,15 @@ public class CategoriesActivity extends AppCompatActivity implements CategoryAda
                 .setTitle("Confirm Deletion")
                 .setMessage("Are you sure you want to delete '" + category + "'?")
                 .setPositiveButton("Delete", (dialog, which) -> {
-                    db.collection("users").document(currentUser.getUid()).collection("categories").document("user_defined")
-                            .update(type, FieldValue.arrayRemove(category))
+                    gateway.update("CategoriesActivity.deleteCategory", userCategories(currentUser.getUid()),
+                                    type, FieldValue.arrayRemove(category))
                             .addOnSuccessListener(aVoid -> Toast.makeText(this, "Category deleted.", Toast.LENGTH_SHORT).show());
                 })
                 .setNegativeButton("Cancel", null)
                 .show();
     }
-}
\ No newline at end of file
+
+    private DocumentReference userCategories(String userId) {
+        return gateway.userCollection(userId, "categories").document("user_defined");
+    }
+}
@@ -0,0 +1,19 @@
+package com.viranya.fintrack;
+
+import android.app.Application;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.viranya.fintrack.data.FirestoreGateway;
+
+/**
+ * Applies process-wide settings that must be in place before any screen, worker or receiver
+ * touches Firestore.
+ */
+public class FinTrackApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        FirestoreGateway.configureCache(FirebaseFirestore.getInstance());
+    }
+}
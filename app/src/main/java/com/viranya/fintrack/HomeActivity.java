@@ -1,20 +1,45 @@
 package com.viranya.fintrack;
 
+import android.content.SharedPreferences;
 import android.os.Bundle;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentManager;
 import androidx.fragment.app.FragmentTransaction;
+import androidx.lifecycle.ViewModelProvider;
 
 import com.google.android.material.bottomnavigation.BottomNavigationView;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.viranya.fintrack.data.EntryChoicesRepository;
+import com.viranya.fintrack.data.FirestoreGateway;
+import com.viranya.fintrack.data.MinorUnitMigration;
+import com.viranya.fintrack.data.Rollups;
+import com.viranya.fintrack.data.TransactionRepository;
 import com.viranya.fintrack.fragment.BudgetsFragment;
 import com.viranya.fintrack.fragment.HomeFragment;
 import com.viranya.fintrack.fragment.ProfileFragment;
 import com.viranya.fintrack.fragment.TransactionsFragment;
+import com.viranya.fintrack.ledger.TransactionColumns;
+import com.viranya.fintrack.viewmodel.LedgerViewModel;
+import com.viranya.fintrack.work.BalanceCheckpointWorker;
+import com.viranya.fintrack.work.BudgetReconcileWorker;
 
 public class HomeActivity extends AppCompatActivity {
 
+    // Versioned: the first migration did not mark documents, so it runs again once
+    private static final String MINOR_UNITS_MIGRATED = "minorUnitsMarked_";
+    private static final String STATE_CURRENT_TAB = "currentTab";
+    private static final String TAG_HOME = "home";
+    private static final String TAG_TRANSACTIONS = "transactions";
+    private static final String TAG_BUDGETS = "budgets";
+    private static final String TAG_PROFILE = "profile";
+
+    private String currentTag;
+    private RollupBackfill rollupBackfill;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -22,43 +47,147 @@ public class HomeActivity extends AppCompatActivity {
 
         BottomNavigationView bottomNavigationView = findViewById(R.id.bottom_navigation);
 
+        // Start the shared listeners once, so every tab is served from memory.
+        FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
+        if (currentUser != null) {
+            new ViewModelProvider(this).get(LedgerViewModel.class).start(currentUser.getUid());
+            EntryChoicesRepository.getInstance(this).start(currentUser.getUid()); // Preloads the add-transaction dropdowns
+            backfillRollupsIfNeeded(currentUser.getUid());
+            migrateMinorUnitsIfNeeded(currentUser.getUid());
+            BudgetReconcileWorker.schedule(this);
+            BalanceCheckpointWorker.schedule(this);
+        }
+
         // Load the default fragment when the app starts
         if (savedInstanceState == null) {
-            loadFragment(new HomeFragment());
+            loadFragment(TAG_HOME);
+        } else {
+            currentTag = savedInstanceState.getString(STATE_CURRENT_TAB, TAG_HOME);
         }
 
         // Set up the listener for bottom navigation
         bottomNavigationView.setOnItemSelectedListener(item -> {
-            Fragment selectedFragment = null;
+            String selectedTag = null;
             int itemId = item.getItemId();
 
             if (itemId == R.id.nav_home) {
-                selectedFragment = new HomeFragment();
+                selectedTag = TAG_HOME;
             } else if (itemId == R.id.nav_transactions) {
-                selectedFragment = new TransactionsFragment();
+                selectedTag = TAG_TRANSACTIONS;
             } else if (itemId == R.id.nav_budgets) {
-                selectedFragment = new BudgetsFragment();
+                selectedTag = TAG_BUDGETS;
             } else if (itemId == R.id.nav_profile) {
-                selectedFragment = new ProfileFragment();
+                selectedTag = TAG_PROFILE;
             }
 
-            if (selectedFragment != null) {
-                loadFragment(selectedFragment);
+            if (selectedTag != null) {
+                loadFragment(selectedTag);
                 return true;
             }
             return false;
         });
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // The repository outlives this activity; an unfinished backfill starts again next launch
+        if (rollupBackfill != null) {
+            TransactionRepository.getInstance().removeObserver(rollupBackfill);
+            rollupBackfill = null;
+        }
+    }
+
+    @Override
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putString(STATE_CURRENT_TAB, currentTag);
+    }
+
     /**
-     * Helper method to completely replace the fragment in the container.
-     * @param fragment The fragment to display.
+     * Builds the monthly rollup documents once for users whose transactions were written
+     * before rollups existed. Waits until the ledger has been confirmed by the server.
      */
-    private void loadFragment(Fragment fragment) {
+    private void backfillRollupsIfNeeded(String userId) {
+        SharedPreferences preferences = getSharedPreferences(ProfileFragment.APP_PREFERENCES, MODE_PRIVATE);
+        if (preferences.getBoolean(Rollups.BACKFILLED_PREFIX + userId, false)) return;
+
+        rollupBackfill = new RollupBackfill(userId, preferences);
+        TransactionRepository.getInstance().addObserver(rollupBackfill);
+    }
+
+    /**
+     * Rebuilds the rollups once the ledger is confirmed by the server, and again on the next
+     * ledger change if the rebuild fails. Static, so a rebuild still running holds no activity.
+     */
+    private static final class RollupBackfill implements TransactionRepository.Observer {
+        private final String userId;
+        private final SharedPreferences preferences;
+        private boolean running = false;
+
+        RollupBackfill(String userId, SharedPreferences preferences) {
+            this.userId = userId;
+            this.preferences = preferences;
+        }
+
+        @Override
+        public void onTransactionsChanged(TransactionColumns ledger) {
+            TransactionRepository repository = TransactionRepository.getInstance();
+            if (running || !repository.isSynced()) return;
+            running = true;
+            Rollups.rebuild(FirestoreGateway.getInstance(), userId, ledger).addOnCompleteListener(task -> {
+                running = false;
+                if (task.isSuccessful()) {
+                    preferences.edit().putBoolean(Rollups.BACKFILLED_PREFIX + userId, true).apply();
+                    repository.removeObserver(this);
+                }
+            });
+        }
+    }
+
+    /**
+     * Adds the minor-unit amount fields to account, budget and goal documents written by
+     * older versions of the app. Retried on the next launch until it succeeds once.
+     */
+    private void migrateMinorUnitsIfNeeded(String userId) {
+        SharedPreferences preferences = getSharedPreferences(ProfileFragment.APP_PREFERENCES, MODE_PRIVATE);
+        String key = MINOR_UNITS_MIGRATED + userId;
+        if (preferences.getBoolean(key, false)) return;
+
+        MinorUnitMigration.run(FirestoreGateway.getInstance(), userId)
+                .addOnSuccessListener(aVoid -> preferences.edit().putBoolean(key, true).apply());
+    }
+
+    /**
+     * Shows the tab's fragment, creating it only the first time. Other tabs are hidden rather
+     * than destroyed, so switching back is instant and their listeners are not re-registered.
+     * @param tag The tag of the tab to display.
+     */
+    private void loadFragment(String tag) {
+        if (tag.equals(currentTag)) return;
         FragmentManager fragmentManager = getSupportFragmentManager();
-        FragmentTransaction fragmentTransaction = fragmentManager.beginTransaction();
-        // The replace() method removes the current fragment and adds the new one.
-        fragmentTransaction.replace(R.id.fragment_container, fragment);
+        FragmentTransaction fragmentTransaction = fragmentManager.beginTransaction().setReorderingAllowed(true);
+
+        Fragment current = currentTag == null ? null : fragmentManager.findFragmentByTag(currentTag);
+        if (current != null) {
+            fragmentTransaction.hide(current);
+        }
+        Fragment target = fragmentManager.findFragmentByTag(tag);
+        if (target == null) {
+            fragmentTransaction.add(R.id.fragment_container, createFragment(tag), tag);
+        } else {
+            fragmentTransaction.show(target);
+        }
         fragmentTransaction.commit();
+        currentTag = tag;
+    }
+
+    private Fragment createFragment(String tag) {
+        switch (tag) {
+            case TAG_TRANSACTIONS: return new TransactionsFragment();
+            case TAG_BUDGETS: return new BudgetsFragment();
+            case TAG_PROFILE: return new ProfileFragment();
+            default: return new HomeFragment();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,111 @@
+package com.viranya.fintrack;
+
+import android.net.Uri;
+import android.os.Bundle;
+import android.widget.Button;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.viranya.fintrack.data.FirestoreGateway;
+import com.viranya.fintrack.data.QueryMetrics;
+import com.viranya.fintrack.util.AppExecutors;
+
+import java.io.BufferedWriter;
+import java.io.FileNotFoundException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A debug screen listing the Firestore metrics recorded since launch (or the last reset), one
+ * call site per entry with the slowest first, and saving them as a CSV file.
+ */
+public class QueryMetricsActivity extends AppCompatActivity {
+
+    private TextView tvSummary, tvMetrics;
+    private QueryMetrics metrics;
+
+    private final ActivityResultLauncher<String> createFileLauncher =
+            registerForActivityResult(new ActivityResultContracts.CreateDocument("text/csv"), uri -> {
+                if (uri != null) dumpTo(uri);
+            });
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_query_metrics);
+
+        metrics = FirestoreGateway.getInstance().getMetrics();
+        tvSummary = findViewById(R.id.tv_metrics_summary);
+        tvMetrics = findViewById(R.id.tv_metrics);
+        Button btnRefresh = findViewById(R.id.btn_refresh_metrics);
+        Button btnReset = findViewById(R.id.btn_reset_metrics);
+        Button btnDump = findViewById(R.id.btn_dump_metrics);
+
+        btnRefresh.setOnClickListener(v -> showMetrics());
+        btnReset.setOnClickListener(v -> {
+            metrics.reset();
+            showMetrics();
+        });
+        btnDump.setOnClickListener(v -> createFileLauncher.launch("FinTrack_Metrics_"
+                + new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.getDefault()).format(new Date()) + ".csv"));
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        showMetrics();
+    }
+
+    private void showMetrics() {
+        tvSummary.setText(String.format(Locale.getDefault(), "Since %s. %d writes awaiting acknowledgement (peak %d).",
+                new SimpleDateFormat("HH:mm:ss", Locale.getDefault()).format(new Date(metrics.getStartedAtMillis())),
+                metrics.getWritesInFlight(), metrics.getPeakWritesInFlight()));
+
+        List<QueryMetrics.SiteStats> sites = metrics.snapshot();
+        if (sites.isEmpty()) {
+            tvMetrics.setText("Nothing recorded yet.");
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        for (QueryMetrics.SiteStats site : sites) {
+            text.append(site.getSite()).append("  ").append(site.getKind()).append('\n');
+            text.append(String.format(Locale.getDefault(),
+                    "  %d calls, %.0f%% errors, %d docs in %d snapshots\n",
+                    site.getCalls(), site.getErrorRate() * 100, site.getDocuments(), site.getSnapshots()));
+            text.append(String.format(Locale.getDefault(),
+                    "  %d from cache, %d with pending writes\n", site.getFromCache(), site.getPendingWrites()));
+            text.append(String.format(Locale.getDefault(),
+                    "  mean %.0f ms, p50 <%d ms, p95 <%d ms, max %.0f ms\n\n",
+                    site.getMeanMillis(), site.getPercentileMillis(0.5), site.getPercentileMillis(0.95), site.getMaxMillis()));
+        }
+        tvMetrics.setText(text);
+    }
+
+    private void dumpTo(Uri uri) {
+        AppExecutors.background().execute(() -> {
+            String message;
+            try {
+                OutputStream outputStream = getContentResolver().openOutputStream(uri);
+                if (outputStream == null) throw new FileNotFoundException("Cannot open " + uri);
+                try (Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
+                    metrics.dump(writer);
+                }
+                message = "Metrics saved.";
+            } catch (Exception e) {
+                message = "Failed to save metrics: " + e.getMessage();
+            }
+            String result = message;
+            AppExecutors.mainThread().execute(() -> Toast.makeText(this, result, Toast.LENGTH_SHORT).show());
+        });
+    }
+}
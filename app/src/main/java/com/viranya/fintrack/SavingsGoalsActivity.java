@@ -20,20 +20,23 @@ import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.FieldValue;
-import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.WriteBatch;
 import com.viranya.fintrack.adapter.SavingGoalAdapter;
 import com.viranya.fintrack.adapter.SuggestionAdapter;
+import com.viranya.fintrack.data.FirestoreGateway;
+import com.viranya.fintrack.data.Rollups;
+import com.viranya.fintrack.data.SnapshotListenerRegistry;
 import com.viranya.fintrack.fragment.AddGoalBottomSheetFragment;
+import com.viranya.fintrack.ledger.Money;
 import com.viranya.fintrack.model.SavingGoal;
 import com.viranya.fintrack.model.Suggestion;
 import com.viranya.fintrack.model.Transaction;
+import com.viranya.fintrack.util.Formatters;
 
-import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 import java.util.stream.Collectors;
 
 public class SavingsGoalsActivity extends AppCompatActivity implements SavingGoalAdapter.OnGoalListener {
@@ -51,7 +54,7 @@ public class SavingsGoalsActivity extends AppCompatActivity implements SavingGoa
     private List<Suggestion> allSuggestions;
 
     // --- Firebase Services ---
-    private FirebaseFirestore db;
+    private FirestoreGateway gateway;
     private FirebaseAuth mAuth;
 
     @Override
@@ -59,7 +62,7 @@ public class SavingsGoalsActivity extends AppCompatActivity implements SavingGoa
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_savings_goals);
 
-        db = FirebaseFirestore.getInstance();
+        gateway = FirestoreGateway.getInstance();
         mAuth = FirebaseAuth.getInstance();
 
         goalsRecyclerView = findViewById(R.id.rv_savings_goals);
@@ -129,8 +132,8 @@ public class SavingsGoalsActivity extends AppCompatActivity implements SavingGoa
         if (currentUser == null) return;
         String userId = currentUser.getUid();
 
-        db.collection("users").document(userId).collection("saving_goals")
-                .addSnapshotListener((value, error) -> {
+        SnapshotListenerRegistry.getInstance().observe(this, "SavingsGoalsActivity.goals",
+                gateway.userCollection(userId, "saving_goals"), (value, error) -> {
                     if (error != null) {
                         Toast.makeText(this, "Error fetching goals.", Toast.LENGTH_SHORT).show();
                         return;
@@ -138,16 +141,16 @@ public class SavingsGoalsActivity extends AppCompatActivity implements SavingGoa
                     if (value == null) return;
 
                     goalList.clear();
-                    double totalSaved = 0;
+                    long totalSaved = 0; // Minor units
                     for (QueryDocumentSnapshot doc : value) {
                         SavingGoal goal = doc.toObject(SavingGoal.class);
                         goalList.add(goal);
-                        totalSaved += goal.getSavedAmount();
+                        totalSaved += goal.getSavedAmountMinor();
                     }
                     goalAdapter.notifyDataSetChanged();
                     checkIfEmpty();
 
-                    updateSuggestions(totalSaved);
+                    updateSuggestions(Money.toMajor(totalSaved));
                 });
     }
 
@@ -159,8 +162,7 @@ public class SavingsGoalsActivity extends AppCompatActivity implements SavingGoa
         if (affordableSuggestions.isEmpty()) {
             suggestionLayout.setVisibility(View.GONE);
         } else {
-            NumberFormat format = NumberFormat.getCurrencyInstance(new Locale("si", "LK"));
-            suggestionHeaderTextView.setText("With " + format.format(totalSaved) + ", you can afford:");
+            suggestionHeaderTextView.setText("With " + Formatters.currency(totalSaved) + ", you can afford:");
 
             suggestionAdapter = new SuggestionAdapter(affordableSuggestions);
             suggestionsRecyclerView.setAdapter(suggestionAdapter);
@@ -180,30 +182,35 @@ public class SavingsGoalsActivity extends AppCompatActivity implements SavingGoa
         builder.setTitle("Add to " + goal.getGoalName())
                 .setPositiveButton("Add", (dialog, id) -> {
                     String amountStr = etAmount.getText().toString();
-                    if (TextUtils.isEmpty(amountStr) || Double.parseDouble(amountStr) <= 0) {
+                    if (TextUtils.isEmpty(amountStr) || Money.parse(amountStr) <= 0) {
                         Toast.makeText(this, "Please enter a valid amount.", Toast.LENGTH_SHORT).show();
                         return;
                     }
-                    double amountToAdd = Double.parseDouble(amountStr);
+                    long amountToAdd = Money.parse(amountStr);
                     addMoneyToGoal(goal, amountToAdd);
                 })
                 .setNegativeButton("Cancel", (dialog, id) -> dialog.cancel());
         builder.create().show();
     }
 
-    private void addMoneyToGoal(SavingGoal goal, double amount) {
+    private void addMoneyToGoal(SavingGoal goal, long amount) {
         FirebaseUser currentUser = mAuth.getCurrentUser();
         if (currentUser == null) return;
         String userId = currentUser.getUid();
 
-        db.collection("users").document(userId).collection("saving_goals").document(goal.getGoalName())
-                .update("savedAmount", FieldValue.increment(amount));
+        // The goal, its contribution transaction and the monthly rollup are written together
+        WriteBatch batch = gateway.db().batch();
+        batch.update(gateway.userCollection(userId, "saving_goals").document(goal.getGoalName()),
+                "savedAmount", FieldValue.increment(Money.toMajor(amount)),
+                Money.minorField("savedAmount"), FieldValue.increment(amount));
 
         String title = "Contribution to " + goal.getGoalName();
         Transaction transaction = new Transaction(title, "Savings", amount, "Expense", "Default Account", new Date());
-        db.collection("users").document(userId).collection("transactions")
-                .add(transaction)
-                .addOnSuccessListener(documentReference -> Toast.makeText(this, "Successfully added money to goal!", Toast.LENGTH_SHORT).show());
+        batch.set(gateway.userCollection(userId, "transactions").document(), transaction);
+        Rollups.apply(batch, gateway, userId, transaction, 1);
+
+        gateway.commit("SavingsGoalsActivity.addMoney", batch)
+                .addOnSuccessListener(aVoid -> Toast.makeText(this, "Successfully added money to goal!", Toast.LENGTH_SHORT).show());
     }
 
     private void checkIfEmpty() {
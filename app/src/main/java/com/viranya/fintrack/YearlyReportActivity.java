@@ -1,6 +1,11 @@
 package com.viranya.fintrack;
 
 import android.os.Bundle;
+import android.view.View;
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
+import android.widget.CheckBox;
+import android.widget.Spinner;
 import android.widget.TextView;
 import android.widget.Toast;
 
@@ -13,54 +18,98 @@ import com.github.mikephil.charting.data.Entry;
 import com.github.mikephil.charting.data.LineData;
 import com.github.mikephil.charting.data.LineDataSet;
 import com.github.mikephil.charting.formatter.IndexAxisValueFormatter;
+import com.github.mikephil.charting.utils.ColorTemplate;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
-import com.viranya.fintrack.model.Transaction;
+import com.viranya.fintrack.data.FirestoreGateway;
+import com.viranya.fintrack.data.ReportEngine;
+import com.viranya.fintrack.ledger.ChartReduction;
+import com.viranya.fintrack.ledger.Money;
+import com.viranya.fintrack.ledger.ReportBuckets;
+import com.viranya.fintrack.ledger.ReportPeriod;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Date;
 import java.util.List;
 
 /**
- * This activity displays a yearly financial report using a line chart,
- * showing total income and expenses for each month of the current year.
+ * This activity displays a financial report using a line chart, showing total income and
+ * expenses per day, week, month, quarter or year over the last one to ten years.
+ * With monthly buckets over several years, it can instead overlay each year's expenses.
  */
 public class YearlyReportActivity extends AppCompatActivity {
 
+    private static final String[] RANGE_LABELS = {"This year", "Last 2 years", "Last 5 years", "Last 10 years"};
+    private static final int[] RANGE_YEARS = {1, 2, 5, 10};
+    private static final int MAX_LINE_POINTS = 200; // Longer series are downsampled before charting
+    private static final int MAX_LABELLED_POINTS = 24;
+    private static final String[] MONTHS = {"Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
+
     // --- UI Elements ---
     private LineChart lineChart;
     private TextView tvReportTitle, tvReportYear;
+    private Spinner spinnerPeriod, spinnerRange;
+    private CheckBox cbCompareYears;
 
     // --- Firebase Services ---
-    private FirebaseFirestore db;
+    private FirestoreGateway gateway;
     private FirebaseAuth mAuth;
 
+    private int reportGeneration = 0; // Discards results of reports the user has since replaced
+    private boolean chartAnimated = false;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_yearly_report);
 
         // Initialize Firebase
-        db = FirebaseFirestore.getInstance();
+        gateway = FirestoreGateway.getInstance();
         mAuth = FirebaseAuth.getInstance();
 
         // Bind UI elements
         lineChart = findViewById(R.id.line_chart);
         tvReportTitle = findViewById(R.id.tv_report_title);
         tvReportYear = findViewById(R.id.tv_report_year);
+        spinnerPeriod = findViewById(R.id.spinner_report_period);
+        spinnerRange = findViewById(R.id.spinner_report_range);
+        cbCompareYears = findViewById(R.id.cb_compare_years);
+
+        setupChartStyle();
+        setupControls();
+    }
+
+    /**
+     * Fills the period and range spinners. Selecting anything reloads the report; the initial
+     * selection (monthly, this year) loads the first one.
+     */
+    private void setupControls() {
+        List<String> periods = new ArrayList<>();
+        for (ReportPeriod period : ReportPeriod.values()) {
+            periods.add(period.getDisplayName());
+        }
+        spinnerPeriod.setAdapter(new ArrayAdapter<>(this, android.R.layout.simple_spinner_dropdown_item, periods));
+        spinnerPeriod.setSelection(ReportPeriod.MONTH.ordinal());
+        spinnerRange.setAdapter(new ArrayAdapter<>(this, android.R.layout.simple_spinner_dropdown_item, RANGE_LABELS));
+
+        AdapterView.OnItemSelectedListener reload = new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                fetchReportData();
+            }
 
-        // Fetch and display the yearly data
-        fetchYearlyData();
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {}
+        };
+        spinnerPeriod.setOnItemSelectedListener(reload);
+        spinnerRange.setOnItemSelectedListener(reload);
+        cbCompareYears.setOnCheckedChangeListener((button, checked) -> fetchReportData());
     }
 
     /**
-     * Fetches all transactions for the current year, processes them month by month,
-     * and then calls the method to set up the line chart.
+     * Builds the selected report in the background and then calls the method to set up the line chart.
      */
-    private void fetchYearlyData() {
+    private void fetchReportData() {
         FirebaseUser currentUser = mAuth.getCurrentUser();
         if (currentUser == null) {
             Toast.makeText(this, "You need to be logged in.", Toast.LENGTH_SHORT).show();
@@ -68,91 +117,119 @@ public class YearlyReportActivity extends AppCompatActivity {
         }
         String userId = currentUser.getUid();
 
-        // --- Determine the start and end of the current year ---
-        Calendar calendar = Calendar.getInstance();
-        int currentYear = calendar.get(Calendar.YEAR);
-        tvReportYear.setText("For the Year " + currentYear); // Update the title
-
-        calendar.set(currentYear, Calendar.JANUARY, 1, 0, 0, 0);
-        Date startOfYear = calendar.getTime();
-
-        calendar.set(currentYear, Calendar.DECEMBER, 31, 23, 59, 59);
-        Date endOfYear = calendar.getTime();
-
-        // --- Query Firestore for all transactions within the current year ---
-        db.collection("users").document(userId).collection("transactions")
-                .whereGreaterThanOrEqualTo("date", startOfYear)
-                .whereLessThanOrEqualTo("date", endOfYear)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    if (queryDocumentSnapshots.isEmpty()) {
-                        Toast.makeText(this, "No data found for the current year.", Toast.LENGTH_SHORT).show();
-                        return;
-                    }
+        ReportPeriod period = ReportPeriod.values()[spinnerPeriod.getSelectedItemPosition()];
+        int years = RANGE_YEARS[spinnerRange.getSelectedItemPosition()];
+        boolean canCompare = period == ReportPeriod.MONTH && years > 1;
+        cbCompareYears.setVisibility(canCompare ? View.VISIBLE : View.GONE);
+        boolean compareYears = canCompare && cbCompareYears.isChecked();
 
-                    // --- Process the Data Month by Month ---
-                    // Create arrays to hold the totals for each of the 12 months.
-                    float[] monthlyIncome = new float[12];
-                    float[] monthlyExpenses = new float[12];
-
-                    for (QueryDocumentSnapshot doc : queryDocumentSnapshots) {
-                        Transaction transaction = doc.toObject(Transaction.class);
-                        calendar.setTime(transaction.getDate());
-                        int month = calendar.get(Calendar.MONTH); // 0 = January, 1 = February, etc.
-
-                        if ("Income".equals(transaction.getType())) {
-                            monthlyIncome[month] += transaction.getAmount();
-                        } else {
-                            monthlyExpenses[month] += transaction.getAmount();
-                        }
-                    }
+        LocalDate today = LocalDate.now();
+        LocalDate from = LocalDate.of(today.getYear() - years + 1, 1, 1);
+        LocalDate to = LocalDate.of(today.getYear(), 12, 31);
+        tvReportYear.setText(years == 1
+                ? "For the Year " + today.getYear() + ", by " + period.getDisplayName()
+                : from.getYear() + " to " + to.getYear() + ", by " + period.getDisplayName());
 
-                    // Now that the data is processed, set up the chart.
-                    setupLineChart(monthlyIncome, monthlyExpenses);
+        int generation = ++reportGeneration;
+        ReportEngine.build(gateway, userId, period, from, to)
+                .addOnSuccessListener(this, buckets -> {
+                    if (generation != reportGeneration) return;
+                    if (isEmpty(buckets)) {
+                        Toast.makeText(this, "No data found for the selected range.", Toast.LENGTH_SHORT).show();
+                    }
+                    if (compareYears) {
+                        showYearComparison(buckets);
+                    } else {
+                        setupLineChart(buckets);
+                    }
                 })
-                .addOnFailureListener(e -> Toast.makeText(this, "Failed to fetch yearly data.", Toast.LENGTH_SHORT).show());
+                .addOnFailureListener(this, e -> Toast.makeText(this, "Failed to fetch report data.", Toast.LENGTH_SHORT).show());
     }
 
     /**
-     * Configures and displays the line chart with the processed monthly data.
-     * @param monthlyIncome An array of 12 floats representing total income for each month.
-     * @param monthlyExpenses An array of 12 floats representing total expense for each month.
+     * Configures and displays the line chart with one income and one expense point per bucket.
+     * Long series (e.g. ten years of days) are downsampled to {@link #MAX_LINE_POINTS} points.
+     * @param buckets The report's totals in minor units.
      */
-    private void setupLineChart(float[] monthlyIncome, float[] monthlyExpenses) {
+    private void setupLineChart(ReportBuckets buckets) {
         // --- Create Data Entries for the Chart ---
-        List<Entry> incomeEntries = new ArrayList<>();
-        List<Entry> expenseEntries = new ArrayList<>();
-        for (int i = 0; i < 12; i++) {
-            incomeEntries.add(new Entry(i, monthlyIncome[i]));
-            expenseEntries.add(new Entry(i, monthlyExpenses[i]));
+        float[] x = new float[buckets.size()];
+        float[] income = new float[buckets.size()];
+        float[] expenses = new float[buckets.size()];
+        String[] labels = new String[buckets.size()];
+        for (int i = 0; i < buckets.size(); i++) {
+            x[i] = i;
+            income[i] = (float) Money.toMajor(buckets.getIncome(i));
+            expenses[i] = (float) Money.toMajor(buckets.getExpense(i));
+            labels[i] = buckets.getLabel(i);
+        }
+
+        List<List<Entry>> series = new ArrayList<>(2);
+        series.add(downsample(x, income));
+        series.add(downsample(x, expenses));
+        List<String> names = new ArrayList<>(2);
+        names.add("Income");
+        names.add("Expenses");
+        List<Integer> colors = new ArrayList<>(2);
+        colors.add(ContextCompat.getColor(this, R.color.teal_green));
+        colors.add(ContextCompat.getColor(this, R.color.vibrant_coral));
+        showChart(series, names, colors, labels, buckets.size() <= MAX_LABELLED_POINTS);
+    }
+
+    /**
+     * Overlays each year's monthly expenses on a January to December axis.
+     * @param buckets A monthly report covering whole years.
+     */
+    private void showYearComparison(ReportBuckets buckets) {
+        List<List<Entry>> series = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<Integer> colors = new ArrayList<>();
+        List<Entry> entries = null;
+        int year = Integer.MIN_VALUE;
+        for (int i = 0; i < buckets.size(); i++) {
+            LocalDate start = buckets.getStart(i);
+            if (start.getYear() != year) {
+                entries = new ArrayList<>(12);
+                year = start.getYear();
+                series.add(entries);
+                names.add(String.valueOf(year));
+                colors.add(yearColor(colors.size()));
+            }
+            entries.add(new Entry(start.getMonthValue() - 1, (float) Money.toMajor(buckets.getExpense(i))));
         }
+        // Values of several overlapping years would be unreadable
+        showChart(series, names, colors, MONTHS, false);
+    }
+
+    private static boolean isEmpty(ReportBuckets buckets) {
+        for (int i = 0; i < buckets.size(); i++) {
+            if (buckets.getIncome(i) != 0 || buckets.getExpense(i) != 0) return false;
+        }
+        return true;
+    }
+
+    private static List<Entry> downsample(float[] x, float[] y) {
+        int[] points = ChartReduction.lttb(x, y, MAX_LINE_POINTS);
+        List<Entry> entries = new ArrayList<>(points.length);
+        for (int point : points) {
+            entries.add(new Entry(x[point], y[point]));
+        }
+        return entries;
+    }
+
+    private static int yearColor(int index) {
+        if (index < ColorTemplate.MATERIAL_COLORS.length) return ColorTemplate.MATERIAL_COLORS[index];
+        return ColorTemplate.JOYFUL_COLORS[(index - ColorTemplate.MATERIAL_COLORS.length) % ColorTemplate.JOYFUL_COLORS.length];
+    }
+
+    // --- Chart Rendering ---
+    // The chart's data sets are reused whenever the new report has as many series as the last one,
+    // and only the first render is animated, so switching periods does not restart a 1.5 s animation.
 
-        // --- Create and Style the Income Data Set ---
-        LineDataSet incomeDataSet = new LineDataSet(incomeEntries, "Income");
-        incomeDataSet.setColor(ContextCompat.getColor(this, R.color.teal_green));
-        incomeDataSet.setCircleColor(ContextCompat.getColor(this, R.color.teal_green));
-        incomeDataSet.setLineWidth(2.5f);
-        incomeDataSet.setCircleRadius(4f);
-        incomeDataSet.setValueTextSize(15f);
-
-        // --- Create and Style the Expense Data Set ---
-        LineDataSet expenseDataSet = new LineDataSet(expenseEntries, "Expenses");
-        expenseDataSet.setColor(ContextCompat.getColor(this, R.color.vibrant_coral));
-        expenseDataSet.setCircleColor(ContextCompat.getColor(this, R.color.vibrant_coral));
-        expenseDataSet.setLineWidth(2.5f);
-        expenseDataSet.setCircleRadius(4f);
-        expenseDataSet.setValueTextSize(15f);
-
-        // --- Combine the data sets and set them to the chart ---
-        LineData lineData = new LineData(incomeDataSet, expenseDataSet);
-        lineChart.setData(lineData);
-
-        // --- Style the Chart's Axes and General Appearance ---
-        // X-Axis (Bottom Axis with Month Names)
+    private void setupChartStyle() {
+        // X-Axis (Bottom Axis with Bucket Labels)
         XAxis xAxis = lineChart.getXAxis();
         xAxis.setPosition(XAxis.XAxisPosition.BOTTOM);
-        final String[] months = new String[]{"Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
-        xAxis.setValueFormatter(new IndexAxisValueFormatter(months));
         xAxis.setGranularity(1f);
         xAxis.setDrawGridLines(false);
 
@@ -163,7 +240,46 @@ public class YearlyReportActivity extends AppCompatActivity {
 
         // General Chart Styling
         lineChart.getDescription().setEnabled(false); // Hide the description text
-        lineChart.animateX(1500); // Animate the chart drawing
+    }
+
+    private void showChart(List<List<Entry>> series, List<String> names, List<Integer> colors,
+                           String[] labels, boolean drawValues) {
+        LineData lineData = lineChart.getData();
+        if (lineData == null || lineData.getDataSetCount() != series.size()) {
+            lineData = new LineData();
+            for (int i = 0; i < series.size(); i++) {
+                LineDataSet dataSet = new LineDataSet(series.get(i), names.get(i));
+                dataSet.setLineWidth(2.5f);
+                dataSet.setCircleRadius(4f);
+                dataSet.setValueTextSize(15f);
+                styleDataSet(dataSet, colors.get(i), drawValues);
+                lineData.addDataSet(dataSet);
+            }
+            lineChart.setData(lineData);
+        } else {
+            for (int i = 0; i < series.size(); i++) {
+                LineDataSet dataSet = (LineDataSet) lineData.getDataSetByIndex(i);
+                dataSet.setEntries(series.get(i));
+                dataSet.setLabel(names.get(i));
+                styleDataSet(dataSet, colors.get(i), drawValues);
+            }
+            lineData.notifyDataChanged();
+            lineChart.notifyDataSetChanged();
+        }
+
+        lineChart.getXAxis().setValueFormatter(new IndexAxisValueFormatter(labels));
+        if (!chartAnimated) {
+            lineChart.animateX(1500); // Animate the chart drawing
+            chartAnimated = true;
+        }
         lineChart.invalidate(); // Refresh the chart
     }
-}
\ No newline at end of file
+
+    private static void styleDataSet(LineDataSet dataSet, int color, boolean drawValues) {
+        dataSet.setColor(color);
+        dataSet.setCircleColor(color);
+        // Points and values only stay legible on short series
+        dataSet.setDrawCircles(dataSet.getEntryCount() <= MAX_LABELLED_POINTS);
+        dataSet.setDrawValues(drawValues);
+    }
+}
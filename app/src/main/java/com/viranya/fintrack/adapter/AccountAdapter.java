@@ -11,10 +11,9 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.viranya.fintrack.R;
 import com.viranya.fintrack.model.Account;
+import com.viranya.fintrack.util.Formatters;
 
-import java.text.NumberFormat;
 import java.util.List;
-import java.util.Locale;
 
 public class AccountAdapter extends RecyclerView.Adapter<AccountAdapter.AccountViewHolder> {
 
@@ -45,8 +44,7 @@ public class AccountAdapter extends RecyclerView.Adapter<AccountAdapter.AccountV
     public void onBindViewHolder(@NonNull AccountViewHolder holder, int position) {
         Account account = accountList.get(position);
         holder.accountName.setText(account.getName());
-        NumberFormat format = NumberFormat.getCurrencyInstance(new Locale("si", "LK"));
-        holder.accountBalance.setText(format.format(account.getBalance()));
+        holder.accountBalance.setText(Formatters.currency(account.getBalanceMinor()));
 
         //  Set the long-click listener on the item view
         holder.itemView.setOnLongClickListener(v -> {
@@ -13,10 +13,9 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.viranya.fintrack.R;
 import com.viranya.fintrack.model.Budget;
+import com.viranya.fintrack.util.Formatters;
 
-import java.text.NumberFormat;
 import java.util.List;
-import java.util.Locale;
 
 public class BudgetAdapter extends RecyclerView.Adapter<BudgetAdapter.BudgetViewHolder> {
 
@@ -44,18 +43,16 @@ public class BudgetAdapter extends RecyclerView.Adapter<BudgetAdapter.BudgetView
         // Set the category name
         holder.category.setText(budget.getCategory());
 
-        // Format currency for Sri Lanka (LKR)
-        NumberFormat format = NumberFormat.getCurrencyInstance(new Locale("si", "LK"));
-        String spentFormatted = format.format(budget.getSpentAmount());
-        String limitFormatted = format.format(budget.getLimitAmount());
+        String spentFormatted = Formatters.currency(budget.getSpentAmountMinor());
+        String limitFormatted = Formatters.currency(budget.getLimitAmountMinor());
 
         // Set the spending info text
         holder.info.setText(String.format("%s spent of %s limit", spentFormatted, limitFormatted));
 
         // Calculate and set the progress for the ProgressBar
         int progress = 0;
-        if (budget.getLimitAmount() > 0) {
-            progress = (int) ((budget.getSpentAmount() / budget.getLimitAmount()) * 100);
+        if (budget.getLimitAmountMinor() > 0) {
+            progress = (int) (budget.getSpentAmountMinor() * 100 / budget.getLimitAmountMinor());
         }
         holder.progressBar.setProgress(progress);
 
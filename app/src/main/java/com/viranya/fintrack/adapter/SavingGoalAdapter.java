@@ -13,10 +13,9 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.button.MaterialButton;
 import com.viranya.fintrack.R;
 import com.viranya.fintrack.model.SavingGoal;
+import com.viranya.fintrack.util.Formatters;
 
-import java.text.NumberFormat;
 import java.util.List;
-import java.util.Locale;
 
 public class SavingGoalAdapter extends RecyclerView.Adapter<SavingGoalAdapter.SavingGoalViewHolder> {
 
@@ -57,18 +56,16 @@ public class SavingGoalAdapter extends RecyclerView.Adapter<SavingGoalAdapter.Sa
         // Bind the data to the views in the ViewHolder
         holder.goalName.setText(goal.getGoalName());
 
-        // Format currency amounts for Sri Lanka (LKR)
-        NumberFormat format = NumberFormat.getCurrencyInstance(new Locale("si", "LK"));
-        String savedFormatted = format.format(goal.getSavedAmount());
-        String targetFormatted = format.format(goal.getTargetAmount());
+        String savedFormatted = Formatters.currency(goal.getSavedAmountMinor());
+        String targetFormatted = Formatters.currency(goal.getTargetAmountMinor());
 
         // Set the progress text
         holder.progressText.setText(String.format("Saved %s of %s", savedFormatted, targetFormatted));
 
         // Calculate and set the progress for the ProgressBar
         int progress = 0;
-        if (goal.getTargetAmount() > 0) {
-            progress = (int) ((goal.getSavedAmount() / goal.getTargetAmount()) * 100);
+        if (goal.getTargetAmountMinor() > 0) {
+            progress = (int) (goal.getSavedAmountMinor() * 100 / goal.getTargetAmountMinor());
         }
         holder.progressBar.setProgress(progress);
 
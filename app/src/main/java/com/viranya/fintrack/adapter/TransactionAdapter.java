@@ -7,14 +7,19 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import com.viranya.fintrack.R;
 import com.viranya.fintrack.model.Transaction;
-import java.text.NumberFormat;
-import java.util.List;
-import java.util.Locale;
+import com.viranya.fintrack.util.Formatters;
+import java.util.Objects;
 
-public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.TransactionViewHolder> {
+/**
+ * Displays transactions using a ListAdapter. New lists are submitted with submitList() and
+ * diffed on a background thread by document ID, so only rows that actually changed are rebound.
+ */
+public class TransactionAdapter extends ListAdapter<Transaction, TransactionAdapter.TransactionViewHolder> {
 
     // --- Interface to handle click events on items ---
     public interface OnTransactionListener {
@@ -22,18 +27,36 @@ public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.
         void onTransactionLongClick(Transaction transaction); // For deleting
     }
 
-    private final List<Transaction> transactionList;
+    /**
+     * Identifies rows by Firestore document ID and compares the displayed fields for content changes.
+     */
+    public static final DiffUtil.ItemCallback<Transaction> DIFF_CALLBACK = new DiffUtil.ItemCallback<Transaction>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Transaction oldItem, @NonNull Transaction newItem) {
+            return Objects.equals(oldItem.getDocumentId(), newItem.getDocumentId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Transaction oldItem, @NonNull Transaction newItem) {
+            return Objects.equals(oldItem.getTitle(), newItem.getTitle())
+                    && Objects.equals(oldItem.getCategory(), newItem.getCategory())
+                    && Objects.equals(oldItem.getType(), newItem.getType())
+                    && Objects.equals(oldItem.getAccountName(), newItem.getAccountName())
+                    && Objects.equals(oldItem.getDate(), newItem.getDate())
+                    && oldItem.getAmountMinor() == newItem.getAmountMinor();
+        }
+    };
+
     private final Context context;
     private final OnTransactionListener onTransactionListener;
 
     /**
      * Constructor for the adapter.
-     * @param transactionList The list of transactions to display.
      * @param context The context of the calling fragment.
      * @param onTransactionListener The listener to handle clicks.
      */
-    public TransactionAdapter(List<Transaction> transactionList, Context context, OnTransactionListener onTransactionListener) {
-        this.transactionList = transactionList;
+    public TransactionAdapter(Context context, OnTransactionListener onTransactionListener) {
+        super(DIFF_CALLBACK);
         this.context = context;
         this.onTransactionListener = onTransactionListener;
     }
@@ -48,48 +71,8 @@ public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.
 
     @Override
     public void onBindViewHolder(@NonNull TransactionViewHolder holder, int position) {
-        // Get the data model for this position
-        Transaction transaction = transactionList.get(position);
-
-        // Bind the data to the views in the ViewHolder
-        holder.title.setText(transaction.getTitle());
-        holder.category.setText(transaction.getCategory());
-
-        // Format currency for Sri Lanka (LKR)
-        NumberFormat format = NumberFormat.getCurrencyInstance(new Locale("si", "LK"));
-        String formattedAmount = format.format(transaction.getAmount());
-
-        // Check the transaction type and set the amount text and color accordingly
-        if ("Expense".equals(transaction.getType())) {
-            holder.amount.setText("- " + formattedAmount);
-            holder.amount.setTextColor(ContextCompat.getColor(context, R.color.vibrant_coral));
-        } else {
-            holder.amount.setText("+ " + formattedAmount);
-            holder.amount.setTextColor(ContextCompat.getColor(context, R.color.teal_green));
-        }
-        // --- Set the regular click listener for editing---
-
-        holder.itemView.setOnClickListener(v -> {
-            if (onTransactionListener != null) {
-                onTransactionListener.onTransactionClick(transaction);
-            }
-        });
-
-        // --- Set the long-click listener for deletion ---
-        holder.itemView.setOnLongClickListener(v -> {
-            if (onTransactionListener != null) {
-                // Notify the fragment that an item was long-clicked
-                onTransactionListener.onTransactionLongClick(transaction);
-                return true; // Return true to indicate the event was handled
-            }
-            return false;
-        });
-    }
-
-    @Override
-    public int getItemCount() {
-        // Return the total number of items in the list
-        return transactionList.size();
+        // Get the data model for this position and bind it
+        holder.bind(getItem(position), context, onTransactionListener);
     }
 
     /**
@@ -104,5 +87,42 @@ public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.
             category = itemView.findViewById(R.id.tv_transaction_category);
             amount = itemView.findViewById(R.id.tv_transaction_amount);
         }
+
+        /**
+         * Binds a transaction to this row. Shared by the list and paging adapters.
+         */
+        public void bind(Transaction transaction, Context context, OnTransactionListener onTransactionListener) {
+            // Bind the data to the views in the ViewHolder
+            title.setText(transaction.getTitle());
+            category.setText(transaction.getCategory());
+
+            String formattedAmount = Formatters.currency(transaction.getAmountMinor());
+
+            // Check the transaction type and set the amount text and color accordingly
+            if ("Expense".equals(transaction.getType())) {
+                amount.setText("- " + formattedAmount);
+                amount.setTextColor(ContextCompat.getColor(context, R.color.vibrant_coral));
+            } else {
+                amount.setText("+ " + formattedAmount);
+                amount.setTextColor(ContextCompat.getColor(context, R.color.teal_green));
+            }
+            // --- Set the regular click listener for editing---
+
+            itemView.setOnClickListener(v -> {
+                if (onTransactionListener != null) {
+                    onTransactionListener.onTransactionClick(transaction);
+                }
+            });
+
+            // --- Set the long-click listener for deletion ---
+            itemView.setOnLongClickListener(v -> {
+                if (onTransactionListener != null) {
+                    // Notify the fragment that an item was long-clicked
+                    onTransactionListener.onTransactionLongClick(transaction);
+                    return true; // Return true to indicate the event was handled
+                }
+                return false;
+            });
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.viranya.fintrack.adapter;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.paging.PagingDataAdapter;
+
+import com.viranya.fintrack.R;
+import com.viranya.fintrack.model.Transaction;
+
+/**
+ * Paging version of {@link TransactionAdapter}, used for the unfiltered transaction history.
+ * Rows are bound by the same ViewHolder and diffed by the same document-ID callback.
+ */
+public class TransactionPagingAdapter extends PagingDataAdapter<Transaction, TransactionAdapter.TransactionViewHolder> {
+
+    private final Context context;
+    private final TransactionAdapter.OnTransactionListener onTransactionListener;
+
+    public TransactionPagingAdapter(Context context, TransactionAdapter.OnTransactionListener onTransactionListener) {
+        super(TransactionAdapter.DIFF_CALLBACK);
+        this.context = context;
+        this.onTransactionListener = onTransactionListener;
+    }
+
+    @NonNull
+    @Override
+    public TransactionAdapter.TransactionViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.transaction_item, parent, false);
+        return new TransactionAdapter.TransactionViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull TransactionAdapter.TransactionViewHolder holder, int position) {
+        Transaction transaction = getItem(position);
+        // Items can be null while a placeholder is shown; placeholders are disabled, but stay safe.
+        if (transaction != null) {
+            holder.bind(transaction, context, onTransactionListener);
+        }
+    }
+}
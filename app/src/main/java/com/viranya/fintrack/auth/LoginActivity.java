@@ -27,9 +27,9 @@ import com.google.firebase.auth.FirebaseAuthInvalidCredentialsException;
 import com.google.firebase.auth.FirebaseAuthInvalidUserException;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.auth.GoogleAuthProvider;
-import com.google.firebase.firestore.FirebaseFirestore;
 import com.viranya.fintrack.HomeActivity;
 import com.viranya.fintrack.R;
+import com.viranya.fintrack.data.FirestoreGateway;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -44,7 +44,7 @@ public class LoginActivity extends AppCompatActivity {
     private TextView tvGoToSignUp, tvForgotPassword;
     // --- Firebase & Google Services ---
     private FirebaseAuth mAuth;
-    private FirebaseFirestore db;
+    private FirestoreGateway gateway;
     private GoogleSignInClient mGoogleSignInClient;
     private ActivityResultLauncher<Intent> googleSignInLauncher;
 
@@ -55,7 +55,7 @@ public class LoginActivity extends AppCompatActivity {
 
         // --- Initialize Firebase and Firestore ---
         mAuth = FirebaseAuth.getInstance();
-        db = FirebaseFirestore.getInstance();
+        gateway = FirestoreGateway.getInstance();
 
         // --- Bind UI elements from the XML layout ---
         etEmail = findViewById(R.id.etEmail);
@@ -203,8 +203,7 @@ public class LoginActivity extends AppCompatActivity {
         user.put("email", email);
         user.put("currency", "LKR"); // Default currency for new users
 
-        db.collection("users").document(userId)
-                .set(user)
+        gateway.set("LoginActivity.saveUserData", gateway.user(userId), user)
                 .addOnSuccessListener(aVoid -> {
                     // Once data is saved, navigate to the Home screen.
                     startActivity(new Intent(LoginActivity.this, HomeActivity.class));
@@ -27,9 +27,9 @@ import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseAuthUserCollisionException;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.auth.GoogleAuthProvider;
-import com.google.firebase.firestore.FirebaseFirestore;
 import com.viranya.fintrack.HomeActivity;
 import com.viranya.fintrack.R;
+import com.viranya.fintrack.data.FirestoreGateway;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -45,7 +45,7 @@ public class SignUpActivity extends AppCompatActivity {
 
     // --- Firebase & Google Services ---
     private FirebaseAuth mAuth;
-    private FirebaseFirestore db;
+    private FirestoreGateway gateway;
     private GoogleSignInClient mGoogleSignInClient;
     private ActivityResultLauncher<Intent> googleSignInLauncher;
 
@@ -64,7 +64,7 @@ public class SignUpActivity extends AppCompatActivity {
 
         // --- Initialize Firebase and Firestore ---
         mAuth = FirebaseAuth.getInstance();
-        db = FirebaseFirestore.getInstance();
+        gateway = FirestoreGateway.getInstance();
 
         // --- Bind UI elements from the XML layout ---
         etFullName = findViewById(R.id.etFullName);
@@ -216,8 +216,7 @@ public class SignUpActivity extends AppCompatActivity {
         user.put("email", email);
         user.put("currency", "LKR");
 
-        db.collection("users").document(userId)
-                .set(user)
+        gateway.set("SignUpActivity.saveUserData", gateway.user(userId), user)
                 .addOnSuccessListener(aVoid -> {
                     Toast.makeText(SignUpActivity.this, "Account created.", Toast.LENGTH_SHORT).show();
                     startActivity(new Intent(SignUpActivity.this, LoginActivity.class));
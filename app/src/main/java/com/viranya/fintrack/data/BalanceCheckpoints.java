@@ -0,0 +1,201 @@
+package com.viranya.fintrack.data;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+import com.viranya.fintrack.model.BalanceCheckpoint;
+import com.viranya.fintrack.model.MonthlyRollup;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Maintains monthly balance checkpoints (users/{uid}/balance_checkpoints/{yyyy-MM}): every
+ * account's balance at the start of each month, so a balance can be replayed from the nearest
+ * checkpoint instead of from the first transaction.
+ *
+ * Checkpoints are derived from the per-account totals of the monthly rollups and are written
+ * for every month from the first one with transactions up to the current one. A change dated
+ * before the current month invalidates all later checkpoints; {@link Rollups#apply} records its
+ * month in the same batch (see {@link #markChanged}), and the next {@link #advance} rewrites the
+ * checkpoints from that month on.
+ *
+ * Writes are never awaited while replaying: a Firestore write only completes once the server
+ * acknowledges it, which never happens offline. The cache applies them at once, so the reads
+ * that follow still see them.
+ */
+public final class BalanceCheckpoints {
+
+    public static final String COLLECTION = "balance_checkpoints";
+    // Sorts after every "yyyy-MM" id, so month range queries never include it
+    private static final String STALE_DOC = "_stale";
+    private static final String STALE_MONTHS = "staleMonths";
+    private static final int MAX_BATCH_WRITES = 450; // Firestore allows 500 operations per batch
+    private static final Executor EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private BalanceCheckpoints() {}
+
+    public static CollectionReference collection(FirestoreGateway gateway, String userId) {
+        return gateway.userCollection(userId, COLLECTION);
+    }
+
+    /**
+     * Records that a transaction dated in the given month was added, edited or removed.
+     */
+    static void markChanged(WriteBatch batch, FirestoreGateway gateway, String userId, String monthKey) {
+        Map<String, Object> update = new HashMap<>();
+        update.put(STALE_MONTHS, FieldValue.arrayUnion(monthKey));
+        batch.set(collection(gateway, userId).document(STALE_DOC), update, SetOptions.merge());
+    }
+
+    /**
+     * Writes the checkpoints that are missing or out of date, up to the current month.
+     * Usually a no-op costing two reads; after a new month begins it adds one checkpoint.
+     * @return A task that completes once the reads are done and the writes are in the cache;
+     * the writes reach the server whenever it can be reached.
+     */
+    public static Task<Void> advance(FirestoreGateway gateway, String userId) {
+        return Tasks.call(EXECUTOR, () -> {
+            advanceNow(gateway, userId);
+            return null;
+        });
+    }
+
+    /**
+     * Reads the checkpoint for the start of a month, bringing the checkpoints up to date first if needed.
+     * Blocks; must be called off the main thread.
+     * @return The checkpoint, or null if the month is before the user's first transaction.
+     */
+    static BalanceCheckpoint read(FirestoreGateway gateway, String userId, YearMonth month) throws Exception {
+        DocumentReference ref = collection(gateway, userId).document(month.toString());
+        List<String> stale = readStaleMonths(gateway, userId);
+        // A change in month T only affects the checkpoints after T
+        boolean fresh = stale.isEmpty() || Collections.min(stale).compareTo(month.toString()) >= 0;
+        DocumentSnapshot doc = fresh ? Tasks.await(gateway.get("BalanceCheckpoints.read", ref)) : null;
+        if (doc == null || !doc.exists()) {
+            advanceNow(gateway, userId);
+            doc = Tasks.await(gateway.get("BalanceCheckpoints.read", ref));
+        }
+        return doc.exists() ? doc.toObject(BalanceCheckpoint.class) : null;
+    }
+
+    /**
+     * Brings the checkpoints up to date in the local cache. Blocks on reads only.
+     * @return The pending writes, which complete once the server acknowledges them.
+     */
+    private static synchronized Task<Void> advanceNow(FirestoreGateway gateway, String userId) throws Exception {
+        YearMonth current = YearMonth.now();
+        DocumentReference staleRef = collection(gateway, userId).document(STALE_DOC);
+        List<String> stale = readStaleMonths(gateway, userId);
+        String validThrough = current.toString();
+        List<Task<Void>> writes = new ArrayList<>();
+        if (!stale.isEmpty()) {
+            String earliestStale = Collections.min(stale);
+            if (earliestStale.compareTo(validThrough) < 0) validThrough = earliestStale;
+            // Clear the marks before reading the rollups: a change made meanwhile marks its month again
+            writes.add(gateway.update("BalanceCheckpoints.clearStale", staleRef,
+                    STALE_MONTHS, FieldValue.arrayRemove(stale.toArray())));
+        }
+
+        try {
+            writes.addAll(rewriteFrom(gateway, userId, validThrough, current));
+        } catch (Exception e) {
+            restoreStale(gateway, staleRef, stale);
+            throw e;
+        }
+        Task<Void> committed = Tasks.whenAll(writes);
+        // A rejected checkpoint write must not lose the marks that would have it rewritten
+        committed.addOnFailureListener(e -> restoreStale(gateway, staleRef, stale));
+        return committed;
+    }
+
+    private static void restoreStale(FirestoreGateway gateway, DocumentReference staleRef, List<String> stale) {
+        if (stale.isEmpty()) return;
+        Map<String, Object> update = new HashMap<>();
+        update.put(STALE_MONTHS, FieldValue.arrayUnion(stale.toArray()));
+        gateway.set("BalanceCheckpoints.restoreStale", staleRef, update, SetOptions.merge());
+    }
+
+    /**
+     * Replays the monthly totals forward from the newest checkpoint at or before {@code validThrough}.
+     * @return The checkpoint batch commits, not awaited.
+     */
+    private static List<Task<Void>> rewriteFrom(FirestoreGateway gateway, String userId, String validThrough,
+                                                YearMonth current) throws Exception {
+        CollectionReference checkpoints = collection(gateway, userId);
+        QuerySnapshot base = Tasks.await(gateway.get("BalanceCheckpoints.base", checkpoints
+                .whereLessThanOrEqualTo(FieldPath.documentId(), validThrough)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING)
+                .limit(1)));
+
+        List<Task<Void>> commits = new ArrayList<>();
+        WriteBatch batch = gateway.db().batch();
+        int writes = 0;
+        YearMonth month;
+        Map<String, Long> balances = new HashMap<>();
+        if (!base.isEmpty()) {
+            DocumentSnapshot doc = base.getDocuments().get(0);
+            month = YearMonth.parse(doc.getId());
+            BalanceCheckpoint checkpoint = doc.toObject(BalanceCheckpoint.class);
+            if (checkpoint != null && checkpoint.getBalancesMinor() != null) balances.putAll(checkpoint.getBalancesMinor());
+        } else {
+            // Every account starts at zero before the first month with transactions
+            QuerySnapshot first = Tasks.await(gateway.get("BalanceCheckpoints.firstRollup",
+                    Rollups.collection(gateway, userId).orderBy(FieldPath.documentId()).limit(1)));
+            if (first.isEmpty()) return commits;
+            month = YearMonth.parse(first.getDocuments().get(0).getId());
+            if (month.isAfter(current)) return commits;
+            batch.set(checkpoints.document(month.toString()), new BalanceCheckpoint(new HashMap<>()));
+            writes++;
+        }
+
+        if (month.isBefore(current)) {
+            QuerySnapshot rollups = Tasks.await(gateway.get("BalanceCheckpoints.rollups", Rollups.collection(gateway, userId)
+                    .whereGreaterThanOrEqualTo(FieldPath.documentId(), month.toString())
+                    .whereLessThan(FieldPath.documentId(), current.toString())));
+            Map<String, Map<String, Long>> changes = new HashMap<>();
+            for (DocumentSnapshot doc : rollups.getDocuments()) {
+                MonthlyRollup rollup = doc.toObject(MonthlyRollup.class);
+                if (rollup != null && rollup.getAccountsMinor() != null) changes.put(doc.getId(), rollup.getAccountsMinor());
+            }
+
+            for (; month.isBefore(current); month = month.plusMonths(1)) {
+                Map<String, Long> change = changes.get(month.toString());
+                if (change != null) {
+                    for (Map.Entry<String, Long> account : change.entrySet()) {
+                        balances.merge(account.getKey(), account.getValue(), Long::sum);
+                    }
+                }
+                batch.set(checkpoints.document(month.plusMonths(1).toString()), new BalanceCheckpoint(new HashMap<>(balances)));
+                if (++writes == MAX_BATCH_WRITES) {
+                    commits.add(gateway.commit("BalanceCheckpoints.rewrite", batch));
+                    batch = gateway.db().batch();
+                    writes = 0;
+                }
+            }
+        }
+        if (writes > 0) commits.add(gateway.commit("BalanceCheckpoints.rewrite", batch));
+        return commits;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> readStaleMonths(FirestoreGateway gateway, String userId) throws Exception {
+        DocumentSnapshot doc = Tasks.await(gateway.get("BalanceCheckpoints.stale", collection(gateway, userId).document(STALE_DOC)));
+        Object months = doc.get(STALE_MONTHS);
+        return months instanceof List ? (List<String>) months : Collections.emptyList();
+    }
+}
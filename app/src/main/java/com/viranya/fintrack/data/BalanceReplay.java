@@ -0,0 +1,107 @@
+package com.viranya.fintrack.data;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+import com.viranya.fintrack.ledger.TransactionColumns;
+import com.viranya.fintrack.model.BalanceCheckpoint;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Computes account balances from the ledger as "checkpoint + transactions since": the
+ * checkpoint at the start of the month (see {@link BalanceCheckpoints}) plus the transactions
+ * between then and the requested time. The cost depends on one month of transactions, not on
+ * the length of the user's history.
+ *
+ * The transactions since the checkpoint are read from the in-memory ledger when it is loaded,
+ * and otherwise queried one page at a time.
+ */
+public final class BalanceReplay {
+
+    private static final int PAGE_SIZE = 500;
+    private static final Executor EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private BalanceReplay() {}
+
+    /**
+     * @return A task with each account's balance at the given time, in minor units, keyed by account name.
+     * Accounts without any transactions up to then are absent.
+     */
+    public static Task<Map<String, Long>> balancesAt(FirestoreGateway gateway, String userId, Date at) {
+        return replay(gateway, userId, at.getTime());
+    }
+
+    /**
+     * @return A task with each account's balance after every transaction, including future-dated
+     * ones. This is what {@code Account.balance} should hold if nothing was adjusted by hand.
+     */
+    public static Task<Map<String, Long>> currentBalances(FirestoreGateway gateway, String userId) {
+        return replay(gateway, userId, Long.MAX_VALUE);
+    }
+
+    private static Task<Map<String, Long>> replay(FirestoreGateway gateway, String userId, long atMillis) {
+        ZoneId zone = ZoneId.systemDefault();
+        TransactionRepository repository = TransactionRepository.getInstance();
+        return Tasks.call(EXECUTOR, () -> {
+            YearMonth month = YearMonth.now(zone);
+            if (atMillis < Long.MAX_VALUE) {
+                YearMonth requested = YearMonth.from(Instant.ofEpochMilli(atMillis).atZone(zone));
+                if (requested.isBefore(month)) month = requested;
+            }
+            long fromMillis = month.atDay(1).atStartOfDay(zone).toInstant().toEpochMilli();
+
+            Map<String, Long> balances = new HashMap<>();
+            BalanceCheckpoint checkpoint = BalanceCheckpoints.read(gateway, userId, month);
+            if (checkpoint != null && checkpoint.getBalancesMinor() != null) {
+                balances.putAll(checkpoint.getBalancesMinor());
+            }
+
+            if (repository.isLoaded()) {
+                TransactionColumns ledger = repository.getLedger();
+                synchronized (ledger) {
+                    long[] changes = ledger.netByAccount(fromMillis, atMillis);
+                    for (int account = 0; account < changes.length; account++) {
+                        String name = ledger.accountName(account);
+                        if (changes[account] != 0 && !name.isEmpty()) balances.merge(name, changes[account], Long::sum);
+                    }
+                }
+            } else {
+                streamTransactions(gateway, userId, fromMillis, atMillis, balances);
+            }
+            return balances;
+        });
+    }
+
+    private static void streamTransactions(FirestoreGateway gateway, String userId, long fromMillis, long toMillis,
+                                           Map<String, Long> balances) throws Exception {
+        Query firstPage = gateway.userCollection(userId, "transactions")
+                .whereGreaterThanOrEqualTo("date", new Date(fromMillis));
+        if (toMillis < Long.MAX_VALUE) { // Firestore rejects dates past the year 9999
+            firstPage = firstPage.whereLessThanOrEqualTo("date", new Date(toMillis));
+        }
+        firstPage = firstPage.orderBy("date").limit(PAGE_SIZE);
+        DocumentSnapshot lastDoc = null;
+        while (true) {
+            Query page = lastDoc == null ? firstPage : firstPage.startAfter(lastDoc);
+            List<DocumentSnapshot> docs = Tasks.await(gateway.get("BalanceReplay.transactions", page)).getDocuments();
+            for (DocumentSnapshot doc : docs) {
+                String account = doc.getString("accountName");
+                if (account == null || account.isEmpty()) continue;
+                long amount = MinorUnitMigration.readMinor(doc, "amount");
+                balances.merge(account, "Income".equals(doc.getString("type")) ? amount : -amount, Long::sum);
+            }
+            if (docs.size() < PAGE_SIZE) break;
+            lastDoc = docs.get(docs.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.viranya.fintrack.data;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.viranya.fintrack.ledger.Money;
+import com.viranya.fintrack.model.Budget;
+import com.viranya.fintrack.model.MonthlyRollup;
+import com.viranya.fintrack.model.Transaction;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Recomputes every budget's spent amount over the budget's own window and corrects the ones
+ * that have drifted, e.g. after a failed increment or two edits racing on different devices.
+ *
+ * The window of a monthly budget ({@link Budget#PERIOD_MONTHLY}) is the current month, so the
+ * first run in a new month is also what starts it over. A budget without a period keeps a running
+ * total from the moment it was created; budgets saved before that moment was recorded count
+ * from the first transaction.
+ *
+ * The totals come from the monthly rollup documents, which are written in the same batch as
+ * every transaction, so a run costs one read per budget and per month in the longest window.
+ * Only the month a running-total budget was created in needs its transactions, to leave out the
+ * expenses dated before the budget existed. The budget and rollup reads and the corrections
+ * happen in a single Firestore transaction: if an expense is saved meanwhile, the transaction
+ * retries instead of overwriting it.
+ */
+public final class BudgetReconciler {
+
+    private static final Executor EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private BudgetReconciler() {}
+
+    /**
+     * The months a budget's spent amount covers, and the expenses of its first month to leave out.
+     */
+    private static final class Window {
+        final DocumentReference ref;
+        final String category; // Budgets use their category as the ID
+        final YearMonth firstMonth;
+        final long createdMillis; // Long.MIN_VALUE if the whole first month counts
+        long excludedMinor = 0;
+
+        Window(DocumentReference ref, YearMonth firstMonth, long createdMillis) {
+            this.ref = ref;
+            this.category = ref.getId();
+            this.firstMonth = firstMonth;
+            this.createdMillis = createdMillis;
+        }
+    }
+
+    /**
+     * @return A task with the number of budgets that were corrected.
+     */
+    public static Task<Integer> reconcile(FirestoreGateway gateway, String userId) {
+        return Tasks.call(EXECUTOR, () -> reconcileNow(gateway, userId));
+    }
+
+    private static int reconcileNow(FirestoreGateway gateway, String userId) throws Exception {
+        QuerySnapshot budgets = Tasks.await(gateway.get("BudgetReconciler.budgets", gateway.userCollection(userId, "budgets")));
+        if (budgets.isEmpty()) return 0;
+
+        ZoneId zone = ZoneId.systemDefault();
+        YearMonth current = YearMonth.now(zone);
+        YearMonth firstRollupMonth = null;
+        List<Window> windows = new ArrayList<>();
+        for (DocumentSnapshot doc : budgets.getDocuments()) {
+            Date created = doc.getDate("createdAt");
+            if (Budget.PERIOD_MONTHLY.equals(doc.getString("period"))) {
+                windows.add(new Window(doc.getReference(), current, Long.MIN_VALUE));
+            } else if (created != null) {
+                YearMonth month = YearMonth.from(created.toInstant().atZone(zone));
+                windows.add(new Window(doc.getReference(), month.isAfter(current) ? current : month, created.getTime()));
+            } else {
+                if (firstRollupMonth == null) firstRollupMonth = firstRollupMonth(gateway, userId, current);
+                windows.add(new Window(doc.getReference(), firstRollupMonth, Long.MIN_VALUE));
+            }
+        }
+        excludeBeforeCreation(gateway, userId, windows, zone);
+
+        YearMonth earliest = current;
+        for (Window window : windows) {
+            if (window.firstMonth.isBefore(earliest)) earliest = window.firstMonth;
+        }
+        YearMonth from = earliest;
+
+        return Tasks.await(gateway.runTransaction("BudgetReconciler.reconcile", transaction -> {
+            // A transaction must do all of its reads before any write
+            Map<YearMonth, Map<String, Long>> spentByMonth = new HashMap<>();
+            for (YearMonth month = from; !month.isAfter(current); month = month.plusMonths(1)) {
+                Map<String, Long> spent = spentByCategory(transaction.get(
+                        Rollups.collection(gateway, userId).document(month.toString())));
+                if (spent == null) return 0;
+                spentByMonth.put(month, spent);
+            }
+
+            List<DocumentReference> drifted = new ArrayList<>();
+            List<Long> actualAmounts = new ArrayList<>();
+            for (Window window : windows) {
+                DocumentSnapshot budget = transaction.get(window.ref);
+                if (!budget.exists()) continue;
+                long actualMinor = -window.excludedMinor;
+                for (YearMonth month = window.firstMonth; !month.isAfter(current); month = month.plusMonths(1)) {
+                    Long spent = spentByMonth.get(month).get(window.category);
+                    if (spent != null) actualMinor += spent;
+                }
+                if (!budget.contains(Money.minorField("spentAmount"))
+                        || MinorUnitMigration.readIncremented(budget, "spentAmount") != actualMinor) {
+                    drifted.add(window.ref);
+                    actualAmounts.add(actualMinor);
+                }
+            }
+
+            for (int i = 0; i < drifted.size(); i++) {
+                long actualMinor = actualAmounts.get(i);
+                transaction.update(drifted.get(i), "spentAmount", Money.toMajor(actualMinor),
+                        Money.minorField("spentAmount"), actualMinor);
+            }
+            return drifted.size();
+        }));
+    }
+
+    /**
+     * @return The month of the user's first transaction, or the current month if there is none.
+     */
+    private static YearMonth firstRollupMonth(FirestoreGateway gateway, String userId, YearMonth current) throws Exception {
+        QuerySnapshot first = Tasks.await(gateway.get("BudgetReconciler.firstRollup",
+                Rollups.collection(gateway, userId).orderBy(FieldPath.documentId()).limit(1)));
+        if (first.isEmpty()) return current;
+        YearMonth month = YearMonth.parse(first.getDocuments().get(0).getId());
+        return month.isAfter(current) ? current : month;
+    }
+
+    /**
+     * Sums the expenses each running-total budget's first month holds from before the budget was
+     * created. Reads the transactions of each such month once, up to its latest creation time.
+     */
+    private static void excludeBeforeCreation(FirestoreGateway gateway, String userId, List<Window> windows,
+                                              ZoneId zone) throws Exception {
+        Map<YearMonth, Long> latestCreated = new HashMap<>();
+        for (Window window : windows) {
+            if (window.createdMillis != Long.MIN_VALUE) latestCreated.merge(window.firstMonth, window.createdMillis, Math::max);
+        }
+
+        for (Map.Entry<YearMonth, Long> month : latestCreated.entrySet()) {
+            Date monthStart = Date.from(month.getKey().atDay(1).atStartOfDay(zone).toInstant());
+            QuerySnapshot snapshot = Tasks.await(gateway.get("BudgetReconciler.beforeCreation",
+                    gateway.userCollection(userId, "transactions")
+                            .whereGreaterThanOrEqualTo("date", monthStart)
+                            .whereLessThan("date", Date.from(Instant.ofEpochMilli(month.getValue())))));
+            for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                Transaction transaction = doc.toObject(Transaction.class);
+                if (transaction == null || transaction.getDate() == null || !"Expense".equals(transaction.getType())) continue;
+                for (Window window : windows) {
+                    if (window.firstMonth.equals(month.getKey()) && window.category.equals(transaction.getCategory())
+                            && transaction.getDate().getTime() < window.createdMillis) {
+                        window.excludedMinor += transaction.getAmountMinor();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return A month's expense per category in minor units, or null if the rollup still
+     * has the totals of an older app version and cannot be trusted yet.
+     */
+    private static Map<String, Long> spentByCategory(DocumentSnapshot rollupDoc) {
+        if (!rollupDoc.exists()) return Collections.emptyMap(); // No expenses that month
+        if (!rollupDoc.contains("expenseMinor") && rollupDoc.contains("expense")) return null;
+        MonthlyRollup rollup = rollupDoc.toObject(MonthlyRollup.class);
+        return rollup == null || rollup.getCategoriesMinor() == null ? Collections.emptyMap() : rollup.getCategoriesMinor();
+    }
+}
@@ -0,0 +1,129 @@
+package com.viranya.fintrack.data;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deletes whole collections without loading them into memory at once.
+ * Each collection is paged by document id in chunks of {@link #PAGE_SIZE} (Firestore's batch limit),
+ * collections are deleted concurrently, and at most {@link #MAX_IN_FLIGHT_BATCHES} batch commits
+ * are outstanding at any time.
+ *
+ * A commit only completes once the server acknowledges it, which never happens offline, so the
+ * deletion fails with a {@link TimeoutException} when the server stops responding.
+ */
+public class BulkDeleter {
+
+    /**
+     * Receives the running total of deleted documents. Always called on the main thread.
+     */
+    public interface ProgressListener {
+        void onProgress(int deletedDocuments);
+    }
+
+    private static final int PAGE_SIZE = 500;
+    private static final int MAX_PARALLEL_COLLECTIONS = 3;
+    private static final int MAX_IN_FLIGHT_BATCHES = 4;
+    private static final long SERVER_TIMEOUT_SECONDS = 30;
+
+    private final FirestoreGateway gateway;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT_BATCHES);
+    private final AtomicInteger deleted = new AtomicInteger();
+
+    public BulkDeleter(FirestoreGateway gateway) {
+        this.gateway = gateway;
+    }
+
+    /**
+     * @return Every collection that holds a user's data, for deleting their account.
+     */
+    public static List<CollectionReference> userCollections(FirestoreGateway gateway, String userId) {
+        DocumentReference userRef = gateway.user(userId);
+        return Arrays.asList(
+                userRef.collection("transactions"),
+                userRef.collection("budgets"),
+                userRef.collection("saving_goals"),
+                userRef.collection("accounts"),
+                userRef.collection("categories"),
+                userRef.collection(Rollups.COLLECTION),
+                userRef.collection(BalanceCheckpoints.COLLECTION));
+    }
+
+    /**
+     * Deletes every document in the given collections.
+     * @return A task that completes, on the main thread, with the number of deleted documents.
+     */
+    public Task<Integer> deleteAll(List<CollectionReference> collections, ProgressListener listener) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(collections.size(), MAX_PARALLEL_COLLECTIONS));
+        List<Task<Void>> tasks = new ArrayList<>(collections.size());
+        for (CollectionReference collection : collections) {
+            tasks.add(Tasks.call(executor, () -> {
+                deleteCollection(collection, listener);
+                return null;
+            }));
+        }
+        return Tasks.whenAll(tasks).continueWith(task -> {
+            executor.shutdown();
+            if (!task.isSuccessful()) throw task.getException();
+            return deleted.get();
+        });
+    }
+
+    /**
+     * Pages through one collection on a worker thread. A page is fetched while earlier
+     * batches are still committing; the semaphore stops the pipeline from running ahead.
+     */
+    private void deleteCollection(CollectionReference collection, ProgressListener listener) throws Exception {
+        Query firstPage = collection.orderBy(FieldPath.documentId()).limit(PAGE_SIZE);
+        List<Task<Void>> commits = new ArrayList<>();
+        DocumentSnapshot lastDoc = null;
+
+        while (true) {
+            Query page = lastDoc == null ? firstPage : firstPage.startAfter(lastDoc);
+            QuerySnapshot snapshot = Tasks.await(gateway.get("BulkDeleter.page", page));
+            List<DocumentSnapshot> docs = snapshot.getDocuments();
+            if (docs.isEmpty()) break;
+
+            if (!inFlight.tryAcquire(SERVER_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new TimeoutException("No reply from the server while deleting " + collection.getPath());
+            }
+            WriteBatch batch = gateway.db().batch();
+            for (DocumentSnapshot doc : docs) {
+                batch.delete(doc.getReference());
+            }
+            int count = docs.size();
+            commits.add(gateway.commit("BulkDeleter.delete", batch).addOnCompleteListener(task -> {
+                inFlight.release();
+                if (task.isSuccessful()) {
+                    int total = deleted.addAndGet(count);
+                    mainHandler.post(() -> listener.onProgress(total));
+                }
+            }));
+
+            if (docs.size() < PAGE_SIZE) break;
+            lastDoc = docs.get(docs.size() - 1);
+        }
+        Tasks.await(Tasks.whenAll(commits), SERVER_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+}
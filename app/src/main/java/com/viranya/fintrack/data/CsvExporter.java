@@ -0,0 +1,85 @@
+package com.viranya.fintrack.data;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.viranya.fintrack.ledger.CsvWriter;
+
+import java.io.BufferedWriter;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Streams the transaction history to a CSV document, one page of documents at a time.
+ * Rows are written through a buffered writer as each page arrives, so memory use does not
+ * grow with the number of transactions, and all work happens off the main thread.
+ */
+public class CsvExporter {
+
+    private static final int PAGE_SIZE = 500;
+    private static final Executor EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private final ContentResolver contentResolver;
+    private final FirestoreGateway gateway;
+
+    public CsvExporter(ContentResolver contentResolver, FirestoreGateway gateway) {
+        this.contentResolver = contentResolver;
+        this.gateway = gateway;
+    }
+
+    /**
+     * Writes every transaction, newest first, to the given document.
+     * @return A task that completes on the main thread with the number of exported rows.
+     */
+    public Task<Integer> export(CollectionReference transactions, Uri uri) {
+        return Tasks.call(EXECUTOR, () -> {
+            OutputStream outputStream = contentResolver.openOutputStream(uri);
+            if (outputStream == null) throw new FileNotFoundException("Cannot open " + uri);
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
+                CsvWriter csv = new CsvWriter(writer, ZoneId.systemDefault());
+                csv.writeHeader();
+                return writePages(transactions, csv);
+            }
+        });
+    }
+
+    private int writePages(CollectionReference transactions, CsvWriter csv) throws Exception {
+        Query firstPage = transactions.orderBy("date", Query.Direction.DESCENDING).limit(PAGE_SIZE);
+        DocumentSnapshot lastDoc = null;
+        int rows = 0;
+
+        while (true) {
+            Query page = lastDoc == null ? firstPage : firstPage.startAfter(lastDoc);
+            QuerySnapshot snapshot = Tasks.await(gateway.get("CsvExporter.page", page));
+            List<DocumentSnapshot> docs = snapshot.getDocuments();
+            for (DocumentSnapshot doc : docs) {
+                writeRow(csv, doc);
+                rows++;
+            }
+            if (docs.size() < PAGE_SIZE) break;
+            lastDoc = docs.get(docs.size() - 1);
+        }
+        return rows;
+    }
+
+    private static void writeRow(CsvWriter csv, DocumentSnapshot doc) throws IOException {
+        Date date = doc.getDate("date");
+        csv.writeRow(date == null ? null : date.getTime(), doc.getString("type"), doc.getString("category"),
+                doc.getString("title"), MinorUnitMigration.readMinor(doc, "amount"));
+    }
+}
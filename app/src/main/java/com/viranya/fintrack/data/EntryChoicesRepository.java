@@ -0,0 +1,252 @@
+package com.viranya.fintrack.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.text.TextUtils;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.viranya.fintrack.fragment.ProfileFragment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The account names and categories offered when entering a transaction, kept in memory for the
+ * signed-in user by subscriptions to the accounts collection and the custom categories document.
+ * They go through {@link SnapshotListenerRegistry}, so they share the Firestore listeners other
+ * screens hold on the same data. The add-transaction screen binds its dropdowns from here in its
+ * first frame instead of querying Firestore each time it opens.
+ *
+ * Each list starts with the entries the user picked most recently, newest first; the rest follow
+ * alphabetically. The recent picks are kept in SharedPreferences, so the order survives restarts.
+ *
+ * All methods must be called on the main thread, and observers are notified there.
+ */
+public class EntryChoicesRepository {
+
+    private static final String TAG = "EntryChoicesRepository";
+
+    public static final List<String> DEFAULT_EXPENSE_CATEGORIES = Collections.unmodifiableList(Arrays.asList(
+            "Food", "Transport", "Housing", "Utilities", "Entertainment", "Shopping", "Health", "Savings", "Internal Transfer"));
+    public static final List<String> DEFAULT_INCOME_CATEGORIES = Collections.unmodifiableList(Arrays.asList(
+            "Salary", "Freelance", "Gift", "Initial Balance", "Other"));
+
+    private static final String RECENT_ACCOUNTS_PREFIX = "recentAccounts_";
+    private static final String RECENT_EXPENSE_PREFIX = "recentExpenseCategories_";
+    private static final String RECENT_INCOME_PREFIX = "recentIncomeCategories_";
+    private static final int MAX_RECENT = 5;
+
+    /**
+     * Callback for screens that display the choices. Always called on the main thread.
+     */
+    public interface Observer {
+        void onEntryChoicesChanged();
+    }
+
+    private static EntryChoicesRepository instance;
+
+    private final SharedPreferences preferences;
+    private final FirestoreGateway gateway;
+    private final SnapshotListenerRegistry registry;
+    private final List<Observer> observers = new ArrayList<>();
+    private ListenerRegistration accountsRegistration, categoriesRegistration;
+    private TaskCompletionSource<Void> accountsLoaded = new TaskCompletionSource<>();
+    private String userId;
+
+    // What Firestore holds, and the ordered lists built from it
+    private final Set<String> accounts = new HashSet<>();
+    private final List<String> customExpenseCategories = new ArrayList<>();
+    private final List<String> customIncomeCategories = new ArrayList<>();
+    private List<String> orderedAccounts = Collections.emptyList();
+    private List<String> orderedExpenseCategories = Collections.emptyList();
+    private List<String> orderedIncomeCategories = Collections.emptyList();
+
+    private EntryChoicesRepository(Context context) {
+        preferences = context.getSharedPreferences(ProfileFragment.APP_PREFERENCES, Context.MODE_PRIVATE);
+        gateway = FirestoreGateway.getInstance();
+        registry = SnapshotListenerRegistry.getInstance();
+    }
+
+    public static synchronized EntryChoicesRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new EntryChoicesRepository(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Starts listening to the given user's accounts and categories. Calling this again for the
+     * same user is a no-op, so it can be called both at sign-in and when a screen opens.
+     */
+    public void start(String userId) {
+        if (userId.equals(this.userId) && accountsRegistration != null) return;
+        stop();
+        this.userId = userId;
+        rebuild();
+
+        accountsRegistration = registry.subscribe("EntryChoicesRepository.accounts",
+                gateway.userCollection(userId, "accounts"), (value, e) -> {
+                    if (e != null) {
+                        Log.w(TAG, "Account listener failed.", e);
+                        accountsLoaded.trySetException(e); // Saving waits for this; let it go ahead
+                        return;
+                    }
+                    if (value == null) return;
+                    accounts.clear();
+                    for (QueryDocumentSnapshot doc : value) {
+                        accounts.add(doc.getId()); // The document ID is the account name
+                    }
+                    accountsLoaded.trySetResult(null);
+                    rebuild();
+                });
+        categoriesRegistration = registry.subscribe("EntryChoicesRepository.categories",
+                gateway.userCollection(userId, "categories").document("user_defined"), (doc, e) -> {
+                    if (e != null) {
+                        Log.w(TAG, "Category listener failed.", e);
+                        return;
+                    }
+                    customExpenseCategories.clear();
+                    customIncomeCategories.clear();
+                    if (doc != null && doc.exists()) {
+                        customExpenseCategories.addAll(readList(doc, "expense"));
+                        customIncomeCategories.addAll(readList(doc, "income"));
+                    }
+                    rebuild();
+                });
+    }
+
+    /**
+     * Detaches the listeners and drops the cached choices. Called when the user signs out.
+     * The recent picks stay in SharedPreferences for the next sign-in.
+     */
+    public void stop() {
+        if (accountsRegistration != null) {
+            accountsRegistration.remove();
+            accountsRegistration = null;
+        }
+        if (categoriesRegistration != null) {
+            categoriesRegistration.remove();
+            categoriesRegistration = null;
+        }
+        userId = null;
+        accountsLoaded = new TaskCompletionSource<>();
+        accounts.clear();
+        customExpenseCategories.clear();
+        customIncomeCategories.clear();
+        orderedAccounts = Collections.emptyList();
+        orderedExpenseCategories = Collections.emptyList();
+        orderedIncomeCategories = Collections.emptyList();
+    }
+
+    /**
+     * Registers an observer and delivers the current choices to it immediately.
+     */
+    public void addObserver(Observer observer) {
+        if (!observers.contains(observer)) {
+            observers.add(observer);
+        }
+        observer.onEntryChoicesChanged();
+    }
+
+    public void removeObserver(Observer observer) {
+        observers.remove(observer);
+    }
+
+    /**
+     * @return A task that completes once the account names reflect Firestore (or its cache),
+     * or fails if the account listener does.
+     */
+    public Task<Void> whenAccountsLoaded() { return accountsLoaded.getTask(); }
+
+    public boolean hasAccount(String accountName) { return accounts.contains(accountName); }
+
+    /**
+     * @return The account names, most recently used first.
+     */
+    public List<String> getAccountNames() { return orderedAccounts; }
+
+    /**
+     * @return The default and custom categories for "Income" or "Expense", most recently used first.
+     */
+    public List<String> getCategories(String type) {
+        return "Income".equals(type) ? orderedIncomeCategories : orderedExpenseCategories;
+    }
+
+    /**
+     * Moves the account and category of a transaction being saved to the front of their lists.
+     */
+    public void recordUse(String type, String accountName, String category) {
+        if (userId == null) return;
+        String categoryKey = ("Income".equals(type) ? RECENT_INCOME_PREFIX : RECENT_EXPENSE_PREFIX) + userId;
+        preferences.edit()
+                .putString(RECENT_ACCOUNTS_PREFIX + userId, pushRecent(RECENT_ACCOUNTS_PREFIX + userId, accountName))
+                .putString(categoryKey, pushRecent(categoryKey, category))
+                .apply();
+        rebuild();
+    }
+
+    // --- Internals ---
+
+    private void rebuild() {
+        orderedAccounts = order(accounts, RECENT_ACCOUNTS_PREFIX);
+        orderedExpenseCategories = order(merge(DEFAULT_EXPENSE_CATEGORIES, customExpenseCategories), RECENT_EXPENSE_PREFIX);
+        orderedIncomeCategories = order(merge(DEFAULT_INCOME_CATEGORIES, customIncomeCategories), RECENT_INCOME_PREFIX);
+        for (Observer observer : new ArrayList<>(observers)) {
+            observer.onEntryChoicesChanged();
+        }
+    }
+
+    private static Set<String> merge(List<String> defaults, List<String> custom) {
+        Set<String> merged = new HashSet<>(defaults);
+        merged.addAll(custom);
+        return merged;
+    }
+
+    /**
+     * Recent picks that still exist come first, newest first; the rest follow alphabetically.
+     */
+    private List<String> order(Set<String> available, String recentPrefix) {
+        Set<String> ordered = new LinkedHashSet<>();
+        if (userId != null) {
+            for (String recent : readRecent(recentPrefix + userId)) {
+                if (available.contains(recent)) ordered.add(recent);
+            }
+        }
+        ordered.addAll(new TreeSet<>(available));
+        return Collections.unmodifiableList(new ArrayList<>(ordered));
+    }
+
+    private String pushRecent(String key, String value) {
+        List<String> recent = readRecent(key);
+        recent.remove(value);
+        recent.add(0, value);
+        while (recent.size() > MAX_RECENT) {
+            recent.remove(recent.size() - 1);
+        }
+        return TextUtils.join("\n", recent);
+    }
+
+    private List<String> readRecent(String key) {
+        String stored = preferences.getString(key, "");
+        List<String> recent = new ArrayList<>();
+        if (!stored.isEmpty()) recent.addAll(Arrays.asList(stored.split("\n")));
+        return recent;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> readList(DocumentSnapshot doc, String field) {
+        Object value = doc.get(field);
+        return value instanceof List ? (List<String>) value : Collections.emptyList();
+    }
+}
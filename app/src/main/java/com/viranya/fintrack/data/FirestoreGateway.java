@@ -0,0 +1,270 @@
+package com.viranya.fintrack.data;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.EventListener;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.FirebaseFirestoreSettings;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.MetadataChanges;
+import com.google.firebase.firestore.PersistentCacheIndexManager;
+import com.google.firebase.firestore.PersistentCacheSettings;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.SnapshotMetadata;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+import com.viranya.fintrack.util.AppExecutors;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * The one way into Firestore: builds the per-user paths and issues every read, listener and write,
+ * recording each in {@link QueryMetrics} under the caller's call-site label.
+ *
+ * Results are delivered exactly as Firestore delivers them; the gateway only observes. Its own
+ * completion callbacks run on Firestore's thread, so latencies do not include main-thread queueing.
+ */
+public final class FirestoreGateway {
+
+    // Room for several years of a heavy user's ledger, rollups and checkpoints; Firestore's default is 100 MB
+    private static final long CACHE_SIZE_BYTES = 256L * 1024 * 1024;
+
+    private static final Executor DIRECT = Runnable::run;
+
+    private static FirestoreGateway instance;
+
+    private final FirebaseFirestore db;
+    private final QueryMetrics metrics = new QueryMetrics();
+
+    private FirestoreGateway() {
+        db = FirebaseFirestore.getInstance();
+        // Lets cache-only reads of large collections use indexes instead of scanning every document.
+        // Null when the cache is in memory, as in the load tests.
+        PersistentCacheIndexManager indexManager = db.getPersistentCacheIndexManager();
+        if (indexManager != null) {
+            indexManager.enableIndexAutoCreation();
+        }
+    }
+
+    /**
+     * Sizes the on-device cache. Must run before anything touches Firestore, which is why
+     * {@link com.viranya.fintrack.FinTrackApplication} calls it rather than the constructor.
+     */
+    public static void configureCache(FirebaseFirestore db) {
+        db.setFirestoreSettings(new FirebaseFirestoreSettings.Builder(db.getFirestoreSettings())
+                .setLocalCacheSettings(PersistentCacheSettings.newBuilder()
+                        .setSizeBytes(CACHE_SIZE_BYTES)
+                        .build())
+                .build());
+    }
+
+    public static synchronized FirestoreGateway getInstance() {
+        if (instance == null) {
+            instance = new FirestoreGateway();
+        }
+        return instance;
+    }
+
+    /**
+     * @return The underlying instance, for building references, batches and queries.
+     * Issue the operations themselves through the gateway.
+     */
+    public FirebaseFirestore db() { return db; }
+
+    public QueryMetrics getMetrics() { return metrics; }
+
+    // --- Paths ---
+
+    public DocumentReference user(String userId) {
+        return db.collection("users").document(userId);
+    }
+
+    public CollectionReference userCollection(String userId, String collection) {
+        return user(userId).collection(collection);
+    }
+
+    // --- One-Time Reads ---
+
+    public Task<QuerySnapshot> get(String site, Query query) {
+        return get(site, query, Source.DEFAULT);
+    }
+
+    public Task<QuerySnapshot> get(String site, Query query, Source source) {
+        long start = System.nanoTime();
+        return query.get(source).addOnCompleteListener(DIRECT, task -> {
+            metrics.recordCall(site, QueryMetrics.Kind.READ, System.nanoTime() - start, !task.isSuccessful());
+            if (task.isSuccessful()) {
+                QuerySnapshot snapshot = task.getResult();
+                metrics.recordSnapshot(site, QueryMetrics.Kind.READ, snapshot.size(),
+                        snapshot.getMetadata().isFromCache(), snapshot.getMetadata().hasPendingWrites());
+            }
+        });
+    }
+
+    public Task<DocumentSnapshot> get(String site, DocumentReference document) {
+        return get(site, document, Source.DEFAULT);
+    }
+
+    public Task<DocumentSnapshot> get(String site, DocumentReference document, Source source) {
+        long start = System.nanoTime();
+        return document.get(source).addOnCompleteListener(DIRECT, task -> {
+            metrics.recordCall(site, QueryMetrics.Kind.READ, System.nanoTime() - start, !task.isSuccessful());
+            if (task.isSuccessful()) {
+                DocumentSnapshot snapshot = task.getResult();
+                metrics.recordSnapshot(site, QueryMetrics.Kind.READ, snapshot.exists() ? 1 : 0,
+                        snapshot.getMetadata().isFromCache(), snapshot.getMetadata().hasPendingWrites());
+            }
+        });
+    }
+
+    // --- Stale-While-Revalidate Reads ---
+    // A default get() waits for the server whenever the device is online. These answer from the
+    // cache straight away and refresh it from the server in the background; the cache-only read is
+    // recorded under the site with a " (cache)" suffix.
+
+    /**
+     * Reads a query from the cache, falling back to a default read when the cache has nothing for
+     * it. After a cache hit the query is re-read from the server, which refreshes the cache for the
+     * next read and is handed to {@code onRevalidated} if given.
+     * An empty cached result counts as a miss, since the cache cannot tell "no documents" from "never read".
+     * @param onRevalidated Receives the server's result on the main thread, or null to only refresh the cache.
+     * @return A task completing with the first result: cached on a hit, otherwise the default read's.
+     */
+    public Task<QuerySnapshot> getCacheFirst(String site, Query query,
+                                             @Nullable OnSuccessListener<QuerySnapshot> onRevalidated) {
+        return get(site + " (cache)", query, Source.CACHE).continueWithTask(DIRECT, cached -> {
+            if (!cached.isSuccessful() || cached.getResult().isEmpty()) {
+                return get(site, query);
+            }
+            Task<QuerySnapshot> fresh = get(site, query, Source.SERVER);
+            if (onRevalidated != null) fresh.addOnSuccessListener(onRevalidated);
+            return cached;
+        });
+    }
+
+    /**
+     * Reads a document from the cache, falling back to a default read when it has never been read.
+     * A document the cache knows to be missing is a hit. Otherwise as
+     * {@link #getCacheFirst(String, Query, OnSuccessListener)}.
+     */
+    public Task<DocumentSnapshot> getCacheFirst(String site, DocumentReference document,
+                                                @Nullable OnSuccessListener<DocumentSnapshot> onRevalidated) {
+        return get(site + " (cache)", document, Source.CACHE).continueWithTask(DIRECT, cached -> {
+            if (!cached.isSuccessful()) {
+                return get(site, document);
+            }
+            Task<DocumentSnapshot> fresh = get(site, document, Source.SERVER);
+            if (onRevalidated != null) fresh.addOnSuccessListener(onRevalidated);
+            return cached;
+        });
+    }
+
+    // --- Snapshot Listeners ---
+
+    public ListenerRegistration listen(String site, Query query, EventListener<QuerySnapshot> listener) {
+        return listen(site, query, MetadataChanges.EXCLUDE, listener);
+    }
+
+    /**
+     * Attaches a query listener. Its latency is the time to the first snapshot; each event's
+     * documents are the changes it carries, which is what Firestore bills after the first one.
+     */
+    public ListenerRegistration listen(String site, Query query, MetadataChanges metadataChanges,
+                                       EventListener<QuerySnapshot> listener) {
+        long start = System.nanoTime();
+        boolean[] first = {true};
+        return query.addSnapshotListener(metadataChanges, (value, error) -> {
+            record(site, start, first, value == null ? 0 : value.getDocumentChanges().size(),
+                    value == null ? null : value.getMetadata(), error);
+            listener.onEvent(value, error);
+        });
+    }
+
+    public ListenerRegistration listen(String site, DocumentReference document, EventListener<DocumentSnapshot> listener) {
+        return listen(site, document, AppExecutors.mainThread(), listener);
+    }
+
+    /**
+     * Attaches a document listener whose events Firestore delivers on the given executor.
+     */
+    public ListenerRegistration listen(String site, DocumentReference document, Executor executor,
+                                       EventListener<DocumentSnapshot> listener) {
+        long start = System.nanoTime();
+        boolean[] first = {true};
+        return document.addSnapshotListener(executor, (value, error) -> {
+            record(site, start, first, value != null && value.exists() ? 1 : 0,
+                    value == null ? null : value.getMetadata(), error);
+            listener.onEvent(value, error);
+        });
+    }
+
+    // --- Writes ---
+    // A write task completes when the server acknowledges it; until then it counts as in flight.
+
+    public Task<Void> commit(String site, WriteBatch batch) {
+        return track(site, batch.commit());
+    }
+
+    public Task<Void> set(String site, DocumentReference document, Object data) {
+        return track(site, document.set(data));
+    }
+
+    public Task<Void> set(String site, DocumentReference document, Object data, SetOptions options) {
+        return track(site, document.set(data, options));
+    }
+
+    public Task<Void> update(String site, DocumentReference document, Map<String, Object> data) {
+        return track(site, document.update(data));
+    }
+
+    public Task<Void> update(String site, DocumentReference document, String field, @Nullable Object value,
+                             Object... moreFieldsAndValues) {
+        return track(site, document.update(field, value, moreFieldsAndValues));
+    }
+
+    public Task<Void> delete(String site, DocumentReference document) {
+        return track(site, document.delete());
+    }
+
+    /**
+     * Runs a transaction. Its latency includes any retries caused by contention.
+     */
+    public <T> Task<T> runTransaction(String site, Transaction.Function<T> function) {
+        return track(site, db.runTransaction(function));
+    }
+
+    // --- Internals ---
+
+    private <T> Task<T> track(String site, Task<T> write) {
+        long start = System.nanoTime();
+        metrics.writeStarted();
+        return write.addOnCompleteListener(DIRECT, task -> {
+            metrics.writeFinished();
+            metrics.recordCall(site, QueryMetrics.Kind.WRITE, System.nanoTime() - start, !task.isSuccessful());
+        });
+    }
+
+    private void record(String site, long start, boolean[] first, int documents,
+                        @Nullable SnapshotMetadata metadata,
+                        @Nullable FirebaseFirestoreException error) {
+        if (first[0]) {
+            first[0] = false;
+            metrics.recordCall(site, QueryMetrics.Kind.LISTEN, System.nanoTime() - start, error != null);
+        } else if (error != null) {
+            metrics.recordListenerError(site);
+        }
+        if (metadata != null) {
+            metrics.recordSnapshot(site, QueryMetrics.Kind.LISTEN, documents, metadata.isFromCache(), metadata.hasPendingWrites());
+        }
+    }
+}
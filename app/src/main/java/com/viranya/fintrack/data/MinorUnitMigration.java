@@ -0,0 +1,91 @@
+package com.viranya.fintrack.data;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.viranya.fintrack.ledger.Money;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adds the minor-unit fields (balanceMinor, spentAmountMinor, ...) to account, budget and
+ * saving goal documents written before they existed. Transactions need no migration: their
+ * amounts never change, so the model derives the minor units from the original field.
+ *
+ * An increment that lands before the migration creates the minor field holding only the
+ * increment, so a document's minor fields are recomputed from the major ones and only trusted
+ * once it carries {@link Money#MIGRATED_FIELD}. Each document is converted inside its own
+ * Firestore transaction, so an increment that lands while the migration runs cannot be lost
+ * between the read and the write.
+ */
+public final class MinorUnitMigration {
+
+    private MinorUnitMigration() {}
+
+    /**
+     * Migrates every document that is missing a minor-unit field. Safe to run more than once.
+     */
+    public static Task<Void> run(FirestoreGateway gateway, String userId) {
+        DocumentReference user = gateway.user(userId);
+        List<Task<Void>> tasks = new ArrayList<>();
+        tasks.add(migrate(gateway, user.collection("accounts"), "balance"));
+        tasks.add(migrate(gateway, user.collection("budgets"), "limitAmount", "spentAmount"));
+        tasks.add(migrate(gateway, user.collection("saving_goals"), "targetAmount", "savedAmount"));
+        return Tasks.whenAll(tasks);
+    }
+
+    /**
+     * Reads a money field that is never incremented, such as a transaction's amount, in minor
+     * units, falling back to the major-unit field on documents written before it existed.
+     */
+    public static long readMinor(DocumentSnapshot doc, String field) {
+        Long amountMinor = doc.getLong(Money.minorField(field));
+        if (amountMinor != null) return amountMinor;
+        Double amount = doc.getDouble(field);
+        return amount == null ? 0 : Money.toMinor(amount);
+    }
+
+    /**
+     * Reads a money field that is changed by increments (a balance, spent amount, ...) in minor
+     * units, using the minor-unit field only once the document has been migrated.
+     */
+    public static long readIncremented(DocumentSnapshot doc, String field) {
+        return Money.resolveMinor(isMigrated(doc), doc.getLong(Money.minorField(field)), doc.getDouble(field));
+    }
+
+    private static Task<Void> migrate(FirestoreGateway gateway, CollectionReference collection, String... fields) {
+        return gateway.get("MinorUnitMigration.scan", collection).continueWithTask(task -> {
+            List<Task<Void>> conversions = new ArrayList<>();
+            for (DocumentSnapshot doc : task.getResult().getDocuments()) {
+                if (!isMigrated(doc)) {
+                    conversions.add(convert(gateway, doc.getReference(), fields));
+                }
+            }
+            return Tasks.whenAll(conversions);
+        });
+    }
+
+    private static Task<Void> convert(FirestoreGateway gateway, DocumentReference ref, String... fields) {
+        return gateway.runTransaction("MinorUnitMigration.convert", transaction -> {
+            DocumentSnapshot doc = transaction.get(ref);
+            if (!doc.exists() || isMigrated(doc)) return null;
+            Map<String, Object> update = new HashMap<>();
+            for (String field : fields) {
+                // Ignore any minor field already there: it may hold only an early increment
+                update.put(Money.minorField(field), Money.resolveMinor(false, null, doc.getDouble(field)));
+            }
+            update.put(Money.MIGRATED_FIELD, true);
+            transaction.update(ref, update);
+            return null;
+        });
+    }
+
+    private static boolean isMigrated(DocumentSnapshot doc) {
+        return Boolean.TRUE.equals(doc.getBoolean(Money.MIGRATED_FIELD));
+    }
+}
@@ -0,0 +1,220 @@
+package com.viranya.fintrack.data;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-call-site statistics for every Firestore operation that goes through {@link FirestoreGateway}:
+ * latency, documents returned, how many results came from the on-device cache or still held
+ * unacknowledged local writes, and how many calls failed.
+ *
+ * A call site is a short label such as "TransactionsFragment.nextPage". Recording is a few
+ * counter updates under a lock, so it stays on in release builds.
+ */
+public final class QueryMetrics {
+
+    public enum Kind { READ, LISTEN, WRITE }
+
+    // Upper bounds of the latency histogram buckets, in milliseconds; the last bucket is open-ended
+    private static final long[] BUCKET_BOUNDS_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000};
+
+    private final Map<String, SiteStats> sites = new HashMap<>();
+    private long startedAtMillis = System.currentTimeMillis();
+    private int writesInFlight;
+    private int peakWritesInFlight;
+
+    QueryMetrics() {}
+
+    // --- Recording ---
+
+    /**
+     * Records a completed one-time read or the first event of a listener.
+     * @param latencyNanos The time from issuing the call to its result.
+     */
+    synchronized void recordCall(String site, Kind kind, long latencyNanos, boolean failed) {
+        SiteStats stats = statsFor(site, kind);
+        stats.calls++;
+        if (failed) stats.errors++;
+        stats.totalNanos += latencyNanos;
+        stats.maxNanos = Math.max(stats.maxNanos, latencyNanos);
+        stats.histogram[bucketOf(latencyNanos)]++;
+    }
+
+    /**
+     * Records one snapshot delivered to a read or listener.
+     * @param documents The documents read: all results for a one-time read, only the changes for a listener event.
+     */
+    synchronized void recordSnapshot(String site, Kind kind, int documents, boolean fromCache, boolean hasPendingWrites) {
+        SiteStats stats = statsFor(site, kind);
+        stats.snapshots++;
+        stats.documents += documents;
+        if (fromCache) stats.fromCache++;
+        if (hasPendingWrites) stats.pendingWrites++;
+    }
+
+    /**
+     * Records a listener failure. Listeners stop after an error, so this also ends its stream of events.
+     */
+    synchronized void recordListenerError(String site) {
+        statsFor(site, Kind.LISTEN).errors++;
+    }
+
+    synchronized void writeStarted() {
+        writesInFlight++;
+        peakWritesInFlight = Math.max(peakWritesInFlight, writesInFlight);
+    }
+
+    synchronized void writeFinished() {
+        writesInFlight--;
+    }
+
+    // --- Reporting ---
+
+    /**
+     * @return A copy of every call site's statistics, slowest (by total time spent) first.
+     */
+    public synchronized List<SiteStats> snapshot() {
+        List<SiteStats> result = new ArrayList<>(sites.size());
+        for (SiteStats stats : sites.values()) {
+            result.add(stats.copy());
+        }
+        result.sort((a, b) -> Long.compare(b.totalNanos, a.totalNanos));
+        return result;
+    }
+
+    /**
+     * @return The number of writes Firestore has accepted but the server has not acknowledged yet.
+     */
+    public synchronized int getWritesInFlight() { return writesInFlight; }
+
+    public synchronized int getPeakWritesInFlight() { return peakWritesInFlight; }
+
+    public synchronized long getStartedAtMillis() { return startedAtMillis; }
+
+    /**
+     * Forgets everything recorded so far. Writes still in flight keep being counted.
+     */
+    public synchronized void reset() {
+        sites.clear();
+        peakWritesInFlight = writesInFlight;
+        startedAtMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Writes every call site's statistics as CSV, preceded by comment lines describing the session.
+     */
+    public void dump(Writer writer) throws IOException {
+        List<SiteStats> stats;
+        long startedAt;
+        int inFlight, peak;
+        synchronized (this) {
+            stats = snapshot();
+            startedAt = startedAtMillis;
+            inFlight = writesInFlight;
+            peak = peakWritesInFlight;
+        }
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US);
+        writer.write("# Recorded from " + format.format(new Date(startedAt)) + " to " + format.format(new Date()) + "\n");
+        writer.write("# Writes awaiting acknowledgement: " + inFlight + " (peak " + peak + ")\n");
+        writer.write("site,kind,calls,errors,snapshots,documents,fromCache,pendingWrites,meanMs,p50Ms,p95Ms,maxMs\n");
+        for (SiteStats site : stats) {
+            writer.write(String.format(Locale.US, "%s,%s,%d,%d,%d,%d,%d,%d,%.1f,%d,%d,%.1f\n",
+                    site.site, site.kind, site.calls, site.errors, site.snapshots, site.documents,
+                    site.fromCache, site.pendingWrites, site.getMeanMillis(),
+                    site.getPercentileMillis(0.5), site.getPercentileMillis(0.95), site.getMaxMillis()));
+        }
+    }
+
+    private SiteStats statsFor(String site, Kind kind) {
+        String key = kind + " " + site;
+        SiteStats stats = sites.get(key);
+        if (stats == null) {
+            stats = new SiteStats(site, kind);
+            sites.put(key, stats);
+        }
+        return stats;
+    }
+
+    private static int bucketOf(long latencyNanos) {
+        long millis = latencyNanos / 1_000_000;
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            if (millis < BUCKET_BOUNDS_MS[i]) return i;
+        }
+        return BUCKET_BOUNDS_MS.length;
+    }
+
+    /**
+     * The statistics of one call site and kind of operation.
+     */
+    public static final class SiteStats {
+        private final String site;
+        private final Kind kind;
+        private long calls, errors, snapshots, documents, fromCache, pendingWrites;
+        private long totalNanos, maxNanos;
+        private long[] histogram = new long[BUCKET_BOUNDS_MS.length + 1];
+
+        private SiteStats(String site, Kind kind) {
+            this.site = site;
+            this.kind = kind;
+        }
+
+        private SiteStats copy() {
+            SiteStats copy = new SiteStats(site, kind);
+            copy.calls = calls;
+            copy.errors = errors;
+            copy.snapshots = snapshots;
+            copy.documents = documents;
+            copy.fromCache = fromCache;
+            copy.pendingWrites = pendingWrites;
+            copy.totalNanos = totalNanos;
+            copy.maxNanos = maxNanos;
+            copy.histogram = histogram.clone();
+            return copy;
+        }
+
+        public String getSite() { return site; }
+        public Kind getKind() { return kind; }
+        public long getCalls() { return calls; }
+        public long getErrors() { return errors; }
+        public long getSnapshots() { return snapshots; }
+        public long getDocuments() { return documents; }
+        public long getFromCache() { return fromCache; }
+        public long getPendingWrites() { return pendingWrites; }
+        public double getTotalMillis() { return totalNanos / 1e6; }
+        public double getMaxMillis() { return maxNanos / 1e6; }
+
+        public double getMeanMillis() {
+            return calls == 0 ? 0 : totalNanos / 1e6 / calls;
+        }
+
+        /**
+         * @return Failed calls per call. For listeners, errors after the first event count too.
+         */
+        public double getErrorRate() {
+            return calls == 0 ? 0 : (double) errors / calls;
+        }
+
+        /**
+         * @return The upper bound of the histogram bucket holding the given percentile, in milliseconds.
+         * Latencies past the last bound report the maximum instead.
+         */
+        public long getPercentileMillis(double percentile) {
+            long rank = (long) Math.ceil(percentile * calls);
+            long seen = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                seen += histogram[i];
+                if (seen >= rank && seen > 0) {
+                    return i < BUCKET_BOUNDS_MS.length ? BUCKET_BOUNDS_MS[i] : Math.round(getMaxMillis());
+                }
+            }
+            return 0;
+        }
+    }
+}
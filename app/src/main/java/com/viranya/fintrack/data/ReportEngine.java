@@ -0,0 +1,96 @@
+package com.viranya.fintrack.data;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.viranya.fintrack.ledger.ReportBuckets;
+import com.viranya.fintrack.ledger.ReportPeriod;
+import com.viranya.fintrack.ledger.TransactionColumns;
+import com.viranya.fintrack.model.MonthlyRollup;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Builds income and expense reports over any date range, picking the cheapest source:
+ *
+ * - Month, quarter and year buckets are summed from the monthly rollups: ten years is 120 small documents.
+ * - Day and week buckets are summed from the in-memory ledger's columns when it is loaded.
+ * - Otherwise the transactions in the range are streamed one page at a time and discarded
+ *   once counted, so memory use does not grow with the length of the range.
+ */
+public final class ReportEngine {
+
+    private static final int PAGE_SIZE = 500;
+    private static final Executor EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private ReportEngine() {}
+
+    /**
+     * @param from The first day of the report.
+     * @param to The last day of the report, inclusive.
+     * @return A task that completes on the main thread with the filled buckets.
+     */
+    public static Task<ReportBuckets> build(FirestoreGateway gateway, String userId, ReportPeriod period,
+                                            LocalDate from, LocalDate to) {
+        ZoneId zone = ZoneId.systemDefault();
+        TransactionRepository repository = TransactionRepository.getInstance();
+        return Tasks.call(EXECUTOR, () -> {
+            ReportBuckets buckets = new ReportBuckets(period, from, to, zone);
+            if (period.isMonthAligned()) {
+                addRollups(gateway, userId, buckets, to);
+            } else if (repository.isLoaded()) {
+                TransactionColumns ledger = repository.getLedger();
+                synchronized (ledger) {
+                    buckets.addAll(ledger);
+                }
+            } else {
+                streamTransactions(gateway, userId, buckets);
+            }
+            return buckets;
+        });
+    }
+
+    private static void addRollups(FirestoreGateway gateway, String userId, ReportBuckets buckets, LocalDate to)
+            throws Exception {
+        QuerySnapshot snapshot = Tasks.await(gateway.get("ReportEngine.rollups", Rollups.collection(gateway, userId)
+                .whereGreaterThanOrEqualTo(FieldPath.documentId(), YearMonth.from(buckets.getStart(0)).toString())
+                .whereLessThanOrEqualTo(FieldPath.documentId(), YearMonth.from(to).toString())));
+        for (DocumentSnapshot doc : snapshot.getDocuments()) {
+            MonthlyRollup rollup = doc.toObject(MonthlyRollup.class);
+            if (rollup == null) continue;
+            // The yearly report has always counted opening balances as income
+            buckets.addMonth(YearMonth.parse(doc.getId()),
+                    rollup.getIncomeMinor() + rollup.getInitialBalanceMinor(), rollup.getExpenseMinor());
+        }
+    }
+
+    private static void streamTransactions(FirestoreGateway gateway, String userId, ReportBuckets buckets) throws Exception {
+        Query firstPage = gateway.userCollection(userId, "transactions")
+                .whereGreaterThanOrEqualTo("date", new Date(buckets.getFromMillis()))
+                .whereLessThan("date", new Date(buckets.getEndMillis()))
+                .orderBy("date")
+                .limit(PAGE_SIZE);
+        DocumentSnapshot lastDoc = null;
+        while (true) {
+            Query page = lastDoc == null ? firstPage : firstPage.startAfter(lastDoc);
+            List<DocumentSnapshot> docs = Tasks.await(gateway.get("ReportEngine.transactions", page)).getDocuments();
+            for (DocumentSnapshot doc : docs) {
+                Date date = doc.getDate("date");
+                String type = doc.getString("type");
+                if (date == null || type == null) continue;
+                buckets.add(date.getTime(), "Income".equals(type), MinorUnitMigration.readMinor(doc, "amount"));
+            }
+            if (docs.size() < PAGE_SIZE) break;
+            lastDoc = docs.get(docs.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.viranya.fintrack.data;
+
+import android.content.Context;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+import com.viranya.fintrack.fragment.ProfileFragment;
+import com.viranya.fintrack.ledger.TransactionColumns;
+import com.viranya.fintrack.model.Transaction;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Maintains the monthly rollup documents (users/{uid}/rollups/{yyyy-MM}).
+ * Every write that adds, edits or deletes a transaction should call {@link #apply} on the
+ * same WriteBatch, so the totals change atomically with the ledger.
+ *
+ * Totals are stored as integer minor units (incomeMinor, expenseMinor, ...), so repeated
+ * increments never accumulate floating-point error.
+ */
+public final class Rollups {
+
+    public static final String COLLECTION = "rollups";
+    // Bumped whenever rollups gain fields (minor units, per-account totals), so existing users get their months rebuilt
+    public static final String BACKFILLED_PREFIX = "rollupsAccountsBackfilled_";
+    private static final int MAX_BATCH_WRITES = 450; // Firestore allows 500 operations per batch
+    // Called for every row during a rebuild, so each thread reuses one formatter
+    private static final ThreadLocal<SimpleDateFormat> MONTH_KEY_FORMAT =
+            ThreadLocal.withInitial(() -> new SimpleDateFormat("yyyy-MM", Locale.US));
+
+    private Rollups() {}
+
+    public static String monthKey(Date date) {
+        return MONTH_KEY_FORMAT.get().format(date);
+    }
+
+    /**
+     * @return True once this device has rebuilt the user's rollups, so their totals can be trusted.
+     */
+    public static boolean isBackfilled(Context context, String userId) {
+        return context.getSharedPreferences(ProfileFragment.APP_PREFERENCES, Context.MODE_PRIVATE)
+                .getBoolean(BACKFILLED_PREFIX + userId, false);
+    }
+
+    public static CollectionReference collection(FirestoreGateway gateway, String userId) {
+        return gateway.userCollection(userId, COLLECTION);
+    }
+
+    /**
+     * Adds (sign = 1) or reverses (sign = -1) a transaction's contribution to its month's rollup.
+     */
+    public static void apply(WriteBatch batch, FirestoreGateway gateway, String userId, Transaction transaction, int sign) {
+        Date date = transaction.getDate() != null ? transaction.getDate() : new Date();
+        DocumentReference ref = collection(gateway, userId).document(monthKey(date));
+        FieldValue delta = FieldValue.increment(sign * transaction.getAmountMinor());
+
+        Map<String, Object> update = new HashMap<>();
+        boolean income = "Income".equals(transaction.getType());
+        if (income) {
+            update.put("Initial Balance".equals(transaction.getCategory()) ? "initialBalanceMinor" : "incomeMinor", delta);
+        } else {
+            update.put("expenseMinor", delta);
+            Map<String, Object> categories = new HashMap<>();
+            categories.put(transaction.getCategory(), delta);
+            update.put("categoriesMinor", categories);
+        }
+        if (transaction.getAccountName() != null && !transaction.getAccountName().isEmpty()) {
+            Map<String, Object> accounts = new HashMap<>();
+            accounts.put(transaction.getAccountName(), FieldValue.increment((income ? sign : -sign) * transaction.getAmountMinor()));
+            update.put("accountsMinor", accounts);
+        }
+        batch.set(ref, update, SetOptions.merge());
+
+        // Balance checkpoints taken after this month no longer match the ledger
+        String month = monthKey(date);
+        if (month.compareTo(monthKey(new Date())) < 0) {
+            BalanceCheckpoints.markChanged(batch, gateway, userId, month);
+        }
+    }
+
+    /**
+     * Rebuilds every month's rollup from the in-memory ledger. Used once for users whose
+     * transactions were written before rollups existed, and again to replace the major-unit
+     * totals of older rollup documents; each month is overwritten, not merged. Months that
+     * have a rollup but no transactions left in the ledger are deleted.
+     */
+    public static Task<Void> rebuild(FirestoreGateway gateway, String userId, TransactionColumns ledger) {
+        Map<String, Map<String, Object>> months = new HashMap<>();
+        for (int row = 0; row < ledger.size(); row++) {
+            String key = monthKey(new Date(ledger.getDateMillis(row)));
+            Map<String, Object> month = months.get(key);
+            if (month == null) {
+                month = new HashMap<>();
+                month.put("incomeMinor", 0L);
+                month.put("initialBalanceMinor", 0L);
+                month.put("expenseMinor", 0L);
+                month.put("categoriesMinor", new HashMap<String, Long>());
+                month.put("accountsMinor", new HashMap<String, Long>());
+                months.put(key, month);
+            }
+            long amount = ledger.getAmountMinor(row);
+            boolean income = "Income".equals(ledger.getType(row));
+            if (!ledger.getAccount(row).isEmpty()) {
+                @SuppressWarnings("unchecked")
+                Map<String, Long> accounts = (Map<String, Long>) month.get("accountsMinor");
+                accounts.merge(ledger.getAccount(row), income ? amount : -amount, Long::sum);
+            }
+            if (income) {
+                String field = "Initial Balance".equals(ledger.getCategory(row)) ? "initialBalanceMinor" : "incomeMinor";
+                month.put(field, (Long) month.get(field) + amount);
+            } else {
+                month.put("expenseMinor", (Long) month.get("expenseMinor") + amount);
+                @SuppressWarnings("unchecked")
+                Map<String, Long> categories = (Map<String, Long>) month.get("categoriesMinor");
+                categories.merge(ledger.getCategory(row), amount, Long::sum);
+            }
+        }
+
+        return gateway.get("Rollups.rebuildExisting", collection(gateway, userId)).onSuccessTask(existing -> {
+            List<String> emptied = new ArrayList<>();
+            for (DocumentSnapshot doc : existing.getDocuments()) {
+                if (!months.containsKey(doc.getId())) emptied.add(doc.getId());
+            }
+
+            List<Task<Void>> commits = new ArrayList<>();
+            WriteBatch batch = gateway.db().batch();
+            int writes = 0;
+            List<String> changed = new ArrayList<>(months.keySet());
+            changed.addAll(emptied);
+            if (!changed.isEmpty()) {
+                // Every checkpoint is rebuilt from the new totals
+                BalanceCheckpoints.markChanged(batch, gateway, userId, Collections.min(changed));
+                writes++;
+            }
+            for (String key : changed) {
+                DocumentReference ref = collection(gateway, userId).document(key);
+                Map<String, Object> month = months.get(key);
+                if (month != null) {
+                    batch.set(ref, month);
+                } else {
+                    batch.delete(ref); // A missing rollup already reads as a month without transactions
+                }
+                if (++writes == MAX_BATCH_WRITES) {
+                    commits.add(gateway.commit("Rollups.rebuild", batch));
+                    batch = gateway.db().batch();
+                    writes = 0;
+                }
+            }
+            if (writes > 0) commits.add(gateway.commit("Rollups.rebuild", batch));
+            return Tasks.whenAll(commits);
+        });
+    }
+}
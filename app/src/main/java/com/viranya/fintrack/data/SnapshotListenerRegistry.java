@@ -0,0 +1,189 @@
+package com.viranya.fintrack.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.EventListener;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Owns every screen-level Firestore snapshot listener in the app.
+ *
+ * Screens that watch an equal Query or DocumentReference share one underlying listener;
+ * late subscribers immediately receive the last snapshot. The Firestore listener is removed
+ * as soon as its last subscriber leaves. The lifecycle-aware {@code observe} methods attach on
+ * ON_START and detach on ON_STOP, so no screen has to keep a ListenerRegistration itself.
+ *
+ * Each call names its call site for {@link QueryMetrics}; a shared listener is recorded under
+ * the site that attached it.
+ *
+ * All methods must be called on the main thread. Events are delivered there too, unless a
+ * subscription names an executor; subscriptions to the same document on different executors
+ * get separate listeners.
+ */
+public final class SnapshotListenerRegistry {
+
+    private static SnapshotListenerRegistry instance;
+
+    private final Map<Object, SharedListener<?>> listeners = new HashMap<>();
+    private final FirestoreGateway gateway;
+
+    private SnapshotListenerRegistry() {
+        gateway = FirestoreGateway.getInstance();
+    }
+
+    public static synchronized SnapshotListenerRegistry getInstance() {
+        if (instance == null) {
+            instance = new SnapshotListenerRegistry();
+        }
+        return instance;
+    }
+
+    // --- Lifecycle-Aware Subscriptions ---
+
+    /**
+     * Listens to a query while the owner is at least STARTED.
+     */
+    public void observe(LifecycleOwner owner, String site, Query query, EventListener<QuerySnapshot> listener) {
+        bind(owner, () -> subscribe(site, query, listener));
+    }
+
+    /**
+     * Listens to a document while the owner is at least STARTED.
+     */
+    public void observe(LifecycleOwner owner, String site, DocumentReference document,
+                        EventListener<DocumentSnapshot> listener) {
+        bind(owner, () -> subscribe(site, document, listener));
+    }
+
+    // --- Manual Subscriptions ---
+
+    /**
+     * Listens to a query until the returned registration is removed.
+     */
+    public ListenerRegistration subscribe(String site, Query query, EventListener<QuerySnapshot> listener) {
+        return subscribe(query, null, listener, shared -> gateway.listen(site, query, shared));
+    }
+
+    /**
+     * Listens to a document until the returned registration is removed.
+     */
+    public ListenerRegistration subscribe(String site, DocumentReference document, EventListener<DocumentSnapshot> listener) {
+        return subscribe(document, null, listener, shared -> gateway.listen(site, document, shared));
+    }
+
+    /**
+     * Listens to a document until the returned registration is removed, with events delivered on
+     * the given executor instead of the main thread.
+     */
+    public ListenerRegistration subscribe(String site, DocumentReference document, Executor executor,
+                                          EventListener<DocumentSnapshot> listener) {
+        return subscribe(Arrays.asList(document, executor), executor, listener,
+                shared -> gateway.listen(site, document, executor, shared));
+    }
+
+    // --- Diagnostics ---
+
+    /**
+     * @return The number of Firestore snapshot listeners currently attached.
+     */
+    public int getActiveListenerCount() {
+        return listeners.size();
+    }
+
+    /**
+     * @return The number of screen subscriptions served by those listeners.
+     */
+    public int getSubscriberCount() {
+        int count = 0;
+        for (SharedListener<?> shared : listeners.values()) {
+            count += shared.subscribers.size();
+        }
+        return count;
+    }
+
+    // --- Internals ---
+
+    private void bind(LifecycleOwner owner, Supplier<ListenerRegistration> attach) {
+        owner.getLifecycle().addObserver(new DefaultLifecycleObserver() {
+            private ListenerRegistration registration;
+
+            @Override
+            public void onStart(@NonNull LifecycleOwner source) {
+                if (registration == null) registration = attach.get();
+            }
+
+            @Override
+            public void onStop(@NonNull LifecycleOwner source) {
+                if (registration != null) {
+                    registration.remove();
+                    registration = null;
+                }
+            }
+
+            @Override
+            public void onDestroy(@NonNull LifecycleOwner source) {
+                source.getLifecycle().removeObserver(this);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ListenerRegistration subscribe(Object key, @Nullable Executor executor, EventListener<T> listener,
+                                               Function<EventListener<T>, ListenerRegistration> attach) {
+        SharedListener<T> shared = (SharedListener<T>) listeners.get(key);
+        if (shared == null) {
+            shared = new SharedListener<>();
+            listeners.put(key, shared);
+            shared.registration = attach.apply(shared);
+        } else if (shared.latest != null) {
+            T latest = shared.latest;
+            if (executor == null) listener.onEvent(latest, null);
+            else executor.execute(() -> listener.onEvent(latest, null));
+        }
+        shared.subscribers.add(listener);
+
+        SharedListener<T> subscribed = shared;
+        return () -> unsubscribe(key, subscribed, listener);
+    }
+
+    private <T> void unsubscribe(Object key, SharedListener<T> shared, EventListener<T> listener) {
+        if (!shared.subscribers.remove(listener) || !shared.subscribers.isEmpty()) return;
+        shared.registration.remove();
+        listeners.remove(key);
+    }
+
+    /**
+     * One Firestore listener fanned out to every subscriber of an equal query or document.
+     * Subscribers change on the main thread while events may arrive on another executor.
+     */
+    private static final class SharedListener<T> implements EventListener<T> {
+        final List<EventListener<T>> subscribers = new CopyOnWriteArrayList<>();
+        ListenerRegistration registration;
+        volatile T latest;
+
+        @Override
+        public void onEvent(@Nullable T value, @Nullable FirebaseFirestoreException error) {
+            if (error == null) latest = value;
+            for (EventListener<T> subscriber : subscribers) {
+                subscriber.onEvent(value, error);
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.viranya.fintrack.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.concurrent.futures.CallbackToFutureAdapter;
+import androidx.paging.ListenableFuturePagingSource;
+import androidx.paging.PagingState;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.viranya.fintrack.ledger.TransactionColumns;
+import com.viranya.fintrack.model.Transaction;
+import com.viranya.fintrack.util.AppExecutors;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pages the transaction history, newest first, out of the shared in-memory ledger that
+ * {@link TransactionRepository} already keeps, so paging costs no Firestore reads of its own.
+ * Keys are positions in the newest-first order. Only the rows of a page are materialized as
+ * Transaction objects, and that work runs on the background executor.
+ *
+ * Any change to the ledger, on any page, invalidates the source; the Pager then reloads around
+ * the row the user is looking at (see {@link #getRefreshKey}), so the scroll position is kept.
+ */
+public class TransactionPagingSource extends ListenableFuturePagingSource<Integer, Transaction> {
+
+    private final TransactionRepository repository;
+    private boolean attached = false; // The repository delivers the current ledger on registration; skip that call
+
+    private final TransactionRepository.Observer observer = ledger -> {
+        if (attached) invalidate();
+    };
+
+    public TransactionPagingSource(TransactionRepository repository) {
+        this.repository = repository;
+        // The repository must only be touched on the main thread
+        AppExecutors.mainThread().execute(() -> {
+            if (isInvalid()) return;
+            repository.addObserver(observer);
+            attached = true;
+        });
+        registerInvalidatedCallback(() -> {
+            AppExecutors.mainThread().execute(() -> repository.removeObserver(observer));
+            return kotlin.Unit.INSTANCE;
+        });
+    }
+
+    @NonNull
+    @Override
+    public ListenableFuture<LoadResult<Integer, Transaction>> loadFuture(@NonNull LoadParams<Integer> params) {
+        Integer key = params.getKey();
+        boolean prepend = params instanceof LoadParams.Prepend;
+        return CallbackToFutureAdapter.getFuture(completer -> {
+            AppExecutors.background().execute(() ->
+                    completer.set(load(key == null ? 0 : key, prepend, params.getLoadSize())));
+            return "TransactionPage";
+        });
+    }
+
+    /**
+     * Appends and refreshes load the rows from {@code key} on; prepends load the rows before it.
+     */
+    private LoadResult<Integer, Transaction> load(int key, boolean prepend, int loadSize) {
+        TransactionColumns ledger = repository.getLedger();
+        synchronized (ledger) {
+            int[] rows = ledger.rowsNewestFirst();
+            key = Math.min(key, rows.length); // The ledger may have shrunk since the key was handed out
+            int start = prepend ? Math.max(0, key - loadSize) : key;
+            int end = prepend ? key : Math.min(key + loadSize, rows.length);
+            List<Transaction> items = repository.toTransactions(Arrays.copyOfRange(rows, start, end));
+            return new LoadResult.Page<>(items, start > 0 ? start : null, end < rows.length ? end : null);
+        }
+    }
+
+    @Nullable
+    @Override
+    public Integer getRefreshKey(@NonNull PagingState<Integer, Transaction> state) {
+        // Start the reload half a page above the row in view, so it stays on screen
+        Integer anchor = state.getAnchorPosition();
+        return anchor == null ? null : Math.max(0, anchor - state.getConfig().initialLoadSize / 2);
+    }
+}
@@ -0,0 +1,131 @@
+package com.viranya.fintrack.data;
+
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.Query;
+import com.viranya.fintrack.ledger.TransactionFilter;
+import com.viranya.fintrack.model.Transaction;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Pushes a {@link TransactionFilter} down to Firestore for when the in-memory ledger is not
+ * loaded yet. The type, one category or account set and the date range become where clauses;
+ * everything else is applied to the results on the device.
+ *
+ * Combining an equality or "in" clause with the date range needs a composite index. If Firestore
+ * reports one is missing, the query shape is remembered and not pushed down again this session.
+ */
+public final class TransactionQueries {
+
+    private static final String TAG = "TransactionQueries";
+    private static final int MAX_IN_VALUES = 30; // Firestore's limit for a whereIn clause
+
+    private static final Set<String> shapesWithoutIndex = new HashSet<>();
+
+    private TransactionQueries() {}
+
+    /**
+     * @return True if the filter's query shape has not already failed for lack of an index.
+     */
+    public static synchronized boolean canPushDown(TransactionFilter filter) {
+        return !shapesWithoutIndex.contains(shapeOf(filter));
+    }
+
+    /**
+     * Runs the filter against Firestore and returns the matching transactions, newest first.
+     */
+    public static Task<List<Transaction>> fetch(FirestoreGateway gateway, CollectionReference transactions,
+                                                TransactionFilter filter) {
+        return gateway.get("TransactionQueries.fetch", toFirestoreQuery(transactions, filter)).continueWith(task -> {
+            if (!task.isSuccessful()) {
+                Exception e = task.getException();
+                if (e instanceof FirebaseFirestoreException
+                        && ((FirebaseFirestoreException) e).getCode() == FirebaseFirestoreException.Code.FAILED_PRECONDITION) {
+                    Log.w(TAG, "No index for filter shape " + shapeOf(filter) + "; filtering on the device instead.");
+                    synchronized (TransactionQueries.class) {
+                        shapesWithoutIndex.add(shapeOf(filter));
+                    }
+                }
+                throw e;
+            }
+            List<Transaction> result = new ArrayList<>();
+            for (DocumentSnapshot doc : task.getResult().getDocuments()) {
+                Transaction transaction = doc.toObject(Transaction.class);
+                if (transaction == null) continue;
+                transaction.setDocumentId(doc.getId());
+                if (matches(transaction, filter)) result.add(transaction);
+            }
+            return result;
+        });
+    }
+
+    static Query toFirestoreQuery(CollectionReference transactions, TransactionFilter filter) {
+        Query query = transactions;
+        if (filter.getType() != null) {
+            query = query.whereEqualTo("type", filter.getType());
+        }
+        // Only one disjunction is pushed down; the other set is checked on the device.
+        if (pushesCategories(filter)) {
+            query = query.whereIn("category", new ArrayList<>(filter.getCategories()));
+        } else if (pushesAccounts(filter)) {
+            query = query.whereIn("accountName", new ArrayList<>(filter.getAccounts()));
+        }
+        if (filter.getFromMillis() != Long.MIN_VALUE) {
+            query = query.whereGreaterThanOrEqualTo("date", new Date(filter.getFromMillis()));
+        }
+        if (filter.getToMillis() != Long.MAX_VALUE) {
+            query = query.whereLessThanOrEqualTo("date", new Date(filter.getToMillis()));
+        }
+        return query.orderBy("date", Query.Direction.DESCENDING);
+    }
+
+    /**
+     * Applies every criterion to a single transaction; used for the parts Firestore could not evaluate.
+     */
+    static boolean matches(Transaction transaction, TransactionFilter filter) {
+        if (filter.getType() != null && !filter.getType().equals(transaction.getType())) return false;
+        if (!filter.getCategories().isEmpty() && !filter.getCategories().contains(transaction.getCategory())) return false;
+        if (!filter.getAccounts().isEmpty() && !filter.getAccounts().contains(transaction.getAccountName())) return false;
+        if (transaction.getDate() != null) {
+            long date = transaction.getDate().getTime();
+            if (date < filter.getFromMillis() || date > filter.getToMillis()) return false;
+        }
+        long amount = transaction.getAmountMinor();
+        if (amount < filter.getMinAmountMinor() || amount > filter.getMaxAmountMinor()) return false;
+        String query = filter.getQuery();
+        return query.isEmpty()
+                || contains(transaction.getTitle(), query)
+                || contains(transaction.getCategory(), query)
+                || contains(transaction.getAccountName(), query);
+    }
+
+    private static boolean contains(String value, String lowercaseQuery) {
+        return value != null && value.toLowerCase().contains(lowercaseQuery);
+    }
+
+    private static boolean pushesCategories(TransactionFilter filter) {
+        return !filter.getCategories().isEmpty() && filter.getCategories().size() <= MAX_IN_VALUES;
+    }
+
+    private static boolean pushesAccounts(TransactionFilter filter) {
+        return !filter.getAccounts().isEmpty() && filter.getAccounts().size() <= MAX_IN_VALUES;
+    }
+
+    /**
+     * Describes which fields the pushed-down query constrains, which is what decides the index it needs.
+     */
+    private static String shapeOf(TransactionFilter filter) {
+        return (filter.getType() != null ? "type," : "")
+                + (pushesCategories(filter) ? "category," : pushesAccounts(filter) ? "accountName," : "")
+                + (filter.hasDateRange() ? "date" : "");
+    }
+}
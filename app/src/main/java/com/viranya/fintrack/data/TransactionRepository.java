@@ -0,0 +1,183 @@
+package com.viranya.fintrack.data;
+
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.MetadataChanges;
+import com.google.firebase.firestore.Query;
+import com.viranya.fintrack.ledger.TransactionColumns;
+import com.viranya.fintrack.model.Transaction;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A single, process-wide source of truth for the signed-in user's transactions.
+ * One snapshot listener keeps the ledger in memory, and Firestore's on-device cache
+ * backs it on disk, so every screen reads from here instead of querying the
+ * "transactions" collection again on each tab switch.
+ *
+ * The ledger is held in a {@link TransactionColumns} store; Transaction objects are only
+ * created for the rows a screen actually displays.
+ */
+public class TransactionRepository {
+
+    private static final String TAG = "TransactionRepository";
+
+    /**
+     * Callback for screens that display transaction data. Always called on the main thread.
+     */
+    public interface Observer {
+        void onTransactionsChanged(TransactionColumns ledger);
+
+        default void onTransactionsError(Exception e) {}
+    }
+
+    private static TransactionRepository instance;
+
+    private final FirestoreGateway gateway;
+    private final List<Observer> observers = new ArrayList<>();
+    private final TransactionColumns ledger = new TransactionColumns();
+    private ListenerRegistration registration;
+    private String userId;
+    private boolean loaded = false;
+    private boolean synced = false; // True once the ledger reflects the server, not just the local cache
+
+    private TransactionRepository() {
+        gateway = FirestoreGateway.getInstance();
+    }
+
+    public static synchronized TransactionRepository getInstance() {
+        if (instance == null) {
+            instance = new TransactionRepository();
+        }
+        return instance;
+    }
+
+    /**
+     * Starts listening to the given user's transactions. Calling this again for the
+     * same user is a no-op, so every screen can safely call it before observing.
+     */
+    public void start(String userId) {
+        if (userId.equals(this.userId) && registration != null) return;
+        stop();
+        this.userId = userId;
+
+        Query query = gateway.userCollection(userId, "transactions").orderBy("date", Query.Direction.DESCENDING);
+        registration = gateway.listen("TransactionRepository.ledger", query, MetadataChanges.INCLUDE, (value, e) -> {
+            if (e != null) {
+                Log.w(TAG, "Transaction listener failed.", e);
+                for (Observer observer : new ArrayList<>(observers)) {
+                    observer.onTransactionsError(e);
+                }
+                return;
+            }
+            if (value == null) return;
+
+            // Metadata events carry no document changes; they only tell us when the server has confirmed the data.
+            boolean wasSynced = synced;
+            synced = !value.getMetadata().isFromCache();
+            if (loaded && value.getDocumentChanges().isEmpty()) {
+                if (synced != wasSynced) notifyObservers();
+                return;
+            }
+
+            // Apply only what changed. The first snapshot reports every document as ADDED.
+            // The lock lets background readers (e.g. search) see a consistent ledger.
+            synchronized (ledger) {
+                for (DocumentChange change : value.getDocumentChanges()) {
+                    if (change.getType() == DocumentChange.Type.REMOVED) {
+                        ledger.remove(change.getDocument().getId());
+                    } else {
+                        putDocument(change.getDocument());
+                    }
+                }
+            }
+            loaded = true;
+            notifyObservers();
+        });
+    }
+
+    /**
+     * Detaches the listener and drops all cached data. Called when the user signs out.
+     */
+    public void stop() {
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+        userId = null;
+        loaded = false;
+        synced = false;
+        synchronized (ledger) {
+            ledger.clear();
+        }
+    }
+
+    /**
+     * Registers an observer. If data is already loaded it is delivered immediately.
+     */
+    public void addObserver(Observer observer) {
+        if (!observers.contains(observer)) {
+            observers.add(observer);
+        }
+        if (loaded) {
+            observer.onTransactionsChanged(ledger);
+        }
+    }
+
+    public void removeObserver(Observer observer) {
+        observers.remove(observer);
+    }
+
+    public boolean isLoaded() { return loaded; }
+
+    public boolean isSynced() { return synced; }
+
+    public TransactionColumns getLedger() { return ledger; }
+
+    /**
+     * @return All transactions, newest first.
+     */
+    public List<Transaction> getTransactions() {
+        return toTransactions(ledger.rowsNewestFirst());
+    }
+
+    /**
+     * Materializes the given ledger rows as Transaction objects, preserving their order.
+     */
+    public List<Transaction> toTransactions(int[] rows) {
+        List<Transaction> result = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            result.add(toTransaction(row));
+        }
+        return result;
+    }
+
+    public Transaction toTransaction(int row) {
+        Transaction transaction = new Transaction(ledger.getTitle(row), ledger.getCategory(row),
+                ledger.getAmountMinor(row), ledger.getType(row),
+                ledger.getAccount(row), new Date(ledger.getDateMillis(row)));
+        transaction.setDocumentId(ledger.getDocumentId(row));
+        return transaction;
+    }
+
+    /**
+     * Copies a transaction document straight into the columns, skipping the reflective toObject() mapping.
+     */
+    private void putDocument(DocumentSnapshot doc) {
+        Date date = doc.getDate("date");
+        if (date == null) date = new Date(); // Pending server timestamp
+        ledger.upsert(doc.getId(), doc.getString("title"), doc.getString("type"), doc.getString("category"),
+                doc.getString("accountName"), date.getTime(), MinorUnitMigration.readMinor(doc, "amount"));
+    }
+
+    private void notifyObservers() {
+        for (Observer observer : new ArrayList<>(observers)) {
+            observer.onTransactionsChanged(ledger);
+        }
+    }
+}
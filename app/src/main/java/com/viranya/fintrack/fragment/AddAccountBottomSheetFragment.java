@@ -15,8 +15,11 @@ import com.google.android.material.bottomsheet.BottomSheetDialogFragment;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
 import com.viranya.fintrack.R;
+import com.viranya.fintrack.data.FirestoreGateway;
+import com.viranya.fintrack.data.Rollups;
+import com.viranya.fintrack.ledger.Money;
 import com.viranya.fintrack.model.Account;
 import com.viranya.fintrack.model.Transaction;
 
@@ -29,7 +32,7 @@ public class AddAccountBottomSheetFragment extends BottomSheetDialogFragment {
     private Button btnSaveAccount;
 
     // --- Services ---
-    private FirebaseFirestore db;
+    private FirestoreGateway gateway;
     private FirebaseAuth mAuth;
 
     @Nullable
@@ -43,7 +46,7 @@ public class AddAccountBottomSheetFragment extends BottomSheetDialogFragment {
         super.onViewCreated(view, savedInstanceState);
 
         // Initialize Firebase services
-        db = FirebaseFirestore.getInstance();
+        gateway = FirestoreGateway.getInstance();
         mAuth = FirebaseAuth.getInstance();
 
         // Bind UI elements from the layout
@@ -74,23 +77,23 @@ public class AddAccountBottomSheetFragment extends BottomSheetDialogFragment {
             return;
         }
 
-        double initialBalance = 0;
+        long initialBalance = 0; // In minor units
         if (!TextUtils.isEmpty(balanceStr)) {
-            initialBalance = Double.parseDouble(balanceStr);
+            initialBalance = Money.parse(balanceStr);
         }
 
         String userId = currentUser.getUid();
 
         // Create a final copy for use in the background listener
-        final double finalInitialBalance = initialBalance;
+        final long finalInitialBalance = initialBalance;
 
         // Step 1: Create the new Account object
         Account newAccount = new Account(accountName, finalInitialBalance);
 
         // Save the account to the 'accounts' sub-collection
-        db.collection("users").document(userId).collection("accounts")
-                .document(accountName) // Use the name as a unique ID
-                .set(newAccount)
+        gateway.set("AddAccountBottomSheetFragment.saveAccount",
+                        gateway.userCollection(userId, "accounts").document(accountName), // Use the name as a unique ID
+                        newAccount)
                 .addOnSuccessListener(aVoid -> {
                     Toast.makeText(getContext(), "Account '" + accountName + "' created!", Toast.LENGTH_SHORT).show();
 
@@ -100,8 +103,10 @@ public class AddAccountBottomSheetFragment extends BottomSheetDialogFragment {
                         String title = "Initial Balance for " + accountName;
                         Transaction initialTransaction = new Transaction(title, "Initial Balance", finalInitialBalance, "Income", accountName, new Date());
 
-                        db.collection("users").document(userId).collection("transactions")
-                                .add(initialTransaction);
+                        WriteBatch batch = gateway.db().batch();
+                        batch.set(gateway.userCollection(userId, "transactions").document(), initialTransaction);
+                        Rollups.apply(batch, gateway, userId, initialTransaction, 1);
+                        gateway.commit("AddAccountBottomSheetFragment.initialBalance", batch);
                     }
 
                     // Close the bottom sheet on success
@@ -8,6 +8,7 @@ import android.view.ViewGroup;
 import android.widget.ArrayAdapter;
 import android.widget.AutoCompleteTextView;
 import android.widget.Button;
+import android.widget.CheckBox;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
@@ -17,17 +18,19 @@ import com.google.android.material.bottomsheet.BottomSheetDialogFragment;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
 import com.viranya.fintrack.R;
+import com.viranya.fintrack.data.FirestoreGateway;
+import com.viranya.fintrack.ledger.Money;
 import com.viranya.fintrack.model.Budget;
 
 public class AddBudgetBottomSheetFragment extends BottomSheetDialogFragment {
 
     private AutoCompleteTextView actCategory;
     private TextInputEditText etLimit;
+    private CheckBox cbMonthly;
     private Button btnAddBudget;
 
-    private FirebaseFirestore db;
+    private FirestoreGateway gateway;
     private FirebaseAuth mAuth;
 
     @Nullable
@@ -42,12 +45,13 @@ public class AddBudgetBottomSheetFragment extends BottomSheetDialogFragment {
         super.onViewCreated(view, savedInstanceState);
 
         // Initialize Firebase
-        db = FirebaseFirestore.getInstance();
+        gateway = FirestoreGateway.getInstance();
         mAuth = FirebaseAuth.getInstance();
 
         // Bind views
         actCategory = view.findViewById(R.id.act_budget_category);
         etLimit = view.findViewById(R.id.et_budget_limit);
+        cbMonthly = view.findViewById(R.id.cb_budget_monthly);
         btnAddBudget = view.findViewById(R.id.btn_add_budget);
 
         // Populate the category dropdown
@@ -78,22 +82,25 @@ public class AddBudgetBottomSheetFragment extends BottomSheetDialogFragment {
             actCategory.setError("Category cannot be empty.");
             return;
         }
-        if (TextUtils.isEmpty(limitStr) || Double.parseDouble(limitStr) <= 0) {
+        if (TextUtils.isEmpty(limitStr) || Money.parse(limitStr) <= 0) {
             etLimit.setError("Limit must be greater than zero.");
             return;
         }
 
-        double limitAmount = Double.parseDouble(limitStr);
+        long limitAmount = Money.parse(limitStr);
 
         // Create a new budget object
         Budget newBudget = new Budget(category, limitAmount, 0); // spentAmount is initially 0
+        if (cbMonthly.isChecked()) {
+            newBudget.setPeriod(Budget.PERIOD_MONTHLY);
+        }
 
         // Save to Firestore. We use the category name as the document ID
         // to prevent creating duplicate budgets for the same category.
         String userId = currentUser.getUid();
-        db.collection("users").document(userId).collection("budgets")
-                .document(category) // Using category as the ID
-                .set(newBudget)
+        gateway.set("AddBudgetBottomSheetFragment.saveBudget",
+                        gateway.userCollection(userId, "budgets").document(category), // Using category as the ID
+                        newBudget)
                 .addOnSuccessListener(aVoid -> {
                     Toast.makeText(getContext(), "Budget for " + category + " saved!", Toast.LENGTH_SHORT).show();
                     dismiss(); // Close the bottom sheet on success
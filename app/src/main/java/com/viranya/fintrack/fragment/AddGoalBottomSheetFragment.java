@@ -15,8 +15,9 @@ import com.google.android.material.bottomsheet.BottomSheetDialogFragment;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
 import com.viranya.fintrack.R;
+import com.viranya.fintrack.data.FirestoreGateway;
+import com.viranya.fintrack.ledger.Money;
 import com.viranya.fintrack.model.SavingGoal;
 
 public class AddGoalBottomSheetFragment extends BottomSheetDialogFragment {
@@ -24,7 +25,7 @@ public class AddGoalBottomSheetFragment extends BottomSheetDialogFragment {
     private TextInputEditText etGoalName, etTargetAmount;
     private Button btnSaveGoal;
 
-    private FirebaseFirestore db;
+    private FirestoreGateway gateway;
     private FirebaseAuth mAuth;
 
     @Nullable
@@ -37,7 +38,7 @@ public class AddGoalBottomSheetFragment extends BottomSheetDialogFragment {
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
 
-        db = FirebaseFirestore.getInstance();
+        gateway = FirestoreGateway.getInstance();
         mAuth = FirebaseAuth.getInstance();
 
         etGoalName = view.findViewById(R.id.et_goal_name);
@@ -61,21 +62,19 @@ public class AddGoalBottomSheetFragment extends BottomSheetDialogFragment {
             etGoalName.setError("Goal name cannot be empty.");
             return;
         }
-        if (TextUtils.isEmpty(targetAmountStr) || Double.parseDouble(targetAmountStr) <= 0) {
+        if (TextUtils.isEmpty(targetAmountStr) || Money.parse(targetAmountStr) <= 0) {
             etTargetAmount.setError("Target amount must be greater than zero.");
             return;
         }
 
-        double targetAmount = Double.parseDouble(targetAmountStr);
+        long targetAmount = Money.parse(targetAmountStr);
 
         // Create new SavingGoal object
         SavingGoal newGoal = new SavingGoal(goalName, targetAmount, 0); // savedAmount is initially 0
 
         // Save to Firestore using the goal name as the document ID
         String userId = currentUser.getUid();
-        db.collection("users").document(userId).collection("saving_goals")
-                .document(goalName)
-                .set(newGoal)
+        gateway.set("AddGoalBottomSheetFragment.saveGoal", gateway.userCollection(userId, "saving_goals").document(goalName), newGoal)
                 .addOnSuccessListener(aVoid -> {
                     Toast.makeText(getContext(), "Savings goal created!", Toast.LENGTH_SHORT).show();
                     dismiss(); // Close the bottom sheet
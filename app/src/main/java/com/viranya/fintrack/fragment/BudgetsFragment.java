@@ -4,39 +4,45 @@ import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.Button;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
 
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 import com.viranya.fintrack.R;
 import com.viranya.fintrack.adapter.BudgetAdapter;
 import com.viranya.fintrack.model.Budget;
+import com.viranya.fintrack.viewmodel.LedgerViewModel;
+import com.viranya.fintrack.work.BudgetReconcileWorker;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 public class BudgetsFragment extends Fragment {
 
     // --- UI Elements ---
     private RecyclerView recyclerView;
     private FloatingActionButton fab;
+    private Button reconcileButton;
     private TextView emptyTextView;
 
     // --- Firebase & Adapter ---
     private BudgetAdapter adapter;
     private List<Budget> budgetList;
-    private FirebaseFirestore db;
     private FirebaseAuth mAuth;
+    private LedgerViewModel viewModel;
 
     @Nullable
     @Override
@@ -44,13 +50,14 @@ public class BudgetsFragment extends Fragment {
         View view = inflater.inflate(R.layout.fragment_budgets, container, false);
 
         // --- Initialize Firebase ---
-        db = FirebaseFirestore.getInstance();
         mAuth = FirebaseAuth.getInstance();
+        viewModel = new ViewModelProvider(requireActivity()).get(LedgerViewModel.class);
 
         // --- Bind UI Elements ---
         recyclerView = view.findViewById(R.id.rv_budgets);
         fab = view.findViewById(R.id.fab_add_budget);
         emptyTextView = view.findViewById(R.id.tv_empty_budgets);
+        reconcileButton = view.findViewById(R.id.btn_reconcile_budgets);
 
         // --- Setup RecyclerView ---
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
@@ -64,35 +71,52 @@ public class BudgetsFragment extends Fragment {
             AddBudgetBottomSheetFragment bottomSheet = new AddBudgetBottomSheetFragment();
             bottomSheet.show(getParentFragmentManager(), "AddBudgetBottomSheet");
         });
+        reconcileButton.setOnClickListener(v -> reconcileBudgets());
 
+        return view;
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
         // --- Fetch Data ---
         fetchBudgets();
-
-        return view;
     }
 
     /**
-     * Fetches budgets from Firestore and listens for real-time updates.
+     * Observes the shared budgets list, which the activity-scoped ViewModel keeps up to date in real time.
      */
     private void fetchBudgets() {
         FirebaseUser currentUser = mAuth.getCurrentUser();
         if (currentUser == null) return;
-        String userId = currentUser.getUid();
 
-        db.collection("users").document(userId).collection("budgets")
-                .addSnapshotListener((value, error) -> {
-                    if (error != null) {
-                        Toast.makeText(getContext(), "Error fetching budgets.", Toast.LENGTH_SHORT).show();
-                        return;
-                    }
+        viewModel.start(currentUser.getUid());
+        viewModel.getBudgets().observe(getViewLifecycleOwner(), budgets -> {
+            budgetList.clear();
+            budgetList.addAll(budgets);
+            adapter.notifyDataSetChanged();
+            checkIfEmpty();
+        });
+    }
 
-                    budgetList.clear();
-                    for (QueryDocumentSnapshot doc : value) {
-                        Budget budget = doc.toObject(Budget.class);
-                        budgetList.add(budget);
+    /**
+     * Recomputes this month's spending of every budget in the background and reports how many were wrong.
+     * The list itself updates through the budgets listener.
+     */
+    private void reconcileBudgets() {
+        reconcileButton.setEnabled(false);
+        UUID requestId = BudgetReconcileWorker.runNow(requireContext());
+        WorkManager.getInstance(requireContext()).getWorkInfoByIdLiveData(requestId)
+                .observe(getViewLifecycleOwner(), info -> {
+                    if (info == null || !info.getState().isFinished()) return;
+                    reconcileButton.setEnabled(true);
+                    if (info.getState() == WorkInfo.State.SUCCEEDED) {
+                        int corrected = info.getOutputData().getInt(BudgetReconcileWorker.KEY_CORRECTED, 0);
+                        Toast.makeText(getContext(), corrected == 0 ? "All budgets are up to date."
+                                : corrected + " budget(s) corrected.", Toast.LENGTH_SHORT).show();
+                    } else {
+                        Toast.makeText(getContext(), "Could not recalculate budgets.", Toast.LENGTH_SHORT).show();
                     }
-                    adapter.notifyDataSetChanged();
-                    checkIfEmpty();
                 });
     }
 
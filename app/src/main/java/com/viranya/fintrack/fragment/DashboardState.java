@@ -0,0 +1,61 @@
+package com.viranya.fintrack.fragment;
+
+import com.github.mikephil.charting.data.PieEntry;
+import com.viranya.fintrack.ledger.ChartReduction;
+import com.viranya.fintrack.ledger.Money;
+import com.viranya.fintrack.model.MonthlyRollup;
+import com.viranya.fintrack.util.Formatters;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything the dashboard displays, computed on a background thread.
+ * Instances are never modified after {@link #build} returns, so they can be handed to the main thread as-is.
+ * Chart values are plain entries, so the fragment can update its existing data sets in place.
+ */
+final class DashboardState {
+
+    static final int MAX_PIE_SLICES = 6; // Smaller categories are grouped into "Other"
+
+    final String totalBalanceText;
+    final String monthlyIncomeText;
+    final String monthlyExpenseText;
+    final List<PieEntry> expenseSlices; // Empty when there are no expenses this month
+    final float monthlyIncome;
+    final float monthlyExpense;
+
+    private DashboardState(String totalBalanceText, String monthlyIncomeText, String monthlyExpenseText,
+                           List<PieEntry> expenseSlices, float monthlyIncome, float monthlyExpense) {
+        this.totalBalanceText = totalBalanceText;
+        this.monthlyIncomeText = monthlyIncomeText;
+        this.monthlyExpenseText = monthlyExpenseText;
+        this.expenseSlices = expenseSlices;
+        this.monthlyIncome = monthlyIncome;
+        this.monthlyExpense = monthlyExpense;
+    }
+
+    /**
+     * Aggregates the account balances and this month's rollup into chart data and display strings.
+     * All arithmetic is done in minor units; values are only converted for display.
+     * @param accountBalanceSum The sum of all account balances, in minor units.
+     */
+    static DashboardState build(long accountBalanceSum, MonthlyRollup rollup) {
+        long monthlyIncome = rollup.getIncomeMinor(); // "Initial Balance" is tracked separately and not counted here
+        long monthlyExpense = rollup.getExpenseMinor();
+        // Final Total = (Sum of All Account Balances) - (This Month's Expense)
+        long totalBalance = accountBalanceSum - monthlyExpense;
+
+        Map<String, Long> slices = ChartReduction.topN(rollup.getCategoriesMinor(), MAX_PIE_SLICES, "Other");
+        List<PieEntry> pieEntries = new ArrayList<>(slices.size());
+        for (Map.Entry<String, Long> slice : slices.entrySet()) {
+            pieEntries.add(new PieEntry((float) Money.toMajor(slice.getValue()), slice.getKey()));
+        }
+
+        return new DashboardState(Formatters.currency(totalBalance), Formatters.currency(monthlyIncome),
+                Formatters.currency(monthlyExpense), Collections.unmodifiableList(pieEntries),
+                (float) Money.toMajor(monthlyIncome), (float) Money.toMajor(monthlyExpense));
+    }
+}
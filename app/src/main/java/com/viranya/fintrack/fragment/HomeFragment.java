@@ -1,19 +1,19 @@
 package com.viranya.fintrack.fragment;
 
+import android.app.DatePickerDialog;
 import android.content.Intent;
 import android.graphics.Color;
 import android.os.Bundle;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
-import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -31,42 +31,51 @@ import com.github.mikephil.charting.utils.ColorTemplate;
 import com.google.android.material.card.MaterialCardView;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.Query;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
 import com.viranya.fintrack.R;
 import com.viranya.fintrack.SavingsGoalsActivity;
 import com.viranya.fintrack.adapter.TransactionAdapter;
-import com.viranya.fintrack.model.Transaction;
+import com.viranya.fintrack.data.BalanceReplay;
+import com.viranya.fintrack.data.FirestoreGateway;
+import com.viranya.fintrack.data.Rollups;
+import com.viranya.fintrack.data.SnapshotListenerRegistry;
+import com.viranya.fintrack.data.TransactionRepository;
+import com.viranya.fintrack.ledger.TransactionColumns;
+import com.viranya.fintrack.model.Account;
+import com.viranya.fintrack.model.MonthlyRollup;
+import com.viranya.fintrack.util.AppExecutors;
+import com.viranya.fintrack.util.Formatters;
+import com.viranya.fintrack.viewmodel.LedgerViewModel;
 
-import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.Executor;
 
 public class HomeFragment extends Fragment {
 
     // --- UI Elements ---
-    private TextView tvTotalBalance, tvMonthlyIncome, tvMonthlyExpense;
+    private TextView tvTotalBalance, tvMonthlyIncome, tvMonthlyExpense, tvBalanceOnDate;
     private PieChart pieChart;
     private BarChart barChart;
     private RecyclerView rvRecentTransactions;
 
     // --- Firebase & Data ---
-    private FirebaseFirestore db;
+    private FirestoreGateway gateway;
     private FirebaseAuth mAuth;
     private TransactionAdapter recentTransactionsAdapter;
-    private final List<Transaction> recentTransactionList = new ArrayList<>();
+    private ListenerRegistration rollupRegistration;
+    private String userId;
 
-    // --- Data Holders for Asynchronous Calculation ---
-    private final AtomicReference<Double> totalAccountBalance = new AtomicReference<>(0.0);
-    private final AtomicReference<Double> currentMonthIncome = new AtomicReference<>(0.0);
-    private final AtomicReference<Double> currentMonthExpense = new AtomicReference<>(0.0);
+    // --- Background Aggregation ---
+    // Aggregation runs on this serial executor; the fields below are only touched there.
+    private final Executor background = AppExecutors.background();
+    private long accountBalanceSum = 0; // Minor units
+    private MonthlyRollup monthlyRollup = new MonthlyRollup();
+
+    private LedgerViewModel viewModel;
 
 
     @Nullable
@@ -79,158 +88,170 @@ public class HomeFragment extends Fragment {
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
 
-        db = FirebaseFirestore.getInstance();
+        gateway = FirestoreGateway.getInstance();
         mAuth = FirebaseAuth.getInstance();
+        viewModel = new ViewModelProvider(requireActivity()).get(LedgerViewModel.class);
 
         tvTotalBalance = view.findViewById(R.id.tv_total_balance);
         tvMonthlyIncome = view.findViewById(R.id.tv_monthly_income);
         tvMonthlyExpense = view.findViewById(R.id.tv_monthly_expense);
+        tvBalanceOnDate = view.findViewById(R.id.tv_balance_on_date);
         pieChart = view.findViewById(R.id.pie_chart);
         barChart = view.findViewById(R.id.bar_chart);
         rvRecentTransactions = view.findViewById(R.id.rv_recent_transactions);
         MaterialCardView savingsCard = view.findViewById(R.id.card_savings_goals);
+        MaterialCardView balanceCard = view.findViewById(R.id.card_total_balance);
 
         setupRecentTransactionsList();
+        setupCharts();
         savingsCard.setOnClickListener(v -> startActivity(new Intent(requireActivity(), SavingsGoalsActivity.class)));
+        balanceCard.setOnClickListener(v -> pickBalanceDate());
 
         fetchDashboardData();
     }
 
     private void setupRecentTransactionsList() {
         rvRecentTransactions.setLayoutManager(new LinearLayoutManager(getContext()));
-        recentTransactionsAdapter = new TransactionAdapter(recentTransactionList, getContext(), null);
+        recentTransactionsAdapter = new TransactionAdapter(getContext(), null);
         rvRecentTransactions.setAdapter(recentTransactionsAdapter);
     }
 
     private void fetchDashboardData() {
         FirebaseUser currentUser = mAuth.getCurrentUser();
         if (currentUser == null) return;
-        String userId = currentUser.getUid();
-
-        // Listener 1: Get the sum of all account balances
-        db.collection("users").document(userId).collection("accounts")
-                .addSnapshotListener((value, error) -> {
-                    if (getContext() == null || error != null) return;
-
-                    double balanceSum = 0;
-                    for (QueryDocumentSnapshot doc : value) {
-                        if (doc.contains("balance")) {
-                            balanceSum += doc.getDouble("balance");
-                        }
-                    }
-                    totalAccountBalance.set(balanceSum);
-                    updateTotalBalance();
-                });
+        userId = currentUser.getUid();
 
-        // Calculate start and end of the current month
-        Calendar calendar = Calendar.getInstance();
-        calendar.set(Calendar.DAY_OF_MONTH, 1);
-        Date startOfMonth = calendar.getTime();
-        calendar.set(Calendar.DAY_OF_MONTH, calendar.getActualMaximum(Calendar.DAY_OF_MONTH));
-        Date endOfMonth = calendar.getTime();
-
-        // Listener 2: Get all stats for the current month
-        db.collection("users").document(userId).collection("transactions")
-                .whereGreaterThanOrEqualTo("date", startOfMonth)
-                .whereLessThanOrEqualTo("date", endOfMonth)
-                .addSnapshotListener((value, error) -> {
-                    if (getContext() == null || error != null) return;
-
-                    double monthlyIncome = 0;
-                    double monthlyExpense = 0;
-                    Map<String, Double> expenseByCategory = new HashMap<>();
-
-                    for (QueryDocumentSnapshot doc : value) {
-                        Transaction transaction = doc.toObject(Transaction.class);
-                        if ("Income".equals(transaction.getType())) {
-                            // --- THIS IS THE FIX ---
-                            // We only add to monthly income if the category is NOT "Initial Balance".
-                            if (!"Initial Balance".equals(transaction.getCategory())) {
-                                monthlyIncome += transaction.getAmount();
-                            }
-                        } else {
-                            monthlyExpense += transaction.getAmount();
-                            String category = transaction.getCategory();
-                            expenseByCategory.put(category, expenseByCategory.getOrDefault(category, 0.0) + transaction.getAmount());
-                        }
-                    }
+        viewModel.start(userId);
 
-                    NumberFormat format = NumberFormat.getCurrencyInstance(new Locale("si", "LK"));
-                    tvMonthlyIncome.setText(format.format(monthlyIncome));
-                    tvMonthlyExpense.setText(format.format(monthlyExpense));
+        // Source 1: Get the sum of all account balances from the shared accounts list
+        viewModel.getAccounts().observe(getViewLifecycleOwner(), accounts -> background.execute(() -> {
+            long balanceSum = 0;
+            for (Account account : accounts) {
+                balanceSum += account.getBalanceMinor();
+            }
+            accountBalanceSum = balanceSum;
+            publishState();
+        }));
 
-                    currentMonthIncome.set(monthlyIncome);
-                    currentMonthExpense.set(monthlyExpense);
-                    updateTotalBalance();
+        // Source 2: This month's stats come from a single pre-computed rollup document,
+        // subscribed in onStart so a new month picks up its own document.
 
-                    setupPieChart(expenseByCategory);
-                    setupBarChart(monthlyIncome, monthlyExpense);
-                });
+        // Source 3: The recent transactions list comes from the shared ledger.
+        viewModel.getLedger().observe(getViewLifecycleOwner(), this::onTransactionsChanged);
+    }
 
-        // --- Listener 3: Fetches the 5 most recent transactions for the list. ---
-        db.collection("users").document(userId).collection("transactions")
-                .orderBy("date", Query.Direction.DESCENDING)
-                .limit(5)
-                .addSnapshotListener((value, error) -> {
-                    if (getContext() == null || error != null) return; // Safety check
-                    recentTransactionList.clear();
-                    for (QueryDocumentSnapshot doc : value) {
-                        recentTransactionList.add(doc.toObject(Transaction.class));
-                    }
-                    // Notify the adapter that the recent transactions list has changed.
-                    recentTransactionsAdapter.notifyDataSetChanged();
+    @Override
+    public void onStart() {
+        super.onStart();
+        subscribeMonthlyRollup();
+    }
+
+    @Override
+    public void onStop() {
+        super.onStop();
+        if (rollupRegistration != null) {
+            rollupRegistration.remove();
+            rollupRegistration = null;
+        }
+    }
+
+    /**
+     * Listens to the rollup of the month it is now. Called each time the screen becomes visible,
+     * since the app may have stayed open past the end of the month.
+     */
+    private void subscribeMonthlyRollup() {
+        if (userId == null) return;
+        if (rollupRegistration != null) rollupRegistration.remove();
+        // Delivered on the background executor, so the rollup is deserialized off the main thread
+        rollupRegistration = SnapshotListenerRegistry.getInstance().subscribe("HomeFragment.monthlyRollup",
+                Rollups.collection(gateway, userId).document(Rollups.monthKey(new Date())), background, (doc, error) -> {
+                    if (error != null) return;
+                    monthlyRollup = doc != null && doc.exists() ? doc.toObject(MonthlyRollup.class) : new MonthlyRollup();
+                    publishState();
                 });
     }
 
     /**
-     * Helper method to calculate and display the final total balance.
+     * Builds the dashboard from the latest balances and rollup, then hands it to the main thread.
+     * Runs on the background executor.
      */
-    private void updateTotalBalance() {
-        // Final Total = (Sum of All Account Balances) - (This Month's Expense)
-        double finalTotal = totalAccountBalance.get() - currentMonthExpense.get();
-        NumberFormat format = NumberFormat.getCurrencyInstance(new Locale("si", "LK"));
-        tvTotalBalance.setText(format.format(finalTotal));
+    private void publishState() {
+        DashboardState state = DashboardState.build(accountBalanceSum, monthlyRollup);
+        AppExecutors.mainThread().execute(() -> render(state));
     }
 
+    /**
+     * Displays a finished dashboard state. Only view updates happen here.
+     */
+    private void render(DashboardState state) {
+        if (getView() == null) return;
+        tvTotalBalance.setText(state.totalBalanceText);
+        tvMonthlyIncome.setText(state.monthlyIncomeText);
+        tvMonthlyExpense.setText(state.monthlyExpenseText);
+        updatePieChart(state.expenseSlices);
+        updateBarChart(state.monthlyIncome, state.monthlyExpense);
+    }
 
-    // --- Chart Setup Methods ---
+    /**
+     * Refreshes the recent transactions list whenever the shared ledger changes.
+     */
+    private void onTransactionsChanged(TransactionColumns ledger) {
+        // The ledger keeps a newest-first order, so the recent list is simply its head.
+        recentTransactionsAdapter.submitList(TransactionRepository.getInstance().toTransactions(ledger.newestRows(5)));
+    }
 
-    private void setupPieChart(Map<String, Double> expenseData) {
-        if (getContext() == null || expenseData == null || expenseData.isEmpty()) {
-            pieChart.clear();
-            pieChart.setNoDataText("No expense data for this month.");
-            pieChart.invalidate();
+    // --- Historical Balance ---
+
+    /**
+     * Asks for a date and shows the total of all account balances at the end of that day.
+     */
+    private void pickBalanceDate() {
+        FirebaseUser currentUser = mAuth.getCurrentUser();
+        if (currentUser == null) return;
+        if (!Rollups.isBackfilled(requireContext(), currentUser.getUid())) {
+            tvBalanceOnDate.setText("Balance history is still being prepared.");
             return;
         }
-        List<PieEntry> entries = new ArrayList<>();
-        for (Map.Entry<String, Double> entry : expenseData.entrySet()) {
-            entries.add(new PieEntry(entry.getValue().floatValue(), entry.getKey()));
-        }
-        PieDataSet dataSet = new PieDataSet(entries, "Expense Distribution");
-        dataSet.setColors(ColorTemplate.MATERIAL_COLORS);
-        dataSet.setValueTextColor(Color.BLACK);
-        dataSet.setValueTextSize(0f);
-        PieData pieData = new PieData(dataSet);
-        pieChart.setData(pieData);
+
+        Calendar today = Calendar.getInstance();
+        DatePickerDialog dialog = new DatePickerDialog(requireContext(), (picker, year, month, dayOfMonth) -> {
+            Calendar endOfDay = Calendar.getInstance();
+            endOfDay.set(year, month, dayOfMonth, 23, 59, 59);
+            endOfDay.set(Calendar.MILLISECOND, 999);
+            showBalanceOn(currentUser.getUid(), endOfDay.getTime());
+        }, today.get(Calendar.YEAR), today.get(Calendar.MONTH), today.get(Calendar.DAY_OF_MONTH));
+        dialog.getDatePicker().setMaxDate(today.getTimeInMillis());
+        dialog.show();
+    }
+
+    /**
+     * Replays the balances from the checkpoint before the date, so only that month's transactions are read.
+     */
+    private void showBalanceOn(String userId, Date date) {
+        tvBalanceOnDate.setText("Calculating...");
+        BalanceReplay.balancesAt(gateway, userId, date)
+                .addOnSuccessListener(requireActivity(), balances -> {
+                    if (getView() == null) return;
+                    long total = 0;
+                    for (Map.Entry<String, Long> balance : balances.entrySet()) {
+                        total += balance.getValue();
+                    }
+                    tvBalanceOnDate.setText("On " + Formatters.displayDate(date) + ": " + Formatters.currency(total));
+                })
+                .addOnFailureListener(requireActivity(), e -> {
+                    if (getView() != null) tvBalanceOnDate.setText("Could not calculate the balance.");
+                });
+    }
+
+    // --- Chart Setup Methods ---
+    // Each chart keeps one data set for the life of the view. Snapshot updates replace its
+    // entries in place, and only the first render is animated, so rapid updates stay cheap.
+
+    private void setupCharts() {
         pieChart.getDescription().setEnabled(false);
         pieChart.setCenterText("Expenses");
-        pieChart.animateY(1000);
-        pieChart.invalidate();
-    }
+        pieChart.setNoDataText("No expense data for this month.");
 
-    private void setupBarChart(double income, double expense) {
-        if (getContext() == null) return;
-        ArrayList<BarEntry> entries = new ArrayList<>();
-        entries.add(new BarEntry(0, (float) income));
-        entries.add(new BarEntry(1, (float) expense));
-        BarDataSet dataSet = new BarDataSet(entries, "Monthly Overview");
-        int incomeColor = ContextCompat.getColor(getContext(), R.color.teal_green);
-        int expenseColor = ContextCompat.getColor(getContext(), R.color.vibrant_coral);
-        dataSet.setColors(incomeColor, expenseColor);
-        dataSet.setValueTextColor(Color.BLACK);
-        dataSet.setValueTextSize(12f);
-        BarData barData = new BarData(dataSet);
-        barChart.setData(barData);
         barChart.getDescription().setEnabled(false);
         barChart.getLegend().setEnabled(false);
         XAxis xAxis = barChart.getXAxis();
@@ -240,7 +261,50 @@ public class HomeFragment extends Fragment {
         xAxis.setDrawGridLines(false);
         barChart.getAxisLeft().setDrawGridLines(false);
         barChart.getAxisRight().setEnabled(false);
-        barChart.animateY(1000);
+    }
+
+    private void updatePieChart(List<PieEntry> slices) {
+        if (slices.isEmpty()) {
+            if (pieChart.getData() != null) pieChart.clear(); // Shows the no-data text
+            return;
+        }
+        PieData pieData = pieChart.getData();
+        if (pieData == null) {
+            PieDataSet pieDataSet = new PieDataSet(new ArrayList<>(slices), "Expense Distribution");
+            pieDataSet.setColors(ColorTemplate.MATERIAL_COLORS);
+            pieDataSet.setValueTextColor(Color.BLACK);
+            pieDataSet.setValueTextSize(0f);
+            pieChart.setData(new PieData(pieDataSet));
+            pieChart.animateY(1000);
+        } else {
+            ((PieDataSet) pieData.getDataSet()).setEntries(new ArrayList<>(slices)); // Also recalculates its range
+            pieData.notifyDataChanged();
+            pieChart.notifyDataSetChanged();
+        }
+        pieChart.invalidate();
+    }
+
+    private void updateBarChart(float monthlyIncome, float monthlyExpense) {
+        BarData barData = barChart.getData();
+        if (barData == null) {
+            List<BarEntry> barEntries = new ArrayList<>(2);
+            barEntries.add(new BarEntry(0, monthlyIncome));
+            barEntries.add(new BarEntry(1, monthlyExpense));
+            BarDataSet barDataSet = new BarDataSet(barEntries, "Monthly Overview");
+            barDataSet.setColors(ContextCompat.getColor(requireContext(), R.color.teal_green),
+                    ContextCompat.getColor(requireContext(), R.color.vibrant_coral));
+            barDataSet.setValueTextColor(Color.BLACK);
+            barDataSet.setValueTextSize(12f);
+            barChart.setData(new BarData(barDataSet));
+            barChart.animateY(1000);
+        } else {
+            BarDataSet barDataSet = (BarDataSet) barData.getDataSetByIndex(0);
+            barDataSet.getEntryForIndex(0).setY(monthlyIncome);
+            barDataSet.getEntryForIndex(1).setY(monthlyExpense);
+            barDataSet.calcMinMax();
+            barData.notifyDataChanged();
+            barChart.notifyDataSetChanged();
+        }
         barChart.invalidate();
     }
-}
\ No newline at end of file
+}
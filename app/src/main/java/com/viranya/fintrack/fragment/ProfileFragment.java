@@ -4,6 +4,7 @@ import android.app.KeyguardManager;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.content.pm.ApplicationInfo;
 import android.net.Uri;
 import android.os.Bundle;
 import android.provider.Settings;
@@ -24,21 +25,22 @@ import androidx.fragment.app.Fragment;
 import com.google.android.material.switchmaterial.SwitchMaterial;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.CollectionReference;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
-import com.google.firebase.firestore.WriteBatch;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Source;
 import com.viranya.fintrack.AccountsActivity;
 import com.viranya.fintrack.CategoriesActivity;
 import com.viranya.fintrack.ChangePasswordActivity;
+import com.viranya.fintrack.QueryMetricsActivity;
 import com.viranya.fintrack.R;
 import com.viranya.fintrack.YearlyReportActivity;
 import com.viranya.fintrack.auth.LoginActivity;
-import com.viranya.fintrack.model.Transaction;
+import com.viranya.fintrack.data.BulkDeleter;
+import com.viranya.fintrack.data.CsvExporter;
+import com.viranya.fintrack.data.EntryChoicesRepository;
+import com.viranya.fintrack.data.FirestoreGateway;
+import com.viranya.fintrack.data.TransactionRepository;
 
-import java.io.IOException;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
@@ -53,13 +55,14 @@ public class ProfileFragment extends Fragment {
     public static final String IS_APP_LOCK_ENABLED = "isAppLockEnabled";
 
     // --- UI Elements ---
-    private TextView tvUserName, tvUserEmail, tvChangePassword, tvExportData, tvDeleteAccount, tvManageAccounts, tvManageCategories,tvYearlyReport;
+    private TextView tvUserName, tvUserEmail, tvChangePassword, tvExportData, tvDeleteAccount, tvManageAccounts, tvManageCategories,tvYearlyReport, tvQueryMetrics;
     private SwitchMaterial switchAppLock;
     private Button btnLogout;
 
     // --- Services ---
     private FirebaseAuth mAuth;
-    private FirebaseFirestore db;
+    private FirestoreGateway gateway;
+    private EntryChoicesRepository entryChoices;
     private SharedPreferences sharedPreferences;
 
     // --- ActivityResultLauncher for Export Data ---
@@ -92,7 +95,8 @@ public class ProfileFragment extends Fragment {
 
     private void initializeServices() {
         mAuth = FirebaseAuth.getInstance();
-        db = FirebaseFirestore.getInstance();
+        gateway = FirestoreGateway.getInstance();
+        entryChoices = EntryChoicesRepository.getInstance(requireContext());
         sharedPreferences = requireActivity().getSharedPreferences(APP_PREFERENCES, Context.MODE_PRIVATE);
     }
 
@@ -107,23 +111,26 @@ public class ProfileFragment extends Fragment {
         tvManageAccounts = view.findViewById(R.id.tv_manage_accounts);
         tvManageCategories = view.findViewById(R.id.tv_manage_categories);
         tvYearlyReport = view.findViewById(R.id.tv_yearly_report);
+        tvQueryMetrics = view.findViewById(R.id.tv_query_metrics);
     }
 
     private void loadData() {
         FirebaseUser currentUser = mAuth.getCurrentUser();
         if (currentUser != null) {
             tvUserEmail.setText(currentUser.getEmail());
-            db.collection("users").document(currentUser.getUid()).get()
-                    .addOnSuccessListener(documentSnapshot -> {
-                        if (isAdded() && documentSnapshot.exists() && documentSnapshot.getString("name") != null) {
-                            tvUserName.setText(documentSnapshot.getString("name"));
-                        }
-                    });
+            gateway.getCacheFirst("ProfileFragment.loadData", gateway.user(currentUser.getUid()), this::showUserName)
+                    .addOnSuccessListener(this::showUserName);
         }
         boolean isAppLockEnabled = sharedPreferences.getBoolean(IS_APP_LOCK_ENABLED, false);
         switchAppLock.setChecked(isAppLockEnabled);
     }
 
+    private void showUserName(DocumentSnapshot documentSnapshot) {
+        if (isAdded() && documentSnapshot.exists() && documentSnapshot.getString("name") != null) {
+            tvUserName.setText(documentSnapshot.getString("name"));
+        }
+    }
+
     private void setupListeners() {
         btnLogout.setOnClickListener(v -> logoutUser());
         tvChangePassword.setOnClickListener(v -> startActivity(new Intent(requireActivity(), ChangePasswordActivity.class)));
@@ -156,6 +163,11 @@ public class ProfileFragment extends Fragment {
         tvYearlyReport.setOnClickListener(v -> {
             startActivity(new Intent(requireActivity(), YearlyReportActivity.class));
         });
+        // The metrics screen is a developer tool; release builds record but do not show it
+        if ((requireContext().getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            tvQueryMetrics.setVisibility(View.VISIBLE);
+            tvQueryMetrics.setOnClickListener(v -> startActivity(new Intent(requireActivity(), QueryMetricsActivity.class)));
+        }
     }
 
     /**
@@ -176,32 +188,17 @@ public class ProfileFragment extends Fragment {
         FirebaseUser currentUser = mAuth.getCurrentUser();
         if (currentUser == null) return;
 
-        db.collection("users").document(currentUser.getUid()).collection("transactions")
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
+        Toast.makeText(getContext(), "Exporting transactions...", Toast.LENGTH_SHORT).show();
+        new CsvExporter(requireActivity().getContentResolver(), gateway)
+                .export(gateway.userCollection(currentUser.getUid(), "transactions"), uri)
+                .addOnCompleteListener(task -> {
                     if (!isAdded()) return;
-                    if (queryDocumentSnapshots.isEmpty()) {
+                    if (!task.isSuccessful()) {
+                        Toast.makeText(getContext(), "Failed to export data: " + task.getException().getMessage(), Toast.LENGTH_LONG).show();
+                    } else if (task.getResult() == 0) {
                         Toast.makeText(getContext(), "No transactions to export.", Toast.LENGTH_SHORT).show();
-                        return;
-                    }
-
-                    StringBuilder csvContent = new StringBuilder("Date,Type,Category,Title,Amount\n");
-                    for (QueryDocumentSnapshot doc : queryDocumentSnapshots) {
-                        Transaction transaction = doc.toObject(Transaction.class);
-                        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
-                        String dateStr = sdf.format(transaction.getDate());
-                        csvContent.append(String.format(Locale.US, "\"%s\",\"%s\",\"%s\",\"%s\",%.2f\n",
-                                dateStr, transaction.getType(), transaction.getCategory(),
-                                transaction.getTitle().replace("\"", "\"\""),
-                                transaction.getAmount()));
-                    }
-
-                    try (OutputStream outputStream = requireActivity().getContentResolver().openOutputStream(uri);
-                         OutputStreamWriter writer = new OutputStreamWriter(outputStream)) {
-                        writer.write(csvContent.toString());
+                    } else {
                         Toast.makeText(getContext(), "Data exported successfully.", Toast.LENGTH_LONG).show();
-                    } catch (IOException e) {
-                        Toast.makeText(getContext(), "Failed to export data: " + e.getMessage(), Toast.LENGTH_LONG).show();
                     }
                 });
     }
@@ -220,42 +217,36 @@ public class ProfileFragment extends Fragment {
         if (currentUser == null) return;
         String userId = currentUser.getUid();
 
-        deleteCollection(db.collection("users").document(userId).collection("transactions"), () ->
-                deleteCollection(db.collection("users").document(userId).collection("budgets"), () ->
-                        deleteCollection(db.collection("users").document(userId).collection("saving_goals"), () ->
-                                deleteCollection(db.collection("users").document(userId).collection("accounts"), () ->
-                                        deleteCollection(db.collection("users").document(userId).collection("categories"), () -> {
-
-                                            db.collection("users").document(userId).delete().addOnSuccessListener(aVoid -> {
-                                                currentUser.delete().addOnCompleteListener(task -> {
-                                                    if (isAdded()) {
-                                                        if (task.isSuccessful()) {
-                                                            Toast.makeText(getContext(), "Account deleted successfully.", Toast.LENGTH_LONG).show();
-                                                            logoutUser();
-                                                        } else {
-                                                            Toast.makeText(getContext(), "Failed to delete account. Please log in again and retry.", Toast.LENGTH_LONG).show();
-                                                        }
-                                                    }
-                                                });
-                                            });
-                                        })))));
-    }
+        // Dismissing the dialog only hides it; the result is still reported when the deletion ends
+        AlertDialog progressDialog = new AlertDialog.Builder(requireContext())
+                .setTitle("Deleting Account")
+                .setMessage("Deleting your data...")
+                .setCancelable(true)
+                .show();
 
-    private void deleteCollection(CollectionReference collection, final Runnable onComplete) {
-        collection.get().addOnSuccessListener(queryDocumentSnapshots -> {
-            if (queryDocumentSnapshots.isEmpty()) {
-                onComplete.run();
-                return;
-            }
-            WriteBatch batch = db.batch();
-            for (QueryDocumentSnapshot doc : queryDocumentSnapshots) {
-                batch.delete(doc.getReference());
-            }
-            batch.commit().addOnSuccessListener(aVoid -> onComplete.run());
-        });
+        DocumentReference userRef = gateway.user(userId);
+        // Deletes made offline would only be queued, so first make sure the server can be reached
+        gateway.get("ProfileFragment.checkServer", userRef, Source.SERVER)
+                .onSuccessTask(snapshot -> new BulkDeleter(gateway).deleteAll(BulkDeleter.userCollections(gateway, userId),
+                        deletedDocuments -> progressDialog.setMessage("Deleting your data... (" + deletedDocuments + " items removed)")))
+                .onSuccessTask(deletedDocuments -> gateway.delete("ProfileFragment.deleteUser", userRef))
+                .onSuccessTask(aVoid -> currentUser.delete())
+                .addOnCompleteListener(task -> {
+                    progressDialog.dismiss();
+                    if (isAdded()) {
+                        if (task.isSuccessful()) {
+                            Toast.makeText(getContext(), "Account deleted successfully.", Toast.LENGTH_LONG).show();
+                            logoutUser();
+                        } else {
+                            Toast.makeText(getContext(), "Failed to delete account. Check your connection, log in again and retry.", Toast.LENGTH_LONG).show();
+                        }
+                    }
+                });
     }
 
     private void logoutUser() {
+        TransactionRepository.getInstance().stop();
+        entryChoices.stop();
         mAuth.signOut();
         if (getActivity() != null) {
             Intent intent = new Intent(requireActivity(), LoginActivity.class);
@@ -1,10 +1,14 @@
 package com.viranya.fintrack.fragment;
 
+import android.app.DatePickerDialog;
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.Button;
 import android.widget.TextView;
 import android.widget.Toast;
 
@@ -13,25 +17,51 @@ import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.widget.SearchView;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.paging.LoadState;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingLiveData;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.tabs.TabLayout;
+import com.google.android.material.textfield.TextInputEditText;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.FieldValue;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.Query;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.WriteBatch;
 import com.viranya.fintrack.AddTransactionActivity;
 import com.viranya.fintrack.R;
 import com.viranya.fintrack.adapter.TransactionAdapter;
+import com.viranya.fintrack.adapter.TransactionPagingAdapter;
+import com.viranya.fintrack.data.FirestoreGateway;
+import com.viranya.fintrack.data.Rollups;
+import com.viranya.fintrack.data.TransactionPagingSource;
+import com.viranya.fintrack.data.TransactionQueries;
+import com.viranya.fintrack.data.TransactionRepository;
+import com.viranya.fintrack.ledger.Money;
+import com.viranya.fintrack.ledger.TransactionColumns;
+import com.viranya.fintrack.ledger.TransactionFilter;
+import com.viranya.fintrack.model.Budget;
 import com.viranya.fintrack.model.Transaction;
+import com.viranya.fintrack.util.AppExecutors;
+import com.viranya.fintrack.util.Formatters;
+import com.viranya.fintrack.viewmodel.LedgerViewModel;
 
 import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+import kotlin.Unit;
 
 public class TransactionsFragment extends Fragment implements TransactionAdapter.OnTransactionListener {
 
@@ -41,45 +71,72 @@ public class TransactionsFragment extends Fragment implements TransactionAdapter
     private TextView emptyTextView;
     private TabLayout tabLayout;
     private SearchView searchView;
+    private Button btnFilters;
 
     // --- Firebase & Adapter ---
-    private TransactionAdapter adapter;
-    private List<Transaction> allTransactionsList; // Holds all transactions from Firestore
+    private static final int PAGE_SIZE = 30;
+    private static final long SEARCH_DEBOUNCE_MS = 150;
+    private TransactionAdapter adapter; // Filtered results, computed from the in-memory ledger
+    private TransactionPagingAdapter pagingAdapter; // Unfiltered history, loaded page by page
+    private boolean pagedHistoryLoaded = false;
+    private TransactionColumns ledger; // The shared columnar ledger holding all transactions
     private List<Transaction> filteredTransactionList; // Holds the list currently being displayed
-    private FirebaseFirestore db;
+    private FirestoreGateway gateway;
     private FirebaseAuth mAuth;
     private String currentFilter = "All"; // To keep track of the selected tab
+    private TransactionFilter advancedFilter = TransactionFilter.ALL; // Date, amount, category and account criteria
+
+    // --- Search ---
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private final Runnable searchRunnable = this::applyFilters;
+    private int filterGeneration = 0; // Results from an older filter run are discarded
+
+    private LedgerViewModel viewModel;
 
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_transactions, container, false);
 
-        db = FirebaseFirestore.getInstance();
+        gateway = FirestoreGateway.getInstance();
         mAuth = FirebaseAuth.getInstance();
+        viewModel = new ViewModelProvider(requireActivity()).get(LedgerViewModel.class);
 
         recyclerView = view.findViewById(R.id.rv_transactions);
         fab = view.findViewById(R.id.fab_add_transaction);
         emptyTextView = view.findViewById(R.id.tv_empty_transactions);
         tabLayout = view.findViewById(R.id.tab_layout);
         searchView = view.findViewById(R.id.search_view);
+        btnFilters = view.findViewById(R.id.btn_filters);
 
         // Setup RecyclerView
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
-        allTransactionsList = new ArrayList<>();
         filteredTransactionList = new ArrayList<>();
-        adapter = new TransactionAdapter(filteredTransactionList, getContext(), this);
-        recyclerView.setAdapter(adapter);
+        adapter = new TransactionAdapter(getContext(), this);
+        pagingAdapter = new TransactionPagingAdapter(getContext(), this);
+        recyclerView.setAdapter(pagingAdapter);
 
         // Setup Listeners
         fab.setOnClickListener(v -> startActivity(new Intent(getActivity(), AddTransactionActivity.class)));
         setupTabListener();
         setupSearchListener();
+        btnFilters.setOnClickListener(v -> showFilterDialog());
+
+        return view;
+    }
 
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        setupPagedHistory();
         // Fetch initial data
         fetchTransactions();
+    }
 
-        return view;
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        searchHandler.removeCallbacks(searchRunnable);
     }
 
     private void setupTabListener() {
@@ -106,82 +163,253 @@ public class TransactionsFragment extends Fragment implements TransactionAdapter
 
             @Override
             public boolean onQueryTextChange(String newText) {
-                // When the search text changes, apply all filters again
-                applyFilters();
+                // Wait for a pause in typing before searching again
+                searchHandler.removeCallbacks(searchRunnable);
+                searchHandler.postDelayed(searchRunnable, SEARCH_DEBOUNCE_MS);
                 return true;
             }
         });
     }
 
     /**
-     * Fetches ALL transactions from Firestore and stores them in `allTransactionsList`.
+     * Shows the unfiltered history page by page from the shared ledger, so only the rows on
+     * screen are turned into Transaction objects. Every change to the ledger refreshes it in place.
+     */
+    private void setupPagedHistory() {
+        Pager<Integer, Transaction> pager = new Pager<>(
+                new PagingConfig(PAGE_SIZE, PAGE_SIZE, false),
+                () -> new TransactionPagingSource(TransactionRepository.getInstance()));
+        Lifecycle viewLifecycle = getViewLifecycleOwner().getLifecycle();
+        PagingLiveData.cachedIn(PagingLiveData.getLiveData(pager), viewLifecycle)
+                .observe(getViewLifecycleOwner(), pagingData -> pagingAdapter.submitData(viewLifecycle, pagingData));
+
+        pagingAdapter.addLoadStateListener(loadStates -> {
+            if (loadStates.getRefresh() instanceof LoadState.NotLoading) {
+                pagedHistoryLoaded = true;
+                if (isUnfiltered()) checkIfEmpty();
+            } else if (loadStates.getRefresh() instanceof LoadState.Error && isAdded()) {
+                Toast.makeText(getContext(), "Error fetching transactions.", Toast.LENGTH_SHORT).show();
+            }
+            return Unit.INSTANCE;
+        });
+    }
+
+    /**
+     * Observes the shared ledger, which keeps ALL transactions in columnar form.
+     * The observer is tied to the view lifecycle, so it is removed automatically.
      */
     private void fetchTransactions() {
         FirebaseUser currentUser = mAuth.getCurrentUser();
         if (currentUser == null) return;
 
-        db.collection("users").document(currentUser.getUid()).collection("transactions")
-                .orderBy("date", Query.Direction.DESCENDING)
-                .addSnapshotListener((value, e) -> {
-                    if (e != null) {
-                        Toast.makeText(getContext(), "Error fetching transactions.", Toast.LENGTH_SHORT).show();
-                        return;
-                    }
-                    if (value == null) return;
-
-                    allTransactionsList.clear();
-                    for (QueryDocumentSnapshot doc : value) {
-                        Transaction transaction = doc.toObject(Transaction.class);
-                        transaction.setDocumentId(doc.getId());
-                        allTransactionsList.add(transaction);
-                    }
-                    // After fetching, apply the current filters
-                    applyFilters();
-                });
+        viewModel.start(currentUser.getUid());
+        viewModel.getLedger().observe(getViewLifecycleOwner(), transactions -> {
+            ledger = transactions;
+            // After fetching, apply the current filters
+            applyFilters();
+        });
     }
 
     /**
-     * A central method to apply both the tab filter and the search filter.
+     * A central method to apply the tab, search and advanced filters together.
+     * The query runs on the background executor; only the finished list is posted back.
      */
     private void applyFilters() {
-        // Start with a fresh copy of all transactions
-        List<Transaction> tempFilteredList = new ArrayList<>(allTransactionsList);
-
-        // 1. Apply the Tab Filter (All, Income, Expense)
-        if (!"All".equals(currentFilter)) {
-            // This is the corrected logic to filter the list based on the selected tab
-            ArrayList<Transaction> filteredByType = new ArrayList<>();
-            for (Transaction t : tempFilteredList) {
-                if (t.getType().equals(currentFilter)) {
-                    filteredByType.add(t);
-                }
+        int generation = ++filterGeneration;
+        // With no filter at all, show the paged history instead of the full in-memory list.
+        if (isUnfiltered()) {
+            if (recyclerView.getAdapter() != pagingAdapter) {
+                recyclerView.setAdapter(pagingAdapter);
             }
-            tempFilteredList = filteredByType;
+            if (pagedHistoryLoaded) checkIfEmpty();
+            return;
+        }
+        if (recyclerView.getAdapter() != adapter) {
+            recyclerView.setAdapter(adapter);
         }
 
-        // 2. Apply the Search Filter
-        String searchQuery = searchView.getQuery().toString().toLowerCase().trim();
-        if (!searchQuery.isEmpty()) {
-            ArrayList<Transaction> searchedList = new ArrayList<>();
-            for (Transaction t : tempFilteredList) {
-                if (t.getTitle().toLowerCase().contains(searchQuery)) {
-                    searchedList.add(t);
-                }
-            }
-            tempFilteredList = searchedList;
+        TransactionFilter filter = advancedFilter.toBuilder()
+                .setType("All".equals(currentFilter) ? null : currentFilter)
+                .setQuery(searchView.getQuery().toString())
+                .build();
+
+        if (ledger == null) {
+            // The ledger is still loading; let Firestore evaluate what it can in the meantime
+            fetchFilteredFromFirestore(filter, generation);
+            return;
         }
 
-        // Update the list that the adapter uses
-        filteredTransactionList.clear();
-        filteredTransactionList.addAll(tempFilteredList);
-        adapter.notifyDataSetChanged();
+        TransactionColumns transactions = ledger;
+        AppExecutors.background().execute(() -> {
+            List<Transaction> tempFilteredList;
+            // The repository mutates the ledger on the main thread while holding its lock
+            synchronized (transactions) {
+                int[] matchingRows = transactions.query(filter);
+                tempFilteredList = TransactionRepository.getInstance().toTransactions(matchingRows);
+            }
+            AppExecutors.mainThread().execute(() -> showFilteredTransactions(tempFilteredList, generation));
+        });
+    }
+
+    /**
+     * Runs the filter as a Firestore query, for filters that need data before the ledger has loaded.
+     */
+    private void fetchFilteredFromFirestore(TransactionFilter filter, int generation) {
+        FirebaseUser currentUser = mAuth.getCurrentUser();
+        if (currentUser == null || !filter.hasAdvancedCriteria() || !TransactionQueries.canPushDown(filter)) return;
+        CollectionReference transactions = gateway.userCollection(currentUser.getUid(), "transactions");
+        TransactionQueries.fetch(gateway, transactions, filter)
+                .addOnSuccessListener(result -> showFilteredTransactions(result, generation));
+    }
+
+    private void showFilteredTransactions(List<Transaction> transactions, int generation) {
+        if (generation != filterGeneration || getView() == null) return;
+        // Hand the new list to the adapter; it is diffed in the background so only changed rows rebind
+        filteredTransactionList = transactions;
+        adapter.submitList(transactions);
 
         // Show or hide the "empty" message
         checkIfEmpty();
     }
 
+    private boolean isUnfiltered() {
+        return "All".equals(currentFilter) && searchView.getQuery().toString().trim().isEmpty()
+                && !advancedFilter.hasAdvancedCriteria();
+    }
+
+    // --- Advanced Filter Dialog ---
+
+    /**
+     * Lets the user combine a date range, an amount range and sets of categories and accounts.
+     */
+    private void showFilterDialog() {
+        View dialogView = getLayoutInflater().inflate(R.layout.dialog_transaction_filter, null);
+        TextInputEditText etFromDate = dialogView.findViewById(R.id.et_filter_from_date);
+        TextInputEditText etToDate = dialogView.findViewById(R.id.et_filter_to_date);
+        TextInputEditText etMinAmount = dialogView.findViewById(R.id.et_filter_min_amount);
+        TextInputEditText etMaxAmount = dialogView.findViewById(R.id.et_filter_max_amount);
+        Button btnCategories = dialogView.findViewById(R.id.btn_filter_categories);
+        Button btnAccounts = dialogView.findViewById(R.id.btn_filter_accounts);
+
+        long[] dateRange = {advancedFilter.getFromMillis(), advancedFilter.getToMillis()};
+        Set<String> selectedCategories = new HashSet<>(advancedFilter.getCategories());
+        Set<String> selectedAccounts = new HashSet<>(advancedFilter.getAccounts());
+
+        if (dateRange[0] != Long.MIN_VALUE) etFromDate.setText(Formatters.displayDate(new Date(dateRange[0])));
+        if (dateRange[1] != Long.MAX_VALUE) etToDate.setText(Formatters.displayDate(new Date(dateRange[1])));
+        if (advancedFilter.getMinAmountMinor() != Long.MIN_VALUE) {
+            etMinAmount.setText(Money.toPlainString(advancedFilter.getMinAmountMinor()));
+        }
+        if (advancedFilter.getMaxAmountMinor() != Long.MAX_VALUE) {
+            etMaxAmount.setText(Money.toPlainString(advancedFilter.getMaxAmountMinor()));
+        }
+        updateSelectionLabel(btnCategories, "Categories", selectedCategories);
+        updateSelectionLabel(btnAccounts, "Accounts", selectedAccounts);
+
+        etFromDate.setOnClickListener(v -> pickDate(dateRange[0], false, millis -> {
+            dateRange[0] = millis;
+            etFromDate.setText(Formatters.displayDate(new Date(millis)));
+        }));
+        etToDate.setOnClickListener(v -> pickDate(dateRange[1], true, millis -> {
+            dateRange[1] = millis;
+            etToDate.setText(Formatters.displayDate(new Date(millis)));
+        }));
+        btnCategories.setOnClickListener(v -> pickValues("Categories", ledgerValues(true), selectedCategories,
+                () -> updateSelectionLabel(btnCategories, "Categories", selectedCategories)));
+        btnAccounts.setOnClickListener(v -> pickValues("Accounts", ledgerValues(false), selectedAccounts,
+                () -> updateSelectionLabel(btnAccounts, "Accounts", selectedAccounts)));
+
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Filter Transactions")
+                .setView(dialogView)
+                .setPositiveButton("Apply", (dialog, which) -> {
+                    advancedFilter = new TransactionFilter.Builder()
+                            .setDateRange(dateRange[0], dateRange[1])
+                            .setAmountRange(parseAmount(etMinAmount, Long.MIN_VALUE), parseAmount(etMaxAmount, Long.MAX_VALUE))
+                            .setCategories(selectedCategories)
+                            .setAccounts(selectedAccounts)
+                            .build();
+                    btnFilters.setText(advancedFilter.hasAdvancedCriteria() ? "Filters •" : "Filters");
+                    applyFilters();
+                })
+                .setNeutralButton("Clear", (dialog, which) -> {
+                    advancedFilter = TransactionFilter.ALL;
+                    btnFilters.setText("Filters");
+                    applyFilters();
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    /**
+     * Shows a date picker. The start of a range is the beginning of the chosen day; the end is its last millisecond.
+     */
+    private void pickDate(long currentMillis, boolean endOfDay, LongConsumer onPicked) {
+        Calendar calendar = Calendar.getInstance();
+        if (currentMillis != Long.MIN_VALUE && currentMillis != Long.MAX_VALUE) calendar.setTimeInMillis(currentMillis);
+        new DatePickerDialog(requireContext(), (view, year, month, dayOfMonth) -> {
+            Calendar picked = Calendar.getInstance();
+            picked.clear();
+            picked.set(year, month, dayOfMonth);
+            if (endOfDay) picked.add(Calendar.DAY_OF_MONTH, 1);
+            onPicked.accept(endOfDay ? picked.getTimeInMillis() - 1 : picked.getTimeInMillis());
+        }, calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_MONTH)).show();
+    }
+
+    private void pickValues(String title, List<String> options, Set<String> selected, Runnable onChanged) {
+        if (options.isEmpty()) {
+            Toast.makeText(getContext(), "Transactions are still loading.", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        String[] items = options.toArray(new String[0]);
+        boolean[] checked = new boolean[items.length];
+        for (int i = 0; i < items.length; i++) checked[i] = selected.contains(items[i]);
+        new AlertDialog.Builder(requireContext())
+                .setTitle(title)
+                .setMultiChoiceItems(items, checked, (dialog, which, isChecked) -> checked[which] = isChecked)
+                .setPositiveButton("OK", (dialog, which) -> {
+                    selected.clear();
+                    for (int i = 0; i < items.length; i++) {
+                        if (checked[i]) selected.add(items[i]);
+                    }
+                    onChanged.run();
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    /**
+     * @return The distinct category or account names in the ledger, sorted alphabetically.
+     */
+    private List<String> ledgerValues(boolean categories) {
+        List<String> values = new ArrayList<>();
+        if (ledger == null) return values;
+        int count = categories ? ledger.categoryCount() : ledger.accountCount();
+        for (int id = 0; id < count; id++) {
+            String value = categories ? ledger.categoryName(id) : ledger.accountName(id);
+            if (!value.isEmpty()) values.add(value);
+        }
+        Collections.sort(values);
+        return values;
+    }
+
+    private static void updateSelectionLabel(Button button, String label, Set<String> selected) {
+        button.setText(label + ": " + (selected.isEmpty() ? "Any" : selected.size() + " selected"));
+    }
+
+    private static long parseAmount(TextInputEditText editText, long fallback) {
+        String text = editText.getText() == null ? "" : editText.getText().toString().trim();
+        if (text.isEmpty()) return fallback;
+        try {
+            return Money.parse(text);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
     private void checkIfEmpty() {
-        if (filteredTransactionList.isEmpty()) {
+        boolean isEmpty = isUnfiltered() ? pagingAdapter.getItemCount() == 0 : filteredTransactionList.isEmpty();
+        if (isEmpty) {
             recyclerView.setVisibility(View.GONE);
             emptyTextView.setVisibility(View.VISIBLE);
         } else {
@@ -212,17 +440,32 @@ public class TransactionsFragment extends Fragment implements TransactionAdapter
         if (currentUser == null || transaction.getDocumentId() == null) return;
         String userId = currentUser.getUid();
 
-        db.collection("users").document(userId).collection("transactions").document(transaction.getDocumentId())
-                .delete()
-                .addOnSuccessListener(aVoid -> {
-                    Toast.makeText(getContext(), "Transaction deleted.", Toast.LENGTH_SHORT).show();
-                    if ("Expense".equals(transaction.getType())) {
-                        updateBudgetOnDelete(userId, transaction.getCategory(), transaction.getAmount());
-                    }
-                });
+        // An update on a missing budget would fail the whole batch, so check which budgets exist
+        List<Budget> budgets = viewModel.getBudgets().getValue();
+        if (budgets == null) {
+            Toast.makeText(getContext(), "Budgets are still loading. Please try again.", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        // Delete the transaction and reverse its rollup and budget contributions atomically
+        WriteBatch batch = gateway.db().batch();
+        batch.delete(gateway.userCollection(userId, "transactions").document(transaction.getDocumentId()));
+        Rollups.apply(batch, gateway, userId, transaction, -1);
+        if ("Expense".equals(transaction.getType())) {
+            for (Budget budget : budgets) {
+                if (transaction.getCategory().equals(budget.getCategory())) {
+                    updateBudgetOnDelete(batch, userId, transaction.getCategory(), transaction.getAmountMinor());
+                    break;
+                }
+            }
+        }
+        gateway.commit("TransactionsFragment.deleteTransaction", batch)
+                .addOnSuccessListener(aVoid -> Toast.makeText(getContext(), "Transaction deleted.", Toast.LENGTH_SHORT).show());
     }
-    private void updateBudgetOnDelete(String userId, String category, double expenseAmount) {
-        db.collection("users").document(userId).collection("budgets").document(category)
-                .update("spentAmount", FieldValue.increment(-expenseAmount));
+
+    private void updateBudgetOnDelete(WriteBatch batch, String userId, String category, long expenseAmount) {
+        batch.update(gateway.userCollection(userId, "budgets").document(category),
+                "spentAmount", FieldValue.increment(Money.toMajor(-expenseAmount)),
+                Money.minorField("spentAmount"), FieldValue.increment(-expenseAmount));
     }
 }
\ No newline at end of file
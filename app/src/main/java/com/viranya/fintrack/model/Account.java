@@ -1,6 +1,7 @@
 package com.viranya.fintrack.model;
 
 import com.google.firebase.firestore.Exclude;
+import com.viranya.fintrack.ledger.Money;
 
 import java.io.Serializable;
 
@@ -8,13 +9,17 @@ public class Account implements Serializable {
     @Exclude
     private String documentId; // To hold the document ID from Firestore
     private String name;
-    private double balance;
+    private double balance; // Major units; still written so older app versions can read the document
+    private Long balanceMinor; // Minor units; null until the document has been migrated
+    private boolean minorUnits; // True once the minor-unit fields can be trusted; see Money.resolveMinor
 
     public Account() {}
 
-    public Account(String name, double balance) {
+    public Account(String name, long balanceMinor) {
         this.name = name;
-        this.balance = balance;
+        this.balance = Money.toMajor(balanceMinor);
+        this.balanceMinor = balanceMinor;
+        this.minorUnits = true;
     }
 
     // --- Getters and Setters ---
@@ -24,6 +29,12 @@ public class Account implements Serializable {
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
 
-    public double getBalance() { return balance; }
+    public double getBalance() { return Money.toMajor(getBalanceMinor()); }
     public void setBalance(double balance) { this.balance = balance; }
-}
\ No newline at end of file
+
+    public long getBalanceMinor() { return Money.resolveMinor(minorUnits, balanceMinor, balance); }
+    public void setBalanceMinor(long balanceMinor) { this.balanceMinor = balanceMinor; }
+
+    public boolean isMinorUnits() { return minorUnits; }
+    public void setMinorUnits(boolean minorUnits) { this.minorUnits = minorUnits; }
+}
@@ -0,0 +1,23 @@
+package com.viranya.fintrack.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Every account's balance at the start of one calendar month, as replayed from the ledger.
+ * Stored at users/{uid}/balance_checkpoints/{yyyy-MM}; amounts are in minor units (cents).
+ */
+public class BalanceCheckpoint {
+    private Map<String, Long> balancesMinor = new HashMap<>();
+
+    // Required empty constructor for Firestore
+    public BalanceCheckpoint() {}
+
+    public BalanceCheckpoint(Map<String, Long> balancesMinor) {
+        this.balancesMinor = balancesMinor;
+    }
+
+    // --- Getters and Setters ---
+    public Map<String, Long> getBalancesMinor() { return balancesMinor; }
+    public void setBalancesMinor(Map<String, Long> balancesMinor) { this.balancesMinor = balancesMinor; }
+}
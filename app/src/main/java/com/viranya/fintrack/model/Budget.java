@@ -1,26 +1,59 @@
 package com.viranya.fintrack.model;
 
+import com.viranya.fintrack.ledger.Money;
+
+import java.util.Date;
+
 public class Budget {
+    // The spent amount starts over at the beginning of each month (see BudgetReconciler)
+    public static final String PERIOD_MONTHLY = "monthly";
+
     private String category;
+    private String period; // Null for a running total that never resets
+    private Date createdAt; // Where a running total starts; null for budgets saved by older versions
+    // Major-unit fields are still written so older app versions can read the document;
+    // the minor-unit fields are null until the document has been migrated.
     private double limitAmount;
+    private Long limitAmountMinor;
     private double spentAmount;
+    private Long spentAmountMinor;
+    private boolean minorUnits; // True once the minor-unit fields can be trusted; see Money.resolveMinor
 
     // Required empty constructor for Firestore
     public Budget() {}
 
-    public Budget(String category, double limitAmount, double spentAmount) {
+    public Budget(String category, long limitAmountMinor, long spentAmountMinor) {
         this.category = category;
-        this.limitAmount = limitAmount;
-        this.spentAmount = spentAmount;
+        this.limitAmount = Money.toMajor(limitAmountMinor);
+        this.limitAmountMinor = limitAmountMinor;
+        this.spentAmount = Money.toMajor(spentAmountMinor);
+        this.spentAmountMinor = spentAmountMinor;
+        this.minorUnits = true;
+        this.createdAt = new Date();
     }
 
     // --- Getters and Setters ---
     public String getCategory() { return category; }
     public void setCategory(String category) { this.category = category; }
 
-    public double getLimitAmount() { return limitAmount; }
+    public String getPeriod() { return period; }
+    public void setPeriod(String period) { this.period = period; }
+
+    public Date getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Date createdAt) { this.createdAt = createdAt; }
+
+    public double getLimitAmount() { return Money.toMajor(getLimitAmountMinor()); }
     public void setLimitAmount(double limitAmount) { this.limitAmount = limitAmount; }
 
-    public double getSpentAmount() { return spentAmount; }
+    public long getLimitAmountMinor() { return Money.resolveMinor(minorUnits, limitAmountMinor, limitAmount); }
+    public void setLimitAmountMinor(long limitAmountMinor) { this.limitAmountMinor = limitAmountMinor; }
+
+    public double getSpentAmount() { return Money.toMajor(getSpentAmountMinor()); }
     public void setSpentAmount(double spentAmount) { this.spentAmount = spentAmount; }
-}
\ No newline at end of file
+
+    public long getSpentAmountMinor() { return Money.resolveMinor(minorUnits, spentAmountMinor, spentAmount); }
+    public void setSpentAmountMinor(long spentAmountMinor) { this.spentAmountMinor = spentAmountMinor; }
+
+    public boolean isMinorUnits() { return minorUnits; }
+    public void setMinorUnits(boolean minorUnits) { this.minorUnits = minorUnits; }
+}
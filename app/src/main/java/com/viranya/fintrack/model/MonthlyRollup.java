@@ -0,0 +1,36 @@
+package com.viranya.fintrack.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pre-computed totals for one calendar month, stored at users/{uid}/rollups/{yyyy-MM}.
+ * Kept up to date in the same WriteBatch as every transaction add, edit and delete.
+ * All totals are in minor units (cents).
+ */
+public class MonthlyRollup {
+    private long incomeMinor; // Excludes "Initial Balance" transactions
+    private long initialBalanceMinor;
+    private long expenseMinor;
+    private Map<String, Long> categoriesMinor = new HashMap<>(); // Expense totals per category
+    private Map<String, Long> accountsMinor = new HashMap<>(); // Net balance change per account (income minus expense)
+
+    // Required empty constructor for Firestore
+    public MonthlyRollup() {}
+
+    // --- Getters and Setters ---
+    public long getIncomeMinor() { return incomeMinor; }
+    public void setIncomeMinor(long incomeMinor) { this.incomeMinor = incomeMinor; }
+
+    public long getInitialBalanceMinor() { return initialBalanceMinor; }
+    public void setInitialBalanceMinor(long initialBalanceMinor) { this.initialBalanceMinor = initialBalanceMinor; }
+
+    public long getExpenseMinor() { return expenseMinor; }
+    public void setExpenseMinor(long expenseMinor) { this.expenseMinor = expenseMinor; }
+
+    public Map<String, Long> getCategoriesMinor() { return categoriesMinor; }
+    public void setCategoriesMinor(Map<String, Long> categoriesMinor) { this.categoriesMinor = categoriesMinor; }
+
+    public Map<String, Long> getAccountsMinor() { return accountsMinor; }
+    public void setAccountsMinor(Map<String, Long> accountsMinor) { this.accountsMinor = accountsMinor; }
+}
@@ -1,26 +1,45 @@
 package com.viranya.fintrack.model;
 
+import com.viranya.fintrack.ledger.Money;
+
 public class SavingGoal {
     private String goalName;
+    // Major-unit fields are still written so older app versions can read the document;
+    // the minor-unit fields are null until the document has been migrated.
     private double targetAmount;
+    private Long targetAmountMinor;
     private double savedAmount;
+    private Long savedAmountMinor;
+    private boolean minorUnits; // True once the minor-unit fields can be trusted; see Money.resolveMinor
 
     // Required empty constructor for Firestore
     public SavingGoal() {}
 
-    public SavingGoal(String goalName, double targetAmount, double savedAmount) {
+    public SavingGoal(String goalName, long targetAmountMinor, long savedAmountMinor) {
         this.goalName = goalName;
-        this.targetAmount = targetAmount;
-        this.savedAmount = savedAmount;
+        this.targetAmount = Money.toMajor(targetAmountMinor);
+        this.targetAmountMinor = targetAmountMinor;
+        this.savedAmount = Money.toMajor(savedAmountMinor);
+        this.savedAmountMinor = savedAmountMinor;
+        this.minorUnits = true;
     }
 
     // --- Getters and Setters ---
     public String getGoalName() { return goalName; }
     public void setGoalName(String goalName) { this.goalName = goalName; }
 
-    public double getTargetAmount() { return targetAmount; }
+    public double getTargetAmount() { return Money.toMajor(getTargetAmountMinor()); }
     public void setTargetAmount(double targetAmount) { this.targetAmount = targetAmount; }
 
-    public double getSavedAmount() { return savedAmount; }
+    public long getTargetAmountMinor() { return Money.resolveMinor(minorUnits, targetAmountMinor, targetAmount); }
+    public void setTargetAmountMinor(long targetAmountMinor) { this.targetAmountMinor = targetAmountMinor; }
+
+    public double getSavedAmount() { return Money.toMajor(getSavedAmountMinor()); }
     public void setSavedAmount(double savedAmount) { this.savedAmount = savedAmount; }
-}
\ No newline at end of file
+
+    public long getSavedAmountMinor() { return Money.resolveMinor(minorUnits, savedAmountMinor, savedAmount); }
+    public void setSavedAmountMinor(long savedAmountMinor) { this.savedAmountMinor = savedAmountMinor; }
+
+    public boolean isMinorUnits() { return minorUnits; }
+    public void setMinorUnits(boolean minorUnits) { this.minorUnits = minorUnits; }
+}
@@ -2,6 +2,7 @@ package com.viranya.fintrack.model;
 
 import com.google.firebase.firestore.Exclude;
 import com.google.firebase.firestore.ServerTimestamp;
+import com.viranya.fintrack.ledger.Money;
 import java.io.Serializable;
 import java.util.Date;
 
@@ -13,7 +14,8 @@ public class Transaction implements Serializable {
     private String documentId;
     private String title;
     private String category;
-    private double amount;
+    private double amount; // Major units; still written so older app versions can read the document
+    private Long amountMinor; // Minor units; null on documents written before this field existed
     private String type; // "Income" or "Expense"
     private String accountName; // The new field
     @ServerTimestamp
@@ -30,10 +32,11 @@ public class Transaction implements Serializable {
      * This is the constructor we use in our code to create a new transaction object.
      * This was the missing piece that caused the error.
      */
-    public Transaction(String title, String category, double amount, String type, String accountName, Date date) {
+    public Transaction(String title, String category, long amountMinor, String type, String accountName, Date date) {
         this.title = title;
         this.category = category;
-        this.amount = amount;
+        this.amount = Money.toMajor(amountMinor);
+        this.amountMinor = amountMinor;
         this.type = type;
         this.accountName = accountName;
         this.date = date;
@@ -49,9 +52,15 @@ public class Transaction implements Serializable {
     public String getCategory() { return category; }
     public void setCategory(String category) { this.category = category; }
 
-    public double getAmount() { return amount; }
+    /**
+     * Derived from the minor-unit amount when present; use {@link #getAmountMinor()} for arithmetic.
+     */
+    public double getAmount() { return Money.toMajor(getAmountMinor()); }
     public void setAmount(double amount) { this.amount = amount; }
 
+    public long getAmountMinor() { return amountMinor != null ? amountMinor : Money.toMinor(amount); }
+    public void setAmountMinor(long amountMinor) { this.amountMinor = amountMinor; }
+
     public String getType() { return type; }
     public void setType(String type) { this.type = type; }
 
@@ -0,0 +1,33 @@
+package com.viranya.fintrack.util;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Shared executors for moving work off the main thread.
+ */
+public final class AppExecutors {
+
+    // A single thread keeps snapshot callbacks in the order Firestore delivered them.
+    private static final ExecutorService BACKGROUND = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fintrack-background");
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        return thread;
+    });
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+    private static final Executor MAIN_THREAD = MAIN_HANDLER::post;
+
+    private AppExecutors() {}
+
+    /**
+     * @return A serial executor for aggregation and other CPU work triggered by data changes.
+     */
+    public static Executor background() { return BACKGROUND; }
+
+    public static Executor mainThread() { return MAIN_THREAD; }
+}
@@ -0,0 +1,68 @@
+package com.viranya.fintrack.util;
+
+import com.viranya.fintrack.ledger.Money;
+
+import java.text.NumberFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Shared currency and date formatting.
+ *
+ * NumberFormat and SimpleDateFormat are expensive to create and not thread-safe, so each thread
+ * gets its own cached instance instead of one being built per call. Formatted currency strings
+ * are also kept in a small LRU, since a list of transactions repeats the same amounts often.
+ */
+public final class Formatters {
+
+    private static final Locale CURRENCY_LOCALE = new Locale("si", "LK"); // Sri Lankan Rupee (LKR)
+    private static final int MAX_CACHED_AMOUNTS = 256;
+
+    private static final ThreadLocal<NumberFormat> CURRENCY =
+            ThreadLocal.withInitial(() -> NumberFormat.getCurrencyInstance(CURRENCY_LOCALE));
+    private static final ThreadLocal<SimpleDateFormat> DISPLAY_DATE =
+            ThreadLocal.withInitial(() -> new SimpleDateFormat("dd/MM/yyyy", Locale.getDefault()));
+
+    // Keyed by the amount in minor units; access-ordered so the least recently shown amount is evicted.
+    private static final Map<Long, String> formattedAmounts =
+            new LinkedHashMap<Long, String>(MAX_CACHED_AMOUNTS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+                    return size() > MAX_CACHED_AMOUNTS;
+                }
+            };
+
+    private Formatters() {}
+
+    /**
+     * Formats an amount in minor units as currency, e.g. 125050 as "Rs 1,250.50".
+     */
+    public static String currency(long amountMinor) {
+        synchronized (formattedAmounts) {
+            String cached = formattedAmounts.get(amountMinor);
+            if (cached != null) return cached;
+        }
+        String formatted = CURRENCY.get().format(Money.toMajor(amountMinor));
+        synchronized (formattedAmounts) {
+            formattedAmounts.put(amountMinor, formatted);
+        }
+        return formatted;
+    }
+
+    /**
+     * Formats a major-unit amount as currency. Prefer {@link #currency(long)}, which is cached.
+     */
+    public static String currency(double amount) {
+        return CURRENCY.get().format(amount);
+    }
+
+    /**
+     * Formats a date as DD/MM/YYYY, the format used by every date field in the app.
+     */
+    public static String displayDate(Date date) {
+        return DISPLAY_DATE.get().format(date);
+    }
+}
@@ -0,0 +1,106 @@
+package com.viranya.fintrack.viewmodel;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.ViewModel;
+
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.viranya.fintrack.data.FirestoreGateway;
+import com.viranya.fintrack.data.SnapshotListenerRegistry;
+import com.viranya.fintrack.data.TransactionRepository;
+import com.viranya.fintrack.ledger.TransactionColumns;
+import com.viranya.fintrack.model.Account;
+import com.viranya.fintrack.model.Budget;
+import com.viranya.fintrack.util.AppExecutors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Activity-scoped holder for the data shared by the bottom-navigation tabs.
+ * Obtain it with {@code new ViewModelProvider(requireActivity()).get(LedgerViewModel.class)}.
+ *
+ * Each collection has exactly one listener for as long as the activity lives, no matter how
+ * often the tabs are shown, hidden or recreated; listeners go through the
+ * {@link SnapshotListenerRegistry}, so other screens watching the same collection share them.
+ * Budgets and accounts are deserialized on the background executor and published as unmodifiable lists.
+ */
+public class LedgerViewModel extends ViewModel {
+
+    private final MutableLiveData<TransactionColumns> ledger = new MutableLiveData<>();
+    private final MutableLiveData<List<Budget>> budgets = new MutableLiveData<>();
+    private final MutableLiveData<List<Account>> accounts = new MutableLiveData<>();
+
+    private final TransactionRepository.Observer transactionObserver = ledger::setValue;
+    private ListenerRegistration budgetsRegistration;
+    private ListenerRegistration accountsRegistration;
+    private String userId;
+
+    /**
+     * Starts the shared listeners for the given user. Calling this again for the same user is a no-op.
+     */
+    public void start(String userId) {
+        if (userId.equals(this.userId)) return;
+        stopListeners();
+        this.userId = userId;
+
+        TransactionRepository repository = TransactionRepository.getInstance();
+        repository.start(userId);
+        repository.addObserver(transactionObserver);
+
+        FirestoreGateway gateway = FirestoreGateway.getInstance();
+        SnapshotListenerRegistry registry = SnapshotListenerRegistry.getInstance();
+        budgetsRegistration = registry.subscribe("LedgerViewModel.budgets", gateway.userCollection(userId, "budgets"), (value, error) -> {
+            if (error != null || value == null) return;
+            AppExecutors.background().execute(() -> {
+                List<Budget> list = new ArrayList<>(value.size());
+                for (QueryDocumentSnapshot doc : value) {
+                    list.add(doc.toObject(Budget.class));
+                }
+                budgets.postValue(Collections.unmodifiableList(list));
+            });
+        });
+
+        accountsRegistration = registry.subscribe("LedgerViewModel.accounts", gateway.userCollection(userId, "accounts"), (value, error) -> {
+            if (error != null || value == null) return;
+            AppExecutors.background().execute(() -> {
+                List<Account> list = new ArrayList<>(value.size());
+                for (QueryDocumentSnapshot doc : value) {
+                    Account account = doc.toObject(Account.class);
+                    account.setDocumentId(doc.getId());
+                    list.add(account);
+                }
+                accounts.postValue(Collections.unmodifiableList(list));
+            });
+        });
+    }
+
+    /**
+     * The shared columnar ledger. The same instance is re-delivered whenever it changes.
+     */
+    public LiveData<TransactionColumns> getLedger() { return ledger; }
+
+    public LiveData<List<Budget>> getBudgets() { return budgets; }
+
+    public LiveData<List<Account>> getAccounts() { return accounts; }
+
+    @Override
+    protected void onCleared() {
+        stopListeners();
+    }
+
+    private void stopListeners() {
+        TransactionRepository.getInstance().removeObserver(transactionObserver);
+        if (budgetsRegistration != null) {
+            budgetsRegistration.remove();
+            budgetsRegistration = null;
+        }
+        if (accountsRegistration != null) {
+            accountsRegistration.remove();
+            accountsRegistration = null;
+        }
+        userId = null;
+    }
+}
@@ -0,0 +1,71 @@
+package com.viranya.fintrack.work;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.viranya.fintrack.data.BalanceCheckpoints;
+import com.viranya.fintrack.data.FirestoreGateway;
+import com.viranya.fintrack.data.Rollups;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the signed-in user's balance checkpoints up to date once a day: writes the checkpoint
+ * for a new month and rewrites the ones invalidated by back-dated changes.
+ *
+ * The run only waits for the reads. The checkpoint writes are queued in Firestore, which sends
+ * them when it can; a rejected write marks its months stale again for the next run.
+ */
+public class BalanceCheckpointWorker extends Worker {
+
+    private static final String TAG = "BalanceCheckpointWorker";
+    private static final String PERIODIC_WORK = "balanceCheckpointDaily";
+
+    public BalanceCheckpointWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedules the daily run. Safe to call on every launch: an existing schedule is kept.
+     */
+    public static void schedule(Context context) {
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(BalanceCheckpointWorker.class, 1, TimeUnit.DAYS)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .setRequiresBatteryNotLow(true)
+                        .build())
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(PERIODIC_WORK, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
+        // Checkpoints are built from the rollups' per-account totals, so wait until those exist
+        if (currentUser == null || !Rollups.isBackfilled(getApplicationContext(), currentUser.getUid())) {
+            return Result.success();
+        }
+
+        try {
+            Tasks.await(BalanceCheckpoints.advance(FirestoreGateway.getInstance(), currentUser.getUid()));
+            return Result.success();
+        } catch (Exception e) {
+            Log.w(TAG, "Balance checkpoint update failed", e);
+            return Result.retry();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.viranya.fintrack.work;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.viranya.fintrack.data.BudgetReconciler;
+import com.viranya.fintrack.data.FirestoreGateway;
+import com.viranya.fintrack.data.Rollups;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link BudgetReconciler} for the signed-in user, once a day in the background and on
+ * demand from the Budgets screen.
+ */
+public class BudgetReconcileWorker extends Worker {
+
+    public static final String KEY_CORRECTED = "corrected";
+    private static final String TAG = "BudgetReconcileWorker";
+    private static final String PERIODIC_WORK = "budgetReconcileDaily";
+    private static final String ON_DEMAND_WORK = "budgetReconcileNow";
+
+    public BudgetReconcileWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedules the daily run. Safe to call on every launch: an existing schedule is kept.
+     */
+    public static void schedule(Context context) {
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(BudgetReconcileWorker.class, 1, TimeUnit.DAYS)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .setRequiresBatteryNotLow(true)
+                        .build())
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(PERIODIC_WORK, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * Starts a run right away, replacing one that is still queued.
+     * @return The ID of the request, to observe its result.
+     */
+    public static UUID runNow(Context context) {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(BudgetReconcileWorker.class)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .build())
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(ON_DEMAND_WORK, ExistingWorkPolicy.REPLACE, request);
+        return request.getId();
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
+        // Until the rollups have been rebuilt on this device, they are not a reliable reference
+        if (currentUser == null || !Rollups.isBackfilled(getApplicationContext(), currentUser.getUid())) {
+            return Result.success(new Data.Builder().putInt(KEY_CORRECTED, 0).build());
+        }
+
+        try {
+            int corrected = Tasks.await(BudgetReconciler.reconcile(FirestoreGateway.getInstance(), currentUser.getUid()));
+            if (corrected > 0) Log.i(TAG, "Corrected " + corrected + " budgets");
+            return Result.success(new Data.Builder().putInt(KEY_CORRECTED, corrected).build());
+        } catch (Exception e) {
+            Log.w(TAG, "Budget reconciliation failed", e);
+            return Result.retry();
+        }
+    }
+}
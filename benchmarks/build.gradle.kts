@@ -0,0 +1,27 @@
+plugins {
+    `java-library`
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    jmhImplementation(project(":core"))
+}
+
+// Run with ./gradlew :benchmarks:jmh
+// Narrow a run with e.g. -PjmhIncludes=LedgerQueryBenchmark -PjmhLedgerSizes=1000,100000
+jmh {
+    jmhVersion.set(libs.versions.jmhCore)
+    warmupIterations.set(2)
+    iterations.set(5)
+    fork.set(1)
+    resultFormat.set("JSON") // build/results/jmh/results.json, to compare runs
+    (findProperty("jmhIncludes") as String?)?.let { includes.set(listOf(it)) }
+    (findProperty("jmhLedgerSizes") as String?)?.let {
+        benchmarkParameters.put("size", project.objects.listProperty(String::class.java).value(it.split(",")))
+    }
+}
@@ -0,0 +1,49 @@
+package com.viranya.fintrack.benchmarks;
+
+import com.viranya.fintrack.ledger.CsvWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatting the whole history as CSV, newest first. The output is counted and discarded,
+ * so only the formatting is measured, not the storage it would be written to.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CsvExportBenchmark {
+
+    @Benchmark
+    public long exportAll(LedgerState state) throws IOException {
+        CountingWriter out = new CountingWriter();
+        CsvWriter csv = new CsvWriter(out, state.zone);
+        csv.writeHeader();
+        csv.writeRows(state.ledger, state.ledger.rowsNewestFirst());
+        return out.count;
+    }
+
+    private static final class CountingWriter extends Writer {
+        long count;
+
+        @Override
+        public void write(int c) { count++; }
+
+        @Override
+        public void write(String str) { count += str.length(); }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) { count += length; }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+}
@@ -0,0 +1,87 @@
+package com.viranya.fintrack.benchmarks;
+
+import com.viranya.fintrack.ledger.ChartReduction;
+import com.viranya.fintrack.ledger.Money;
+import com.viranya.fintrack.ledger.ReportBuckets;
+import com.viranya.fintrack.ledger.ReportPeriod;
+import com.viranya.fintrack.ledger.StringDictionary;
+import com.viranya.fintrack.ledger.TransactionColumns;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The aggregations behind the dashboard, the reports and balance replay, computed from the
+ * in-memory ledger.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LedgerAggregationBenchmark {
+
+    /**
+     * This month's income (without opening balances) and expense, as on the dashboard.
+     */
+    @Benchmark
+    public void monthlyTotals(LedgerState state, Blackhole blackhole) {
+        TransactionColumns ledger = state.ledger;
+        blackhole.consume(ledger.sum(ledger.typeId("Income"), state.monthStart, state.now, ledger.categoryId("Initial Balance")));
+        blackhole.consume(ledger.sum(ledger.typeId("Expense"), state.monthStart, state.now, StringDictionary.NOT_FOUND));
+    }
+
+    /**
+     * This month's expenses per category, reduced to the dashboard's pie slices.
+     */
+    @Benchmark
+    public Map<String, Long> expenseSlices(LedgerState state) {
+        TransactionColumns ledger = state.ledger;
+        long[] totals = ledger.sumByCategory(ledger.typeId("Expense"), state.monthStart, state.now);
+        Map<String, Long> byCategory = new HashMap<>();
+        for (int category = 0; category < totals.length; category++) {
+            if (totals[category] > 0) byCategory.put(ledger.categoryName(category), totals[category]);
+        }
+        return ChartReduction.topN(byCategory, 6, "Other");
+    }
+
+    /**
+     * The yearly report: twelve monthly buckets.
+     */
+    @Benchmark
+    public ReportBuckets yearByMonth(LedgerState state) {
+        ReportBuckets buckets = new ReportBuckets(ReportPeriod.MONTH,
+                state.today.withDayOfYear(1), state.today.withMonth(12).withDayOfMonth(31), state.zone);
+        buckets.addAll(state.ledger);
+        return buckets;
+    }
+
+    /**
+     * The longest report (ten years of days), downsampled for the line chart.
+     */
+    @Benchmark
+    public int[] tenYearsByDay(LedgerState state) {
+        ReportBuckets buckets = new ReportBuckets(ReportPeriod.DAY,
+                state.today.minusYears(SyntheticLedger.YEARS), state.today, state.zone);
+        buckets.addAll(state.ledger);
+        float[] x = new float[buckets.size()];
+        float[] y = new float[buckets.size()];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = i;
+            y[i] = (float) Money.toMajor(buckets.getExpense(i));
+        }
+        return ChartReduction.lttb(x, y, 200);
+    }
+
+    /**
+     * Each account's balance change since the start of the month, as replayed on top of a checkpoint.
+     */
+    @Benchmark
+    public long[] accountChangesThisMonth(LedgerState state) {
+        return state.ledger.netByAccount(state.monthStart, state.now);
+    }
+}
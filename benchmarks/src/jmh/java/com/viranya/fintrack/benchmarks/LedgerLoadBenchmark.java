@@ -0,0 +1,44 @@
+package com.viranya.fintrack.benchmarks;
+
+import com.viranya.fintrack.ledger.TransactionColumns;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of getting a ledger into memory (the first snapshot after sign-in) and of keeping
+ * it up to date as single transactions are added or edited.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LedgerLoadBenchmark {
+
+    /**
+     * Inserts every row, then builds the newest-first order the transaction list needs.
+     */
+    @Benchmark
+    public TransactionColumns loadSnapshot(LedgerState state) {
+        TransactionColumns ledger = SyntheticLedger.build(state.size, state.now);
+        ledger.rowsNewestFirst();
+        return ledger;
+    }
+
+    /**
+     * Moves one transaction between two dates, as an edit does; the date order is kept
+     * up to date incrementally rather than re-sorted.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int editOneTransaction(LedgerState state) {
+        TransactionColumns ledger = state.ledger;
+        int row = ledger.rowOf("doc0");
+        long date = ledger.getDateMillis(row) == state.now ? state.monthStart : state.now;
+        ledger.upsert("doc0", ledger.getTitle(row), ledger.getType(row), ledger.getCategory(row),
+                ledger.getAccount(row), date, ledger.getAmountMinor(row));
+        return ledger.size();
+    }
+}
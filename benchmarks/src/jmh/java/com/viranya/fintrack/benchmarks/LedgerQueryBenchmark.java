@@ -0,0 +1,70 @@
+package com.viranya.fintrack.benchmarks;
+
+import com.viranya.fintrack.ledger.TransactionColumns;
+import com.viranya.fintrack.ledger.TransactionFilter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The transaction list's type tabs, search box and filter dialog.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LedgerQueryBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Filters {
+        TransactionFilter lastYearFoodAndTransport;
+
+        @Setup
+        public void setUp(LedgerState state) {
+            lastYearFoodAndTransport = new TransactionFilter.Builder()
+                    .setDateRange(state.now - TimeUnit.DAYS.toMillis(365), state.now)
+                    .setCategories(new HashSet<>(Arrays.asList("Food", "Transport")))
+                    .setAmountRange(10_00, 5_000_00)
+                    .setQuery("lunch")
+                    .build();
+        }
+    }
+
+    @Benchmark
+    public int[] recentRows(LedgerState state) {
+        return state.ledger.newestRows(5);
+    }
+
+    @Benchmark
+    public int[] expensesTab(LedgerState state) {
+        return state.ledger.filter(state.ledger.typeId("Expense"), "");
+    }
+
+    /**
+     * A search long enough to use the title trigram index.
+     */
+    @Benchmark
+    public int[] searchIndexed(LedgerState state) {
+        return state.ledger.filter(TransactionColumns.ANY, "coffee");
+    }
+
+    /**
+     * A two-letter search, which falls back to scanning every title.
+     */
+    @Benchmark
+    public int[] searchShort(LedgerState state) {
+        return state.ledger.filter(TransactionColumns.ANY, "bu");
+    }
+
+    @Benchmark
+    public int[] filterDialog(LedgerState state, Filters filters) {
+        return state.ledger.query(filters.lastYearFoodAndTransport);
+    }
+}
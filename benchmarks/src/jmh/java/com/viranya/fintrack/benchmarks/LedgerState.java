@@ -0,0 +1,36 @@
+package com.viranya.fintrack.benchmarks;
+
+import com.viranya.fintrack.ledger.TransactionColumns;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * A loaded ledger shared by the read-only benchmarks. Built once per trial; building it is
+ * measured separately by {@link LedgerLoadBenchmark}.
+ */
+@State(Scope.Benchmark)
+public class LedgerState {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    public final ZoneId zone = ZoneId.of("Asia/Colombo");
+    public final LocalDate today = LocalDate.of(2025, 6, 15); // Fixed, so results do not drift with the calendar
+    public long now;
+    public long monthStart;
+    public TransactionColumns ledger;
+
+    @Setup
+    public void setUp() {
+        now = today.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli() - 1;
+        monthStart = today.withDayOfMonth(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        ledger = SyntheticLedger.build(size, now);
+        ledger.rowsNewestFirst(); // The app builds the date order as soon as the first screen reads it
+    }
+}
@@ -0,0 +1,50 @@
+package com.viranya.fintrack.benchmarks;
+
+import com.viranya.fintrack.ledger.TransactionColumns;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+
+/**
+ * Generates reproducible ledgers shaped like a real user's history: mostly expenses spread
+ * over the last ten years, a dozen categories, a few accounts and short free-text titles.
+ */
+final class SyntheticLedger {
+
+    static final String[] CATEGORIES = {"Food", "Transport", "Bills", "Rent", "Shopping", "Health", "Education",
+            "Entertainment", "Travel", "Gifts", "Internal Transfer", "Other"};
+    static final String[] INCOME_CATEGORIES = {"Salary", "Freelance", "Gift", "Initial Balance", "Other"};
+    static final String[] ACCOUNTS = {"Cash", "Bank", "Credit Card", "Savings"};
+    private static final String[] WORDS = {"coffee", "lunch", "bus", "taxi", "groceries", "electricity", "water",
+            "phone", "movie", "book", "pharmacy", "fuel", "dinner", "rent", "gift", "salary", "bonus", "internet"};
+    static final int YEARS = 10;
+
+    private SyntheticLedger() {}
+
+    /**
+     * @param size The number of transactions.
+     * @param now The end of the ledger's ten-year span, in epoch millis.
+     */
+    static TransactionColumns build(int size, long now) {
+        TransactionColumns ledger = new TransactionColumns();
+        fill(ledger, size, now);
+        return ledger;
+    }
+
+    static void fill(TransactionColumns ledger, int size, long now) {
+        Random random = new Random(42); // Fixed seed: every run measures the same ledger
+        long span = now - Instant.ofEpochMilli(now).minus(YEARS * 365L, ChronoUnit.DAYS).toEpochMilli();
+        for (int i = 0; i < size; i++) {
+            boolean income = random.nextInt(10) == 0;
+            String category = income
+                    ? INCOME_CATEGORIES[random.nextInt(INCOME_CATEGORIES.length)]
+                    : CATEGORIES[random.nextInt(CATEGORIES.length)];
+            String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " #" + random.nextInt(1000);
+            // Incomes are larger and rarer than expenses
+            long amountMinor = income ? 5_000_00L + random.nextInt(200_000_00) : 50_00L + random.nextInt(20_000_00);
+            ledger.upsert("doc" + i, title, income ? "Income" : "Expense", category,
+                    ACCOUNTS[random.nextInt(ACCOUNTS.length)], now - (long) (random.nextDouble() * span), amountMinor);
+        }
+    }
+}
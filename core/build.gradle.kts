@@ -0,0 +1,14 @@
+plugins {
+    `java-library`
+}
+
+// Plain Java: the ledger engines have no Android or Firebase dependencies, so they run
+// (and are benchmarked) on any JVM.
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    testImplementation(libs.junit)
+}
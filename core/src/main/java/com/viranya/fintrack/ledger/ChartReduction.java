@@ -0,0 +1,94 @@
+package com.viranya.fintrack.ledger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shrinks data before it is handed to a chart: a pie only needs its largest slices,
+ * and a line chart cannot show more points than it has pixels.
+ */
+public final class ChartReduction {
+
+    private ChartReduction() {}
+
+    /**
+     * Keeps the {@code limit} largest positive values and sums the rest into one {@code otherLabel} slice.
+     * @return The slices, largest first, with the "other" slice (if any) last.
+     */
+    public static Map<String, Long> topN(Map<String, Long> values, int limit, String otherLabel) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(values.size());
+        for (Map.Entry<String, Long> entry : values.entrySet()) {
+            if (entry.getValue() != null && entry.getValue() > 0) entries.add(entry);
+        }
+        entries.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+
+        Map<String, Long> result = new LinkedHashMap<>();
+        long other = 0;
+        // If only one slice would be left over, show it instead of an "other" slice of one
+        int kept = entries.size() <= limit + 1 ? entries.size() : limit;
+        for (int i = 0; i < entries.size(); i++) {
+            if (i < kept) {
+                result.put(entries.get(i).getKey(), entries.get(i).getValue());
+            } else {
+                other += entries.get(i).getValue();
+            }
+        }
+        if (other > 0) result.merge(otherLabel, other, Long::sum);
+        return result;
+    }
+
+    /**
+     * Largest-Triangle-Three-Buckets downsampling: picks {@code threshold} points that keep the
+     * visual shape of the series, always including the first and last point.
+     * @param x Ascending x values.
+     * @param y The y value of each point.
+     * @return The indexes of the selected points, ascending. All indexes if the series is already small enough.
+     */
+    public static int[] lttb(float[] x, float[] y, int threshold) {
+        int length = x.length;
+        if (threshold >= length || threshold < 3) {
+            int[] all = new int[length];
+            for (int i = 0; i < length; i++) all[i] = i;
+            return all;
+        }
+
+        int[] selected = new int[threshold];
+        int count = 0;
+        selected[count++] = 0;
+        double bucketSize = (double) (length - 2) / (threshold - 2);
+        int previous = 0;
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // The average of the next bucket is the third corner of each candidate triangle
+            int nextStart = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, length);
+            double averageX = 0, averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += x[i];
+                averageY += y[i];
+            }
+            int nextCount = Math.max(1, nextEnd - nextStart);
+            averageX /= nextCount;
+            averageY /= nextCount;
+
+            int start = (int) Math.floor(bucket * bucketSize) + 1;
+            int end = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            double maxArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((x[previous] - averageX) * (y[i] - y[previous])
+                        - (x[previous] - x[i]) * (averageY - y[previous]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            selected[count++] = chosen;
+            previous = chosen;
+        }
+        selected[count] = length - 1;
+        return selected;
+    }
+}
@@ -0,0 +1,79 @@
+package com.viranya.fintrack.ledger;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Formats transactions as CSV rows: quoted text columns and amounts with exactly two decimals.
+ * Rows go straight to the given writer, so exports of any size use constant memory.
+ */
+public final class CsvWriter {
+
+    public static final String HEADER = "Date,Type,Category,Title,Amount\n";
+
+    private final Writer writer;
+    // DateTimeFormatter is immutable and thread-safe, so one instance serves every row.
+    private final DateTimeFormatter dateFormat;
+
+    public CsvWriter(Writer writer, ZoneId zone) {
+        this.writer = writer;
+        this.dateFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss", Locale.getDefault()).withZone(zone);
+    }
+
+    public void writeHeader() throws IOException {
+        writer.write(HEADER);
+    }
+
+    /**
+     * @param dateMillis The transaction's date, or null if it has none.
+     */
+    public void writeRow(Long dateMillis, String type, String category, String title, long amountMinor) throws IOException {
+        writeQuoted(dateMillis == null ? "" : dateFormat.format(Instant.ofEpochMilli(dateMillis)));
+        writer.write(',');
+        writeQuoted(type);
+        writer.write(',');
+        writeQuoted(category);
+        writer.write(',');
+        writeQuoted(title);
+        writer.write(',');
+        writeAmount(amountMinor);
+        writer.write('\n');
+    }
+
+    /**
+     * Writes the given rows of an in-memory ledger, in the order given.
+     */
+    public void writeRows(TransactionColumns ledger, int[] rows) throws IOException {
+        for (int row : rows) {
+            writeRow(ledger.getDateMillis(row), ledger.getType(row), ledger.getCategory(row),
+                    ledger.getTitle(row), ledger.getAmountMinor(row));
+        }
+    }
+
+    private void writeQuoted(String value) throws IOException {
+        writer.write('"');
+        if (value != null) {
+            writer.write(value.indexOf('"') < 0 ? value : value.replace("\"", "\"\""));
+        }
+        writer.write('"');
+    }
+
+    /**
+     * Writes an amount with exactly two decimals, e.g. 1234 minor units as "12.34".
+     */
+    private void writeAmount(long amountMinor) throws IOException {
+        if (amountMinor < 0) {
+            writer.write('-');
+            amountMinor = -amountMinor;
+        }
+        writer.write(Long.toString(amountMinor / Money.SCALE));
+        writer.write('.');
+        long cents = amountMinor % Money.SCALE;
+        if (cents < 10) writer.write('0');
+        writer.write(Long.toString(cents));
+    }
+}
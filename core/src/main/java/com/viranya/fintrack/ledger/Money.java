@@ -0,0 +1,66 @@
+package com.viranya.fintrack.ledger;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money is held as a {@code long} count of minor units (cents), so sums and differences are exact.
+ * Doubles only appear at the edges: reading documents written before the minor-unit fields
+ * existed, and handing values to formatters and charts.
+ */
+public final class Money {
+
+    public static final int SCALE = 100; // Minor units per major unit
+    public static final String MINOR_SUFFIX = "Minor";
+    // Set on a document once its minor-unit fields hold the full amounts, see resolveMinor()
+    public static final String MIGRATED_FIELD = "minorUnits";
+
+    private Money() {}
+
+    /**
+     * Converts a major-unit double (e.g. a legacy Firestore field) to minor units, rounding half up.
+     */
+    public static long toMinor(double amount) { return Math.round(amount * SCALE); }
+
+    /**
+     * Converts minor units to a major-unit double, for display and chart values only.
+     */
+    public static double toMajor(long amountMinor) { return amountMinor / (double) SCALE; }
+
+    /**
+     * Parses user input such as "1250.5" exactly, rounding anything past two decimals half up.
+     * @throws NumberFormatException If the text is not a number or does not fit in a long.
+     */
+    public static long parse(String text) {
+        try {
+            return new BigDecimal(text.trim()).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: " + text);
+        }
+    }
+
+    /**
+     * @return Plain major-unit text for an input field, e.g. 125050 becomes "1250.50".
+     */
+    public static String toPlainString(long amountMinor) {
+        return BigDecimal.valueOf(amountMinor, 2).toPlainString();
+    }
+
+    /**
+     * Reads a money field kept both as a major-unit double and as a minor-unit long.
+     * The minor field is only trusted once the document is marked as migrated: an increment
+     * that lands before the migration creates it holding nothing but the increment.
+     * @param migrated True if the document carries {@link #MIGRATED_FIELD}.
+     * @param amountMinor The minor-unit field, or null if absent.
+     * @param amount The major-unit field, or null if absent.
+     */
+    public static long resolveMinor(boolean migrated, Long amountMinor, Double amount) {
+        if (migrated && amountMinor != null) return amountMinor;
+        return amount == null ? 0 : toMinor(amount);
+    }
+
+    /**
+     * @return The Firestore field holding the minor-unit counterpart of a major-unit field.
+     */
+    public static String minorField(String field) { return field + MINOR_SUFFIX; }
+}
@@ -0,0 +1,113 @@
+package com.viranya.fintrack.ledger;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+/**
+ * Income and expense totals, in minor units, for consecutive buckets of a {@link ReportPeriod}
+ * between two dates. Totals are accumulated one amount at a time, so a report over any range
+ * is built in a single pass without holding the underlying transactions.
+ *
+ * Not thread-safe; fill it on one thread, then hand it to another.
+ */
+public final class ReportBuckets {
+
+    private final ReportPeriod period;
+    private final LocalDate[] starts;   // First day of each bucket
+    private final long[] boundaries;    // Epoch millis of each bucket start, plus the end of the last one
+    private final long[] income;
+    private final long[] expense;
+
+    /**
+     * @param from The first day of the report; rounded down to the start of its bucket.
+     * @param to The last day of the report, inclusive.
+     * @param zone The time zone that decides which day a timestamp falls on.
+     */
+    public ReportBuckets(ReportPeriod period, LocalDate from, LocalDate to, ZoneId zone) {
+        if (to.isBefore(from)) throw new IllegalArgumentException("Report ends before it starts: " + from + " to " + to);
+        this.period = period;
+
+        LocalDate first = period.startOf(from);
+        int count = 0;
+        for (LocalDate start = first; !start.isAfter(to); start = period.next(start)) count++;
+
+        starts = new LocalDate[count];
+        boundaries = new long[count + 1];
+        LocalDate start = first;
+        for (int i = 0; i < count; i++) {
+            starts[i] = start;
+            boundaries[i] = start.atStartOfDay(zone).toInstant().toEpochMilli();
+            start = period.next(start);
+        }
+        boundaries[count] = start.atStartOfDay(zone).toInstant().toEpochMilli();
+        income = new long[count];
+        expense = new long[count];
+    }
+
+    /**
+     * Adds one transaction. Amounts outside the report's range are ignored.
+     */
+    public void add(long epochMillis, boolean isIncome, long amountMinor) {
+        int bucket = bucketOf(epochMillis);
+        if (bucket < 0) return;
+        if (isIncome) {
+            income[bucket] += amountMinor;
+        } else {
+            expense[bucket] += amountMinor;
+        }
+    }
+
+    /**
+     * Adds a whole month's totals, e.g. from a monthly rollup. Only valid for month-aligned periods.
+     */
+    public void addMonth(YearMonth month, long incomeMinor, long expenseMinor) {
+        if (!period.isMonthAligned()) throw new IllegalStateException(period + " buckets cannot be built from months");
+        int bucket = indexOf(period.startOf(month.atDay(1)));
+        if (bucket < 0) return;
+        income[bucket] += incomeMinor;
+        expense[bucket] += expenseMinor;
+    }
+
+    /**
+     * Adds every Income and Expense row of the ledger in one pass over its columns.
+     * The caller must hold the ledger's lock if it is shared with another thread.
+     */
+    public void addAll(TransactionColumns ledger) {
+        long[] incomeTotals = ledger.sumByBucket(ledger.typeId("Income"), boundaries);
+        long[] expenseTotals = ledger.sumByBucket(ledger.typeId("Expense"), boundaries);
+        for (int i = 0; i < starts.length; i++) {
+            income[i] += incomeTotals[i];
+            expense[i] += expenseTotals[i];
+        }
+    }
+
+    public ReportPeriod getPeriod() { return period; }
+    public int size() { return starts.length; }
+    public LocalDate getStart(int bucket) { return starts[bucket]; }
+    public long getIncome(int bucket) { return income[bucket]; }
+    public long getExpense(int bucket) { return expense[bucket]; }
+    public String getLabel(int bucket) { return period.label(starts[bucket]); }
+
+    /**
+     * @return Epoch millis of the first bucket's start.
+     */
+    public long getFromMillis() { return boundaries[0]; }
+
+    /**
+     * @return Epoch millis of the last bucket's end, exclusive.
+     */
+    public long getEndMillis() { return boundaries[boundaries.length - 1]; }
+
+    private int bucketOf(long epochMillis) {
+        if (epochMillis < boundaries[0] || epochMillis >= boundaries[boundaries.length - 1]) return -1;
+        int index = Arrays.binarySearch(boundaries, epochMillis);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private int indexOf(LocalDate bucketStart) {
+        int index = Arrays.binarySearch(starts, bucketStart);
+        return index >= 0 ? index : -1;
+    }
+}
@@ -0,0 +1,71 @@
+package com.viranya.fintrack.ledger;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+
+/**
+ * The granularity of a report's buckets. Weeks start on Monday (ISO-8601).
+ */
+public enum ReportPeriod {
+    DAY("Day", DateTimeFormatter.ofPattern("d MMM yy", Locale.getDefault())),
+    WEEK("Week", DateTimeFormatter.ofPattern("d MMM yy", Locale.getDefault())),
+    MONTH("Month", DateTimeFormatter.ofPattern("MMM yy", Locale.getDefault())),
+    QUARTER("Quarter", null),
+    YEAR("Year", DateTimeFormatter.ofPattern("yyyy", Locale.getDefault()));
+
+    private final String displayName;
+    private final DateTimeFormatter labelFormat; // Null for quarters, which have no pattern letter
+
+    ReportPeriod(String displayName, DateTimeFormatter labelFormat) {
+        this.displayName = displayName;
+        this.labelFormat = labelFormat;
+    }
+
+    public String getDisplayName() { return displayName; }
+
+    /**
+     * @return True if buckets of this period are whole months, so they can be built from monthly rollups.
+     */
+    public boolean isMonthAligned() {
+        return this == MONTH || this == QUARTER || this == YEAR;
+    }
+
+    /**
+     * @return The first day of the bucket containing the date.
+     */
+    public LocalDate startOf(LocalDate date) {
+        switch (this) {
+            case DAY: return date;
+            case WEEK: return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH: return date.withDayOfMonth(1);
+            case QUARTER: return LocalDate.of(date.getYear(), (date.getMonthValue() - 1) / 3 * 3 + 1, 1);
+            default: return date.withDayOfYear(1);
+        }
+    }
+
+    /**
+     * @return The first day of the bucket after the one starting on bucketStart.
+     */
+    public LocalDate next(LocalDate bucketStart) {
+        switch (this) {
+            case DAY: return bucketStart.plusDays(1);
+            case WEEK: return bucketStart.plusWeeks(1);
+            case MONTH: return bucketStart.plusMonths(1);
+            case QUARTER: return bucketStart.plusMonths(3);
+            default: return bucketStart.plusYears(1);
+        }
+    }
+
+    /**
+     * @return A short axis label for the bucket starting on bucketStart, e.g. "Q3 24".
+     */
+    public String label(LocalDate bucketStart) {
+        if (labelFormat == null) {
+            return "Q" + ((bucketStart.getMonthValue() - 1) / 3 + 1) + " " + String.format(Locale.US, "%02d", bucketStart.getYear() % 100);
+        }
+        return labelFormat.format(bucketStart);
+    }
+}
@@ -0,0 +1,52 @@
+package com.viranya.fintrack.ledger;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dictionary-encodes repeated strings (types, categories, account names) into small int ids,
+ * so columns can store an int per row instead of a String reference.
+ */
+public final class StringDictionary {
+
+    public static final int NOT_FOUND = -1;
+
+    private final Map<String, Integer> idsByValue = new HashMap<>();
+    private String[] values = new String[16];
+    private int size = 0;
+
+    /**
+     * Returns the id for a value, assigning a new one if it has not been seen before.
+     */
+    public int encode(String value) {
+        if (value == null) value = "";
+        Integer id = idsByValue.get(value);
+        if (id != null) return id;
+
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size] = value;
+        idsByValue.put(value, size);
+        return size++;
+    }
+
+    /**
+     * Returns the id for a value without assigning one, or {@link #NOT_FOUND}.
+     */
+    public int lookup(String value) {
+        Integer id = idsByValue.get(value == null ? "" : value);
+        return id == null ? NOT_FOUND : id;
+    }
+
+    public String decode(int id) { return values[id]; }
+
+    public int size() { return size; }
+
+    public void clear() {
+        idsByValue.clear();
+        values = new String[16];
+        size = 0;
+    }
+}
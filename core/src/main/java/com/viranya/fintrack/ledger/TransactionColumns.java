@@ -0,0 +1,443 @@
+package com.viranya.fintrack.ledger;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A column-oriented, in-memory copy of the transaction ledger.
+ * Each field is kept in its own primitive array (epoch millis, amounts in minor units,
+ * dictionary-encoded type/category/account ids), so aggregations and filters scan
+ * contiguous memory instead of walking a list of boxed Transaction objects.
+ *
+ * Row order is not meaningful; use {@link #rowsNewestFirst()} for display order.
+ * This class is not thread-safe: writers and any reader on another thread must hold the
+ * instance's monitor ({@code synchronized (ledger)}).
+ */
+public final class TransactionColumns {
+
+    /** Pass as a type id to match every type. */
+    public static final int ANY = -2;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final StringDictionary types = new StringDictionary();
+    private final StringDictionary categories = new StringDictionary();
+    private final StringDictionary accounts = new StringDictionary();
+    private final Map<String, Integer> rowsByDocumentId = new HashMap<>();
+    private final TrigramIndex titleIndex = new TrigramIndex();
+
+    private String[] documentIds = new String[INITIAL_CAPACITY];
+    private String[] titles = new String[INITIAL_CAPACITY];
+    private String[] searchKeys = new String[INITIAL_CAPACITY]; // Lower-cased titles
+    private long[] dates = new long[INITIAL_CAPACITY];
+    private long[] amounts = new long[INITIAL_CAPACITY];
+    private int[] typeIds = new int[INITIAL_CAPACITY];
+    private int[] categoryIds = new int[INITIAL_CAPACITY];
+    private int[] accountIds = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    private int[] newestFirst; // Cached sort order, kept up to date on every mutation once built
+    private int orderSize = 0;
+
+    // --- Mutation ---
+
+    /**
+     * Inserts a row, or overwrites the existing row with the same document id.
+     */
+    public void upsert(String documentId, String title, String type, String category,
+                       String account, long dateMillis, long amountMinor) {
+        Integer existing = rowsByDocumentId.get(documentId);
+        int row;
+        String searchKey = title == null ? "" : title.toLowerCase();
+        if (existing != null) {
+            row = existing;
+            if (newestFirst != null && dates[row] != dateMillis) {
+                removeFromOrder(row);
+            }
+            if (!searchKeys[row].equals(searchKey)) {
+                titleIndex.remove(row, searchKeys[row]);
+                titleIndex.add(row, searchKey);
+            }
+        } else {
+            ensureCapacity(size + 1);
+            row = size++;
+            rowsByDocumentId.put(documentId, row);
+            titleIndex.add(row, searchKey);
+        }
+        boolean needsOrdering = existing == null || dates[row] != dateMillis;
+        documentIds[row] = documentId;
+        titles[row] = title == null ? "" : title;
+        searchKeys[row] = searchKey;
+        dates[row] = dateMillis;
+        amounts[row] = amountMinor;
+        typeIds[row] = types.encode(type);
+        categoryIds[row] = categories.encode(category);
+        accountIds[row] = accounts.encode(account);
+        if (newestFirst != null && needsOrdering) {
+            insertIntoOrder(row);
+        }
+    }
+
+    /**
+     * Removes a row by moving the last row into its slot.
+     * @return true if the document was present.
+     */
+    public boolean remove(String documentId) {
+        Integer removed = rowsByDocumentId.remove(documentId);
+        if (removed == null) return false;
+
+        int row = removed;
+        if (newestFirst != null) {
+            removeFromOrder(row);
+        }
+        titleIndex.remove(row, searchKeys[row]);
+        int last = --size;
+        if (row != last) {
+            titleIndex.move(last, row, searchKeys[last]);
+            documentIds[row] = documentIds[last];
+            titles[row] = titles[last];
+            searchKeys[row] = searchKeys[last];
+            dates[row] = dates[last];
+            amounts[row] = amounts[last];
+            typeIds[row] = typeIds[last];
+            categoryIds[row] = categoryIds[last];
+            accountIds[row] = accountIds[last];
+            rowsByDocumentId.put(documentIds[row], row);
+            if (newestFirst != null) {
+                renumberInOrder(last, row);
+            }
+        }
+        documentIds[last] = null;
+        titles[last] = null;
+        searchKeys[last] = null;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(documentIds, 0, size, null);
+        Arrays.fill(titles, 0, size, null);
+        Arrays.fill(searchKeys, 0, size, null);
+        rowsByDocumentId.clear();
+        titleIndex.clear();
+        types.clear();
+        categories.clear();
+        accounts.clear();
+        size = 0;
+        newestFirst = null;
+        orderSize = 0;
+    }
+
+    // --- Row Access ---
+
+    public int size() { return size; }
+
+    public int rowOf(String documentId) {
+        Integer row = rowsByDocumentId.get(documentId);
+        return row == null ? -1 : row;
+    }
+
+    public String getDocumentId(int row) { return documentIds[row]; }
+    public String getTitle(int row) { return titles[row]; }
+    public long getDateMillis(int row) { return dates[row]; }
+    public long getAmountMinor(int row) { return amounts[row]; }
+    public String getType(int row) { return types.decode(typeIds[row]); }
+    public String getCategory(int row) { return categories.decode(categoryIds[row]); }
+    public String getAccount(int row) { return accounts.decode(accountIds[row]); }
+
+    public int typeId(String type) { return types.lookup(type); }
+    public int categoryId(String category) { return categories.lookup(category); }
+    public int accountId(String account) { return accounts.lookup(account); }
+    public String categoryName(int categoryId) { return categories.decode(categoryId); }
+    public int categoryCount() { return categories.size(); }
+    public String accountName(int accountId) { return accounts.decode(accountId); }
+    public int accountCount() { return accounts.size(); }
+
+    // --- Scans ---
+
+    /**
+     * @return Row indexes sorted by date, newest first. Once built, the order is maintained
+     * incrementally, so single-row changes cost an array shift instead of a full sort.
+     */
+    public int[] rowsNewestFirst() {
+        ensureOrder();
+        return Arrays.copyOf(newestFirst, orderSize);
+    }
+
+    /**
+     * @return Up to {@code limit} row indexes, newest first.
+     */
+    public int[] newestRows(int limit) {
+        ensureOrder();
+        return Arrays.copyOf(newestFirst, Math.min(limit, orderSize));
+    }
+
+    /**
+     * Returns the rows matching a type and a lower-cased search query, newest first.
+     * @param typeId A type id from {@link #typeId(String)}, or {@link #ANY}.
+     * @param query A lower-cased query, or an empty string to match every row.
+     * @see #query(TransactionFilter)
+     */
+    public int[] filter(int typeId, String query) {
+        ensureOrder();
+        return scan(0, orderSize, typeId, null, null, Long.MIN_VALUE, Long.MAX_VALUE, query);
+    }
+
+    /**
+     * Returns the rows matching every criterion of a filter, newest first.
+     * <ul>
+     *   <li>Date: the newest-first order is a sorted index on date, so the range becomes a
+     *       contiguous window found by binary search; rows outside it are never visited.</li>
+     *   <li>Type, category and account: resolved once to masks over dictionary ids, so each
+     *       row costs an array lookup instead of a string comparison.</li>
+     *   <li>Text: see {@link #filter(int, String)}; a row matches when its title, category or
+     *       account name contains the query.</li>
+     * </ul>
+     */
+    public int[] query(TransactionFilter filter) {
+        ensureOrder();
+        int typeId = ANY;
+        if (filter.getType() != null) {
+            typeId = types.lookup(filter.getType());
+            if (typeId == StringDictionary.NOT_FOUND) return new int[0];
+        }
+        boolean[] categoryMask = filter.getCategories().isEmpty() ? null : maskOf(categories, filter.getCategories());
+        boolean[] accountMask = filter.getAccounts().isEmpty() ? null : maskOf(accounts, filter.getAccounts());
+
+        int start = firstPositionAtOrBefore(filter.getToMillis());
+        int end = firstPositionBefore(filter.getFromMillis());
+        return scan(start, end, typeId, categoryMask, accountMask,
+                filter.getMinAmountMinor(), filter.getMaxAmountMinor(), filter.getQuery());
+    }
+
+    /**
+     * Evaluates all row-level criteria over the positions [start, end) of the newest-first order.
+     */
+    private int[] scan(int start, int end, int typeId, boolean[] categoryMask, boolean[] accountMask,
+                       long minAmountMinor, long maxAmountMinor, String query) {
+        boolean matchAll = query == null || query.isEmpty();
+        BitSet titleMatches = null;
+        boolean[] categoryMatches = null, accountMatches = null;
+        if (!matchAll) {
+            if (query.length() >= TrigramIndex.MIN_QUERY_LENGTH) {
+                titleMatches = new BitSet(size);
+                for (int row : titleIndex.candidates(query)) {
+                    if (searchKeys[row].contains(query)) titleMatches.set(row);
+                }
+            }
+            categoryMatches = matchDictionary(categories, query);
+            accountMatches = matchDictionary(accounts, query);
+        }
+
+        int[] order = newestFirst;
+        int[] result = new int[Math.max(0, end - start)];
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            int row = order[i];
+            if (typeId != ANY && typeIds[row] != typeId) continue;
+            if (categoryMask != null && !categoryMask[categoryIds[row]]) continue;
+            if (accountMask != null && !accountMask[accountIds[row]]) continue;
+            long amount = amounts[row];
+            if (amount < minAmountMinor || amount > maxAmountMinor) continue;
+            if (!matchAll && !categoryMatches[categoryIds[row]] && !accountMatches[accountIds[row]]) {
+                boolean titleMatch = titleMatches != null ? titleMatches.get(row) : searchKeys[row].contains(query);
+                if (!titleMatch) continue;
+            }
+            result[count++] = row;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Sums the amounts of one type within [fromMillis, toMillis], optionally skipping a category.
+     * @param excludedCategoryId A category id to skip, or {@link StringDictionary#NOT_FOUND} to include all.
+     */
+    public long sum(int typeId, long fromMillis, long toMillis, int excludedCategoryId) {
+        long total = 0;
+        for (int row = 0; row < size; row++) {
+            if (typeIds[row] != typeId) continue;
+            long date = dates[row];
+            if (date < fromMillis || date > toMillis) continue;
+            if (categoryIds[row] == excludedCategoryId) continue;
+            total += amounts[row];
+        }
+        return total;
+    }
+
+    /**
+     * Sums the amounts of one type within [fromMillis, toMillis], grouped by category id.
+     * @return An array indexed by category id; see {@link #categoryName(int)}.
+     */
+    public long[] sumByCategory(int typeId, long fromMillis, long toMillis) {
+        long[] totals = new long[categories.size()];
+        for (int row = 0; row < size; row++) {
+            if (typeIds[row] != typeId) continue;
+            long date = dates[row];
+            if (date < fromMillis || date > toMillis) continue;
+            totals[categoryIds[row]] += amounts[row];
+        }
+        return totals;
+    }
+
+    /**
+     * Sums the amounts of one type into consecutive time buckets.
+     * @param boundaries Ascending bucket edges in epoch millis; bucket i covers [boundaries[i], boundaries[i + 1]).
+     * @return An array of boundaries.length - 1 totals.
+     */
+    public long[] sumByBucket(int typeId, long[] boundaries) {
+        long[] totals = new long[Math.max(0, boundaries.length - 1)];
+        if (totals.length == 0) return totals;
+        long first = boundaries[0];
+        long end = boundaries[boundaries.length - 1];
+        for (int row = 0; row < size; row++) {
+            if (typeIds[row] != typeId) continue;
+            long date = dates[row];
+            if (date < first || date >= end) continue;
+            int index = Arrays.binarySearch(boundaries, date);
+            int bucket = index >= 0 ? index : -index - 2;
+            totals[bucket] += amounts[row];
+        }
+        return totals;
+    }
+
+    /**
+     * Sums each account's net balance change (income minus everything else) within
+     * [fromMillis, toMillis]. Only rows inside the date window are visited, found by binary
+     * search on the newest-first order, so replaying a short window costs O(window), not O(history).
+     * @return An array indexed by account id; see {@link #accountName(int)}.
+     */
+    public long[] netByAccount(long fromMillis, long toMillis) {
+        ensureOrder();
+        long[] totals = new long[accounts.size()];
+        int incomeId = types.lookup("Income");
+        int start = firstPositionAtOrBefore(toMillis);
+        int end = firstPositionBefore(fromMillis);
+        for (int i = start; i < end; i++) {
+            int row = newestFirst[i];
+            totals[accountIds[row]] += typeIds[row] == incomeId ? amounts[row] : -amounts[row];
+        }
+        return totals;
+    }
+
+    // --- Internals ---
+
+    /**
+     * Builds the newest-first order on first use. Synchronized because it can be triggered
+     * by a reader on a background thread while the main thread reads.
+     */
+    private synchronized void ensureOrder() {
+        if (newestFirst != null) return;
+        int[] rows = new int[Math.max(size, INITIAL_CAPACITY)];
+        for (int i = 0; i < size; i++) rows[i] = i;
+        int[] scratch = new int[size];
+        mergeSortByDateDesc(rows, scratch, 0, size);
+        orderSize = size;
+        newestFirst = rows;
+    }
+
+    /**
+     * @return The first position in the newest-first order whose date is at or before the given time.
+     */
+    private int firstPositionAtOrBefore(long millis) {
+        int low = 0, high = orderSize;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (dates[newestFirst[mid]] > millis) low = mid + 1; else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * @return The first position in the newest-first order whose date is strictly before the given time.
+     */
+    private int firstPositionBefore(long millis) {
+        int low = 0, high = orderSize;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (dates[newestFirst[mid]] >= millis) low = mid + 1; else high = mid;
+        }
+        return low;
+    }
+
+    private static boolean[] maskOf(StringDictionary dictionary, Set<String> values) {
+        boolean[] mask = new boolean[dictionary.size()];
+        for (String value : values) {
+            int id = dictionary.lookup(value);
+            if (id != StringDictionary.NOT_FOUND) mask[id] = true;
+        }
+        return mask;
+    }
+
+    private static boolean[] matchDictionary(StringDictionary dictionary, String query) {
+        boolean[] matches = new boolean[dictionary.size()];
+        for (int id = 0; id < matches.length; id++) {
+            matches[id] = dictionary.decode(id).toLowerCase().contains(query);
+        }
+        return matches;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= dates.length) return;
+        int capacity = Math.max(required, dates.length * 2);
+        documentIds = Arrays.copyOf(documentIds, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        searchKeys = Arrays.copyOf(searchKeys, capacity);
+        dates = Arrays.copyOf(dates, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        typeIds = Arrays.copyOf(typeIds, capacity);
+        categoryIds = Arrays.copyOf(categoryIds, capacity);
+        accountIds = Arrays.copyOf(accountIds, capacity);
+    }
+
+    private void insertIntoOrder(int row) {
+        if (orderSize == newestFirst.length) {
+            newestFirst = Arrays.copyOf(newestFirst, orderSize * 2);
+        }
+        // Binary search for the first position holding an older row
+        long date = dates[row];
+        int low = 0, high = orderSize;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (dates[newestFirst[mid]] >= date) low = mid + 1; else high = mid;
+        }
+        System.arraycopy(newestFirst, low, newestFirst, low + 1, orderSize - low);
+        newestFirst[low] = row;
+        orderSize++;
+    }
+
+    private void removeFromOrder(int row) {
+        for (int i = 0; i < orderSize; i++) {
+            if (newestFirst[i] == row) {
+                System.arraycopy(newestFirst, i + 1, newestFirst, i, orderSize - i - 1);
+                orderSize--;
+                return;
+            }
+        }
+    }
+
+    private void renumberInOrder(int oldRow, int newRow) {
+        for (int i = 0; i < orderSize; i++) {
+            if (newestFirst[i] == oldRow) {
+                newestFirst[i] = newRow;
+                return;
+            }
+        }
+    }
+
+    private void mergeSortByDateDesc(int[] rows, int[] scratch, int from, int to) {
+        if (to - from < 2) return;
+        int mid = (from + to) >>> 1;
+        mergeSortByDateDesc(rows, scratch, from, mid);
+        mergeSortByDateDesc(rows, scratch, mid, to);
+        if (dates[rows[mid - 1]] >= dates[rows[mid]]) return; // Already in order
+        System.arraycopy(rows, from, scratch, from, to - from);
+        int left = from, right = mid, out = from;
+        while (left < mid && right < to) {
+            rows[out++] = dates[scratch[left]] >= dates[scratch[right]] ? scratch[left++] : scratch[right++];
+        }
+        while (left < mid) rows[out++] = scratch[left++];
+        while (right < to) rows[out++] = scratch[right++];
+    }
+}
@@ -0,0 +1,127 @@
+package com.viranya.fintrack.ledger;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * An immutable set of criteria for {@link TransactionColumns#query(TransactionFilter)}.
+ * Every criterion is optional; an empty filter matches every transaction.
+ * Criteria are combined with AND, and the values inside a set are combined with OR.
+ */
+public final class TransactionFilter {
+
+    public static final TransactionFilter ALL = new Builder().build();
+
+    private final String type;                // Null for any type
+    private final Set<String> categories;     // Empty for any category
+    private final Set<String> accounts;       // Empty for any account
+    private final long fromMillis;            // Inclusive
+    private final long toMillis;              // Inclusive
+    private final long minAmountMinor;        // Inclusive
+    private final long maxAmountMinor;        // Inclusive
+    private final String query;               // Lower-cased; empty for no text search
+
+    private TransactionFilter(Builder builder) {
+        type = builder.type;
+        categories = Collections.unmodifiableSet(new HashSet<>(builder.categories));
+        accounts = Collections.unmodifiableSet(new HashSet<>(builder.accounts));
+        fromMillis = builder.fromMillis;
+        toMillis = builder.toMillis;
+        minAmountMinor = builder.minAmountMinor;
+        maxAmountMinor = builder.maxAmountMinor;
+        query = builder.query;
+    }
+
+    public String getType() { return type; }
+    public Set<String> getCategories() { return categories; }
+    public Set<String> getAccounts() { return accounts; }
+    public long getFromMillis() { return fromMillis; }
+    public long getToMillis() { return toMillis; }
+    public long getMinAmountMinor() { return minAmountMinor; }
+    public long getMaxAmountMinor() { return maxAmountMinor; }
+    public String getQuery() { return query; }
+
+    public boolean hasDateRange() { return fromMillis != Long.MIN_VALUE || toMillis != Long.MAX_VALUE; }
+
+    public boolean hasAmountRange() { return minAmountMinor != Long.MIN_VALUE || maxAmountMinor != Long.MAX_VALUE; }
+
+    /**
+     * @return True if any criterion other than the type and the text query is set.
+     */
+    public boolean hasAdvancedCriteria() {
+        return !categories.isEmpty() || !accounts.isEmpty() || hasDateRange() || hasAmountRange();
+    }
+
+    public boolean isEmpty() {
+        return type == null && query.isEmpty() && !hasAdvancedCriteria();
+    }
+
+    public Builder toBuilder() {
+        Builder builder = new Builder()
+                .setType(type)
+                .setDateRange(fromMillis, toMillis)
+                .setAmountRange(minAmountMinor, maxAmountMinor)
+                .setQuery(query);
+        builder.categories.addAll(categories);
+        builder.accounts.addAll(accounts);
+        return builder;
+    }
+
+    public static final class Builder {
+        private String type;
+        private final Set<String> categories = new HashSet<>();
+        private final Set<String> accounts = new HashSet<>();
+        private long fromMillis = Long.MIN_VALUE;
+        private long toMillis = Long.MAX_VALUE;
+        private long minAmountMinor = Long.MIN_VALUE;
+        private long maxAmountMinor = Long.MAX_VALUE;
+        private String query = "";
+
+        public Builder setType(String type) {
+            this.type = type;
+            return this;
+        }
+
+        public Builder setCategories(Set<String> categories) {
+            this.categories.clear();
+            this.categories.addAll(categories);
+            return this;
+        }
+
+        public Builder setAccounts(Set<String> accounts) {
+            this.accounts.clear();
+            this.accounts.addAll(accounts);
+            return this;
+        }
+
+        /**
+         * @param fromMillis Inclusive start, or {@link Long#MIN_VALUE} for no lower bound.
+         * @param toMillis Inclusive end, or {@link Long#MAX_VALUE} for no upper bound.
+         */
+        public Builder setDateRange(long fromMillis, long toMillis) {
+            this.fromMillis = fromMillis;
+            this.toMillis = toMillis;
+            return this;
+        }
+
+        /**
+         * @param minAmountMinor Inclusive minimum in minor units, or {@link Long#MIN_VALUE} for none.
+         * @param maxAmountMinor Inclusive maximum in minor units, or {@link Long#MAX_VALUE} for none.
+         */
+        public Builder setAmountRange(long minAmountMinor, long maxAmountMinor) {
+            this.minAmountMinor = minAmountMinor;
+            this.maxAmountMinor = maxAmountMinor;
+            return this;
+        }
+
+        public Builder setQuery(String query) {
+            this.query = query == null ? "" : query.toLowerCase().trim();
+            return this;
+        }
+
+        public TransactionFilter build() {
+            return new TransactionFilter(this);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.viranya.fintrack.ledger;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An inverted index from every three-character substring of a row's search key to the rows
+ * containing it. A substring query of three or more characters only has to check the rows in
+ * the shortest posting list of its trigrams, instead of every row.
+ *
+ * Posting lists may hold a row more than once (when a trigram repeats in the key);
+ * callers verify candidates against the full key anyway.
+ */
+final class TrigramIndex {
+
+    static final int MIN_QUERY_LENGTH = 3;
+
+    private static final int[] NO_ROWS = new int[0];
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    void add(int row, String key) {
+        for (int i = 0; i + MIN_QUERY_LENGTH <= key.length(); i++) {
+            Postings list = postings.get(trigram(key, i));
+            if (list == null) {
+                list = new Postings();
+                postings.put(trigram(key, i), list);
+            }
+            list.add(row);
+        }
+    }
+
+    void remove(int row, String key) {
+        for (int i = 0; i + MIN_QUERY_LENGTH <= key.length(); i++) {
+            long trigram = trigram(key, i);
+            Postings list = postings.get(trigram);
+            if (list != null && list.remove(row) && list.size == 0) {
+                postings.remove(trigram);
+            }
+        }
+    }
+
+    /**
+     * Renumbers a row after it has been moved to a new slot.
+     */
+    void move(int oldRow, int newRow, String key) {
+        for (int i = 0; i + MIN_QUERY_LENGTH <= key.length(); i++) {
+            Postings list = postings.get(trigram(key, i));
+            if (list != null) list.replace(oldRow, newRow);
+        }
+    }
+
+    void clear() {
+        postings.clear();
+    }
+
+    /**
+     * @return The rows that may contain the query: the shortest posting list among its trigrams.
+     * Empty if any trigram does not occur at all. The query must be at least {@link #MIN_QUERY_LENGTH} long.
+     */
+    int[] candidates(String query) {
+        Postings shortest = null;
+        for (int i = 0; i + MIN_QUERY_LENGTH <= query.length(); i++) {
+            Postings list = postings.get(trigram(query, i));
+            if (list == null) return NO_ROWS;
+            if (shortest == null || list.size < shortest.size) shortest = list;
+        }
+        return shortest == null ? NO_ROWS : Arrays.copyOf(shortest.rows, shortest.size);
+    }
+
+    private static long trigram(String key, int start) {
+        return ((long) key.charAt(start) << 32) | ((long) key.charAt(start + 1) << 16) | key.charAt(start + 2);
+    }
+
+    /**
+     * A growable, unordered list of row indexes.
+     */
+    private static final class Postings {
+        int[] rows = new int[4];
+        int size = 0;
+
+        void add(int row) {
+            if (size == rows.length) rows = Arrays.copyOf(rows, size * 2);
+            rows[size++] = row;
+        }
+
+        boolean remove(int row) {
+            for (int i = 0; i < size; i++) {
+                if (rows[i] == row) {
+                    rows[i] = rows[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void replace(int oldRow, int newRow) {
+            for (int i = 0; i < size; i++) {
+                if (rows[i] == oldRow) {
+                    rows[i] = newRow;
+                    return;
+                }
+            }
+        }
+    }
+}
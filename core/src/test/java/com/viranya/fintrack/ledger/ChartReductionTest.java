@@ -0,0 +1,86 @@
+package com.viranya.fintrack.ledger;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ChartReductionTest {
+
+    @Test
+    public void lttb_keepsSmallSeriesWhole() {
+        float[] x = {0, 1, 2};
+        float[] y = {5, 1, 5};
+        assertArrayEquals(new int[]{0, 1, 2}, ChartReduction.lttb(x, y, 3));
+        assertArrayEquals(new int[]{0, 1, 2}, ChartReduction.lttb(x, y, 10));
+        assertArrayEquals(new int[0], ChartReduction.lttb(new float[0], new float[0], 5));
+        assertArrayEquals(new int[]{0}, ChartReduction.lttb(new float[]{1}, new float[]{1}, 5));
+    }
+
+    @Test
+    public void lttb_keepsEverythingBelowThreeThreshold() {
+        float[] x = {0, 1, 2, 3, 4};
+        float[] y = {0, 1, 0, 1, 0};
+        assertEquals(5, ChartReduction.lttb(x, y, 2).length);
+    }
+
+    @Test
+    public void lttb_alwaysKeepsEndpointsAndAscendingIndexes() {
+        int length = 1000;
+        float[] x = new float[length];
+        float[] y = new float[length];
+        for (int i = 0; i < length; i++) {
+            x[i] = i;
+            y[i] = (float) Math.sin(i / 25.0) * 100;
+        }
+        for (int threshold : new int[]{3, 4, 50, 999}) {
+            int[] selected = ChartReduction.lttb(x, y, threshold);
+            assertEquals(threshold, selected.length);
+            assertEquals(0, selected[0]);
+            assertEquals(length - 1, selected[threshold - 1]);
+            for (int i = 1; i < selected.length; i++) {
+                assertTrue("Indexes must ascend: " + Arrays.toString(selected), selected[i] > selected[i - 1]);
+            }
+        }
+    }
+
+    @Test
+    public void lttb_keepsASpike() {
+        float[] x = new float[100];
+        float[] y = new float[100];
+        for (int i = 0; i < 100; i++) x[i] = i;
+        y[42] = 1000;
+        int[] selected = ChartReduction.lttb(x, y, 10);
+        assertTrue(Arrays.stream(selected).anyMatch(i -> i == 42));
+    }
+
+    @Test
+    public void topN_foldsTheRestIntoOther() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        values.put("Food", 50L);
+        values.put("Rent", 100L);
+        values.put("Fun", 10L);
+        values.put("Gym", 5L);
+        values.put("Refund", -20L);
+        values.put("Empty", 0L);
+        Map<String, Long> top = ChartReduction.topN(values, 2, "Other");
+        assertEquals(Arrays.asList("Rent", "Food", "Other"), Arrays.asList(top.keySet().toArray()));
+        assertEquals(15L, (long) top.get("Other"));
+    }
+
+    @Test
+    public void topN_showsASingleLeftoverInsteadOfOther() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        values.put("A", 3L);
+        values.put("B", 2L);
+        values.put("C", 1L);
+        Map<String, Long> top = ChartReduction.topN(values, 2, "Other");
+        assertEquals(3, top.size());
+        assertTrue(top.containsKey("C"));
+    }
+}
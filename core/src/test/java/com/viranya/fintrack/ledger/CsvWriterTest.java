@@ -0,0 +1,68 @@
+package com.viranya.fintrack.ledger;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.Assert.assertEquals;
+
+public class CsvWriterTest {
+
+    private static String row(Long dateMillis, String type, String category, String title, long amountMinor) throws IOException {
+        StringWriter out = new StringWriter();
+        new CsvWriter(out, ZoneOffset.UTC).writeRow(dateMillis, type, category, title, amountMinor);
+        return out.toString();
+    }
+
+    @Test
+    public void quotesEveryTextColumn() throws IOException {
+        long date = LocalDateTime.of(2024, 3, 5, 14, 7, 9).toInstant(ZoneOffset.UTC).toEpochMilli();
+        assertEquals("\"2024-03-05 14:07:09\",\"Expense\",\"Food\",\"Lunch, with \"\"friends\"\"\",12.50\n",
+                row(date, "Expense", "Food", "Lunch, with \"friends\"", 1250));
+    }
+
+    @Test
+    public void writesEmptyQuotesForMissingValues() throws IOException {
+        assertEquals("\"\",\"Income\",\"\",\"\",0.00\n", row(null, "Income", null, null, 0));
+    }
+
+    @Test
+    public void keepsNewlinesInsideQuotes() throws IOException {
+        assertEquals("\"\",\"Expense\",\"Food\",\"two\nlines\",1.00\n", row(null, "Expense", "Food", "two\nlines", 100));
+    }
+
+    @Test
+    public void writesAmountsWithTwoDecimals() throws IOException {
+        assertEquals("0.05", amountOf(row(null, "", "", "", 5)));
+        assertEquals("0.50", amountOf(row(null, "", "", "", 50)));
+        assertEquals("123456.78", amountOf(row(null, "", "", "", 12345678)));
+    }
+
+    @Test
+    public void writesNegativeAmounts() throws IOException {
+        assertEquals("-0.05", amountOf(row(null, "", "", "", -5)));
+        assertEquals("-12.34", amountOf(row(null, "", "", "", -1234)));
+        assertEquals("-100.00", amountOf(row(null, "", "", "", -10000)));
+    }
+
+    @Test
+    public void writeRows_followsTheGivenOrder() throws IOException {
+        TransactionColumns ledger = new TransactionColumns();
+        ledger.upsert("a", "First", "Income", "Salary", "Bank", 0, 100);
+        ledger.upsert("b", "Second", "Expense", "Food", "Cash", 1000, 250);
+        StringWriter out = new StringWriter();
+        CsvWriter csv = new CsvWriter(out, ZoneOffset.UTC);
+        csv.writeHeader();
+        csv.writeRows(ledger, ledger.rowsNewestFirst());
+        assertEquals(CsvWriter.HEADER
+                + "\"1970-01-01 00:00:01\",\"Expense\",\"Food\",\"Second\",2.50\n"
+                + "\"1970-01-01 00:00:00\",\"Income\",\"Salary\",\"First\",1.00\n", out.toString());
+    }
+
+    private static String amountOf(String row) {
+        return row.substring(row.lastIndexOf(',') + 1, row.length() - 1);
+    }
+}
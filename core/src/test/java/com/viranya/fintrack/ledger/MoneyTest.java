@@ -0,0 +1,78 @@
+package com.viranya.fintrack.ledger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class MoneyTest {
+
+    @Test
+    public void parse_isExact() {
+        assertEquals(125050, Money.parse("1250.5"));
+        assertEquals(125050, Money.parse(" 1250.50 "));
+        assertEquals(1, Money.parse("0.01"));
+        assertEquals(0, Money.parse("0"));
+        assertEquals(-1999, Money.parse("-19.99"));
+    }
+
+    @Test
+    public void parse_roundsPastTwoDecimalsHalfUp() {
+        assertEquals(1, Money.parse("0.005"));
+        assertEquals(0, Money.parse("0.004"));
+        assertEquals(1235, Money.parse("12.345"));
+        assertEquals(-1, Money.parse("-0.005")); // Half up rounds away from zero
+    }
+
+    @Test
+    public void parse_rejectsInvalidAndOutOfRange() {
+        assertThrows(NumberFormatException.class, () -> Money.parse("abc"));
+        assertThrows(NumberFormatException.class, () -> Money.parse(""));
+        assertThrows(NumberFormatException.class, () -> Money.parse("100000000000000000000"));
+    }
+
+    @Test
+    public void toMinor_roundsDoubleNoise() {
+        assertEquals(30, Money.toMinor(0.1 + 0.2));
+        assertEquals(125050, Money.toMinor(1250.5));
+        assertEquals(-1999, Money.toMinor(-19.99));
+    }
+
+    @Test
+    public void resolveMinor_ignoresAnIncrementThatLandedBeforeTheMigration() {
+        // A 100.00 balance written by an older version, then a 5.00 expense saved before the
+        // migration: the increment creates balanceMinor holding only -500.
+        double balance = 100.00 - 5.00;
+        long balanceMinor = -500;
+        assertEquals(9500, Money.resolveMinor(false, balanceMinor, balance));
+
+        // The migration copies the major field and sets the marker; later increments move both
+        long migratedMinor = Money.resolveMinor(false, balanceMinor, balance);
+        assertEquals(9500, Money.resolveMinor(true, migratedMinor, balance));
+        assertEquals(9000, Money.resolveMinor(true, migratedMinor - 500, balance - 5.00));
+    }
+
+    @Test
+    public void resolveMinor_handlesMissingFields() {
+        assertEquals(0, Money.resolveMinor(false, null, null));
+        assertEquals(0, Money.resolveMinor(true, null, null));
+        assertEquals(1999, Money.resolveMinor(true, null, 19.99)); // Marked but written without the minor field
+        assertEquals(1999, Money.resolveMinor(false, null, 19.99));
+    }
+
+    @Test
+    public void toPlainString_alwaysHasTwoDecimals() {
+        assertEquals("1250.50", Money.toPlainString(125050));
+        assertEquals("0.00", Money.toPlainString(0));
+        assertEquals("0.05", Money.toPlainString(5));
+        assertEquals("-0.05", Money.toPlainString(-5));
+        assertEquals("-12.34", Money.toPlainString(-1234));
+    }
+
+    @Test
+    public void toPlainString_roundTripsThroughParse() {
+        for (long amount : new long[]{0, 1, 99, 100, 123456789, -1, -100, -987654321}) {
+            assertEquals(amount, Money.parse(Money.toPlainString(amount)));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.viranya.fintrack.ledger;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class ReportBucketsTest {
+
+    private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+
+    private static long millis(int year, int month, int day, int hour, int minute) {
+        return LocalDateTime.of(year, month, day, hour, minute).atZone(BERLIN).toInstant().toEpochMilli();
+    }
+
+    @Test
+    public void from_isRoundedDownToItsBucket() {
+        // 2024-05-15 is a Wednesday; its ISO week starts on Monday the 13th
+        ReportBuckets weeks = new ReportBuckets(ReportPeriod.WEEK, LocalDate.of(2024, 5, 15), LocalDate.of(2024, 5, 27), BERLIN);
+        assertEquals(LocalDate.of(2024, 5, 13), weeks.getStart(0));
+        assertEquals(3, weeks.size());
+
+        ReportBuckets quarters = new ReportBuckets(ReportPeriod.QUARTER, LocalDate.of(2024, 2, 10), LocalDate.of(2024, 12, 31), BERLIN);
+        assertEquals(LocalDate.of(2024, 1, 1), quarters.getStart(0));
+        assertEquals(LocalDate.of(2024, 10, 1), quarters.getStart(3));
+        assertEquals(4, quarters.size());
+        assertEquals("Q4 24", quarters.getLabel(3));
+    }
+
+    @Test
+    public void bucketStartIsInclusiveAndReportEndIsExclusive() {
+        ReportBuckets days = new ReportBuckets(ReportPeriod.DAY, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 2), BERLIN);
+        days.add(millis(2024, 1, 1, 0, 0), false, 100);
+        days.add(millis(2024, 1, 2, 0, 0), false, 200);
+        days.add(millis(2024, 1, 2, 0, 0) - 1, false, 1);
+        days.add(days.getEndMillis(), false, 1000);      // Midnight after the last day
+        days.add(days.getFromMillis() - 1, false, 1000); // Just before the first day
+        assertEquals(101, days.getExpense(0));
+        assertEquals(200, days.getExpense(1));
+    }
+
+    @Test
+    public void daysFollowDaylightSavingTransitions() {
+        // 31 March 2024 has 23 hours in Berlin, 27 October 2024 has 25
+        ReportBuckets spring = new ReportBuckets(ReportPeriod.DAY, LocalDate.of(2024, 3, 31), LocalDate.of(2024, 4, 1), BERLIN);
+        spring.add(millis(2024, 3, 31, 23, 30), true, 5);
+        spring.add(millis(2024, 4, 1, 0, 30), true, 7);
+        assertEquals(5, spring.getIncome(0));
+        assertEquals(7, spring.getIncome(1));
+        assertEquals(23 * 3_600_000L + 24 * 3_600_000L, spring.getEndMillis() - spring.getFromMillis());
+
+        ReportBuckets autumn = new ReportBuckets(ReportPeriod.DAY, LocalDate.of(2024, 10, 27), LocalDate.of(2024, 10, 27), BERLIN);
+        autumn.add(millis(2024, 10, 27, 23, 59), true, 3);
+        assertEquals(3, autumn.getIncome(0));
+        assertEquals(25 * 3_600_000L, autumn.getEndMillis() - autumn.getFromMillis());
+    }
+
+    @Test
+    public void addMonth_landsInItsQuarter() {
+        ReportBuckets quarters = new ReportBuckets(ReportPeriod.QUARTER, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31), BERLIN);
+        quarters.addMonth(YearMonth.of(2024, 3), 10, 20);
+        quarters.addMonth(YearMonth.of(2024, 4), 1, 2);
+        quarters.addMonth(YearMonth.of(2025, 1), 1000, 1000); // Outside the report
+        assertEquals(10, quarters.getIncome(0));
+        assertEquals(20, quarters.getExpense(0));
+        assertEquals(1, quarters.getIncome(1));
+    }
+
+    @Test
+    public void addMonth_isRejectedForDayBuckets() {
+        ReportBuckets days = new ReportBuckets(ReportPeriod.DAY, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), BERLIN);
+        assertThrows(IllegalStateException.class, () -> days.addMonth(YearMonth.of(2024, 1), 1, 1));
+    }
+
+    @Test
+    public void addAll_matchesAddingRowByRow() {
+        TransactionColumns ledger = new TransactionColumns();
+        ledger.upsert("a", "Salary", "Income", "Salary", "Bank", millis(2024, 1, 31, 23, 59), 500000);
+        ledger.upsert("b", "Rent", "Expense", "Housing", "Bank", millis(2024, 2, 1, 0, 0), 120000);
+        ledger.upsert("c", "Old", "Expense", "Food", "Cash", millis(2023, 12, 31, 12, 0), 999);
+
+        ReportBuckets months = new ReportBuckets(ReportPeriod.MONTH, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 29), BERLIN);
+        months.addAll(ledger);
+        assertEquals(500000, months.getIncome(0));
+        assertEquals(0, months.getExpense(0));
+        assertEquals(120000, months.getExpense(1));
+    }
+
+    @Test
+    public void reportEndingBeforeItStarts_isRejected() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new ReportBuckets(ReportPeriod.DAY, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 1, 31), BERLIN));
+    }
+}
@@ -0,0 +1,102 @@
+package com.viranya.fintrack.ledger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TransactionColumnsTest {
+
+    private static String[] ids(TransactionColumns ledger, int[] rows) {
+        String[] ids = new String[rows.length];
+        for (int i = 0; i < rows.length; i++) ids[i] = ledger.getDocumentId(rows[i]);
+        return ids;
+    }
+
+    private static TransactionColumns sample() {
+        TransactionColumns ledger = new TransactionColumns();
+        ledger.upsert("a", "Coffee", "Expense", "Food", "Cash", 1000, 350);
+        ledger.upsert("b", "Salary", "Income", "Salary", "Bank", 3000, 500000);
+        ledger.upsert("c", "Groceries", "Expense", "Food", "Bank", 2000, 4200);
+        return ledger;
+    }
+
+    @Test
+    public void upsert_insertsAndOrdersNewestFirst() {
+        TransactionColumns ledger = sample();
+        assertEquals(3, ledger.size());
+        assertArrayEquals(new String[]{"b", "c", "a"}, ids(ledger, ledger.rowsNewestFirst()));
+        assertArrayEquals(new String[]{"b"}, ids(ledger, ledger.newestRows(1)));
+    }
+
+    @Test
+    public void upsert_overwritesTheSameDocument() {
+        TransactionColumns ledger = sample();
+        ledger.rowsNewestFirst(); // Build the order so it is maintained incrementally
+        ledger.upsert("a", "Tea", "Expense", "Drinks", "Cash", 4000, 300);
+
+        assertEquals(3, ledger.size());
+        int row = ledger.rowOf("a");
+        assertEquals("Tea", ledger.getTitle(row));
+        assertEquals("Drinks", ledger.getCategory(row));
+        assertEquals(300, ledger.getAmountMinor(row));
+        assertArrayEquals(new String[]{"a", "b", "c"}, ids(ledger, ledger.rowsNewestFirst()));
+        assertArrayEquals(new String[0], ids(ledger, ledger.filter(TransactionColumns.ANY, "coffee")));
+        assertArrayEquals(new String[]{"a"}, ids(ledger, ledger.filter(TransactionColumns.ANY, "tea")));
+    }
+
+    @Test
+    public void remove_movesTheLastRowIntoTheGap() {
+        TransactionColumns ledger = sample();
+        ledger.rowsNewestFirst();
+        assertTrue(ledger.remove("a"));
+        assertFalse(ledger.remove("a"));
+
+        assertEquals(2, ledger.size());
+        assertEquals(-1, ledger.rowOf("a"));
+        assertEquals("Groceries", ledger.getTitle(ledger.rowOf("c")));
+        assertArrayEquals(new String[]{"b", "c"}, ids(ledger, ledger.rowsNewestFirst()));
+        assertArrayEquals(new String[]{"c"}, ids(ledger, ledger.filter(TransactionColumns.ANY, "groceries")));
+    }
+
+    @Test
+    public void remove_beforeTheOrderIsBuilt() {
+        TransactionColumns ledger = sample();
+        ledger.remove("b");
+        assertArrayEquals(new String[]{"c", "a"}, ids(ledger, ledger.rowsNewestFirst()));
+    }
+
+    @Test
+    public void filter_matchesTitleCategoryAndAccount() {
+        TransactionColumns ledger = sample();
+        int expense = ledger.typeId("Expense");
+        assertArrayEquals(new String[]{"c", "a"}, ids(ledger, ledger.filter(expense, "")));
+        assertArrayEquals(new String[]{"c", "a"}, ids(ledger, ledger.filter(TransactionColumns.ANY, "food")));
+        assertArrayEquals(new String[]{"b", "c"}, ids(ledger, ledger.filter(TransactionColumns.ANY, "bank")));
+        assertArrayEquals(new String[]{"a"}, ids(ledger, ledger.filter(TransactionColumns.ANY, "co"))); // Below trigram length
+    }
+
+    @Test
+    public void sumsAndNetByAccount() {
+        TransactionColumns ledger = sample();
+        assertEquals(4550, ledger.sum(ledger.typeId("Expense"), 0, Long.MAX_VALUE, -1));
+        assertEquals(350, ledger.sum(ledger.typeId("Expense"), 0, 1500, -1));
+
+        long[] net = ledger.netByAccount(0, Long.MAX_VALUE);
+        assertEquals(-350, net[ledger.accountId("Cash")]);
+        assertEquals(500000 - 4200, net[ledger.accountId("Bank")]);
+    }
+
+    @Test
+    public void clear_emptiesEverything() {
+        TransactionColumns ledger = sample();
+        ledger.rowsNewestFirst();
+        ledger.clear();
+        assertEquals(0, ledger.size());
+        assertEquals(0, ledger.rowsNewestFirst().length);
+        ledger.upsert("d", "New", "Income", "Gift", "Cash", 5, 1);
+        assertArrayEquals(new String[]{"d"}, ids(ledger, ledger.rowsNewestFirst()));
+    }
+}
@@ -0,0 +1,66 @@
+package com.viranya.fintrack.ledger;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TrigramIndexTest {
+
+    private static int[] sorted(int[] rows) {
+        int[] copy = rows.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    @Test
+    public void candidates_holdEveryRowContainingTheQuery() {
+        TrigramIndex index = new TrigramIndex();
+        index.add(0, "coffee shop");
+        index.add(1, "coffee beans");
+        index.add(2, "tea");
+        assertArrayEquals(new int[]{0, 1}, sorted(index.candidates("coffee")));
+        assertArrayEquals(new int[]{2}, index.candidates("tea"));
+        assertArrayEquals(new int[0], index.candidates("juice"));
+    }
+
+    @Test
+    public void queriesShorterThanATrigramHaveNoCandidates() {
+        TrigramIndex index = new TrigramIndex();
+        index.add(0, "ab");
+        index.add(1, "abc");
+        assertEquals(0, index.candidates("").length);
+        assertEquals(0, index.candidates("ab").length);
+        assertArrayEquals(new int[]{1}, index.candidates("abc"));
+    }
+
+    @Test
+    public void indexesNonAsciiCharacters() {
+        TrigramIndex index = new TrigramIndex();
+        index.add(0, "café crème");
+        index.add(1, "cafe creme");
+        index.add(2, "寿司ランチ");
+        index.add(3, "pizza 🍕 night");
+        assertArrayEquals(new int[]{0}, index.candidates("afé"));
+        assertArrayEquals(new int[]{1}, index.candidates("afe"));
+        assertArrayEquals(new int[]{2}, index.candidates("ランチ"));
+        assertArrayEquals(new int[]{3}, index.candidates("a 🍕"));
+    }
+
+    @Test
+    public void removeAndMove_keepPostingsInStep() {
+        TrigramIndex index = new TrigramIndex();
+        index.add(0, "groceries");
+        index.add(1, "grocery run");
+        index.remove(0, "groceries");
+        assertArrayEquals(new int[]{1}, index.candidates("grocer"));
+        assertEquals(0, index.candidates("ries").length);
+
+        index.move(1, 0, "grocery run");
+        assertArrayEquals(new int[]{0}, index.candidates("run"));
+        index.clear();
+        assertEquals(0, index.candidates("run").length);
+    }
+}
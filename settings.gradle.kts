@@ -24,4 +24,6 @@ dependencyResolutionManagement {
 }
 
 rootProject.name = "FinTrack"
-include(":app")
\ No newline at end of file
+include(":app")
+include(":core")
+include(":benchmarks")
\ No newline at end of file